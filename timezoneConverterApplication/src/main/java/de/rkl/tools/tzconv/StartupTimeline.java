@@ -0,0 +1,183 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv;
+
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.core.metrics.StartupStep.Tag;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * {@link ApplicationStartup} keeping every finished step in memory, so the Spring context refresh and the
+ * application's own startup phases can be written out as one timeline. Offsets are relative to the JVM start, which
+ * makes the step ending at the first rendered frame the cold start time.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public class StartupTimeline implements ApplicationStartup {
+    private final long originNanos;
+    private final AtomicLong stepIds;
+    private final ThreadLocal<RecordedStep> currentStep;
+    private final List<RecordedStep> finishedSteps;
+
+    public StartupTimeline() {
+        final long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        originNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(uptimeMillis);
+        stepIds = new AtomicLong();
+        currentStep = new ThreadLocal<>();
+        finishedSteps = new ArrayList<>();
+    }
+
+    @Override
+    public StartupStep start(final String name) {
+        final RecordedStep step = new RecordedStep(stepIds.incrementAndGet(), name, currentStep.get());
+        currentStep.set(step);
+        return step;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - originNanos);
+    }
+
+    /**
+     * Writes one line per finished step, ordered by start: start and duration in milliseconds since the JVM start,
+     * the step name indented by its nesting depth, and its tags.
+     */
+    public void writeTo(final Appendable target) throws IOException {
+        final List<RecordedStep> steps;
+        synchronized (finishedSteps) {
+            steps = new ArrayList<>(finishedSteps);
+        }
+        steps.sort(Comparator.comparingLong(step -> step.startNanos));
+        for (final RecordedStep step : steps) {
+            target.append(String.format("%8.1f %8.1f ", toMillis(step.startNanos - originNanos), toMillis(step
+                    .endNanos - step.startNanos)));
+            for (int level = 0; level < step.depth; level++) {
+                target.append("  ");
+            }
+            target.append(step.name);
+            for (final Tag tag : step.tags) {
+                target.append(' ').append(tag.getKey()).append('=').append(tag.getValue());
+            }
+            target.append('\n');
+        }
+    }
+
+    private static double toMillis(final long nanos) {
+        return nanos / 1e6;
+    }
+
+    private class RecordedStep implements StartupStep {
+        private final long id;
+        private final String name;
+        private final RecordedStep parent;
+        private final int depth;
+        private final long startNanos;
+        private final RecordedTags tags;
+        private long endNanos;
+
+        private RecordedStep(final long id, final String name, final RecordedStep parent) {
+            this.id = id;
+            this.name = name;
+            this.parent = parent;
+            depth = parent == null ? 0 : parent.depth + 1;
+            tags = new RecordedTags();
+            startNanos = System.nanoTime();
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public Long getParentId() {
+            return parent == null ? null : parent.id;
+        }
+
+        @Override
+        public StartupStep tag(final String key, final String value) {
+            tags.entries.add(new RecordedTag(key, value));
+            return this;
+        }
+
+        @Override
+        public StartupStep tag(final String key, final Supplier<String> value) {
+            return tag(key, value.get());
+        }
+
+        @Override
+        public Tags getTags() {
+            return tags;
+        }
+
+        @Override
+        public void end() {
+            endNanos = System.nanoTime();
+            // Steps started on one thread may be ended on another; only unwind the thread that owns them
+            if (currentStep.get() == this) {
+                currentStep.set(parent);
+            }
+            synchronized (finishedSteps) {
+                finishedSteps.add(this);
+            }
+        }
+    }
+
+    private static class RecordedTags implements StartupStep.Tags {
+        private final List<Tag> entries = new ArrayList<>();
+
+        @Override
+        public Iterator<Tag> iterator() {
+            return entries.iterator();
+        }
+    }
+
+    private static class RecordedTag implements Tag {
+        private final String key;
+        private final String value;
+
+        private RecordedTag(final String key, final String value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public String getValue() {
+            return value;
+        }
+    }
+}
@@ -16,63 +16,97 @@
  */
 package de.rkl.tools.tzconv;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.rkl.tools.tzconv.configuration.PreferencesProvider;
+import de.rkl.tools.tzconv.engine.ConversionEngine;
+import de.rkl.tools.tzconv.engine.OutputFormats;
+import de.rkl.tools.tzconv.engine.WorkingHoursOverlapFinder;
+import de.rkl.tools.tzconv.metrics.MetricsRegistry;
+import de.rkl.tools.tzconv.metrics.Operation;
+import de.rkl.tools.tzconv.metrics.OperationTimer;
 import de.rkl.tools.tzconv.model.ApplicationModel;
+import de.rkl.tools.tzconv.model.ZoneRulesSwitcher;
+import de.rkl.tools.tzconv.model.ZoneSearchIndex;
+import de.rkl.tools.tzconv.view.ClipboardExport;
+import de.rkl.tools.tzconv.view.ConversionGridView;
+import de.rkl.tools.tzconv.view.OutputLines;
+import de.rkl.tools.tzconv.view.RenderScheduler;
+import de.rkl.tools.tzconv.view.RenderedOutput;
+import de.rkl.tools.tzconv.view.WorkingHoursOverlapView;
 import de.rkl.tools.tzconv.view.ZoneIdSelectionDialog;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.Button;
-import javafx.scene.control.TextArea;
-import javafx.scene.control.TextField;
+import javafx.scene.input.Clipboard;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.VelocityEngine;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
-import org.springframework.context.annotation.ComponentScan;
+import org.springframework.core.metrics.StartupStep;
 
-import java.awt.*;
-import java.awt.datatransfer.StringSelection;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.StringWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import static de.rkl.tools.tzconv.configuration.Constants.BEAN_NAME_DATE_FORMATTER;
-import static de.rkl.tools.tzconv.configuration.Constants.BEAN_NAME_DATE_TIME_FORMATTER;
 import static de.rkl.tools.tzconv.model.ApplicationModel.DEFAULT_INITIAL_HOUR;
 import static de.rkl.tools.tzconv.model.ApplicationModel.DEFAULT_INITIAL_MINUTE;
+import static de.rkl.tools.tzconv.model.ApplicationState.Aspect.TEMPLATE_FILE;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static javafx.collections.FXCollections.observableArrayList;
 
 /**
  * @author Raimund Klein <raimund.klein@gmx.de>
  */
 @SuppressWarnings("WeakerAccess")
-@ComponentScan
 public class TimezoneConverter extends Application {
     private static final int DEFAULT_BOX_SPACING = 5;
+    private static final int MAX_ZONE_SEARCH_RESULTS = 50;
+    /**
+     * System property naming the file the startup timeline is written to once the first frame has been rendered.
+     */
+    private static final String PROPERTY_STARTUP_TIMELINE_FILE = "timezoneConverter.startupTimeline";
+
+    private final StartupTimeline startupTimeline = new StartupTimeline();
+    private final OutputLines outputLines = new OutputLines();
 
     private ApplicationModel applicationModel;
 
     private PreferencesProvider preferencesProvider;
 
-    private ZoneIdSelectionDialog zoneIdSelectionDialog;
-    private VelocityEngine velocityEngine;
-    private DateTimeFormatter dateFormatter;
-    private DateTimeFormatter dateTimeFormatter;
+    private ObjectProvider<ZoneIdSelectionDialog> zoneIdSelectionDialogProvider;
+    private ConversionEngine conversionEngine;
+    private WorkingHoursOverlapFinder workingHoursOverlapFinder;
+    private ZoneRulesSwitcher zoneRulesSwitcher;
+    private MetricsRegistry metricsRegistry;
+    private ExecutorService renderExecutor;
+    /**
+     * Builds the {@link ZoneSearchIndex}, which takes a moment, without holding up renders or the FX thread.
+     */
+    private ExecutorService zoneSearchIndexExecutor;
+    /**
+     * The latest published render, shared by the output view and the clipboard.
+     */
+    private RenderedOutput renderedOutput = RenderedOutput.EMPTY;
 
     public static void main(String[] args) {
         launch(args);
@@ -80,38 +114,91 @@ public class TimezoneConverter extends Application {
 
     private ApplicationContext initializeSpringContext() {
         final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
-        context.scan(TimezoneConverter.class.getPackage().getName());
+        context.setApplicationStartup(startupTimeline);
+        context.register(TimezoneConverterConfiguration.class);
+        final OperationTimer refreshTimer = OperationTimer.start(Operation.SPRING_REFRESH);
         context.refresh();
+        refreshTimer.stop(context.getBean(MetricsRegistry.class));
         return context;
     }
 
     @Override
     public void stop() throws Exception {
+        renderExecutor.shutdownNow();
+        zoneSearchIndexExecutor.shutdownNow();
         preferencesProvider.flushPreferences();
+        metricsRegistry.stopReporting();
     }
 
     @Override
     public void start(final Stage primaryStage) throws Exception {
+        final StartupStep contextStep = startupTimeline.start("timezoneConverter.context");
         initializeSpringContextAndBeans();
+        contextStep.end();
+        final StartupStep stageStep = startupTimeline.start("timezoneConverter.stage");
         final VBox rootBox = new VBox(DEFAULT_BOX_SPACING, createDateTimeBox(), createTemplateBox(),
-                createMainTextArea(), createZoneIdSelectionButtonBox(), createCopyToClipboard(createMainTextArea()));
+                createOutputPane(), createZoneIdSelectionButtonBox(), createCopyToClipboard());
         primaryStage.setScene(new Scene(rootBox, 700, 1000));
         primaryStage.show();
+        stageStep.end();
+        recordFirstFrame();
+    }
+
+    /**
+     * Ends the startup timeline with the first pulse after the stage has been shown, which is when its first frame is
+     * rendered.
+     */
+    private void recordFirstFrame() {
+        final StartupStep firstFrameStep = startupTimeline.start("timezoneConverter.firstFrame");
+        new AnimationTimer() {
+            @Override
+            public void handle(final long now) {
+                stop();
+                firstFrameStep.tag("sinceJvmStartMillis", String.valueOf(startupTimeline.getElapsedMillis()));
+                firstFrameStep.end();
+                writeStartupTimeline();
+            }
+        }.start();
+    }
+
+    private void writeStartupTimeline() {
+        final String startupTimelineFile = System.getProperty(PROPERTY_STARTUP_TIMELINE_FILE);
+        if (startupTimelineFile == null) {
+            return;
+        }
+        try (final Writer timelineWriter = Files.newBufferedWriter(Paths.get(startupTimelineFile), UTF_8)) {
+            startupTimeline.writeTo(timelineWriter);
+        } catch (IOException e) {
+            System.err.printf("Startup timeline could not be written to %s: %s%n", startupTimelineFile, e);
+        }
     }
 
     private Node createTemplateBox() {
         return new HBox(DEFAULT_BOX_SPACING, createTemplateCheckbox(), createTemplateFileSelection(),
-                createTemplateNameField());
+                createTemplateNameField(), createOutputFormatBox());
+    }
+
+    /**
+     * Offers the output formats from the configuration; all of them are compiled at startup, so switching only
+     * triggers a render.
+     */
+    private ComboBox<String> createOutputFormatBox() {
+        final OutputFormats outputFormats = conversionEngine.getOutputFormats();
+        final ComboBox<String> outputFormatBox = new ComboBox<>(observableArrayList(outputFormats.getNames()));
+        final String outputFormatName = applicationModel.getState().getOutputFormatName();
+        outputFormatBox.setValue(outputFormatName == null ? outputFormats.getDefault().getName() : outputFormatName);
+        outputFormatBox.setOnAction(event -> applicationModel.setOutputFormatName(outputFormatBox.getValue()));
+        return outputFormatBox;
     }
 
     private Node createTemplateNameField() {
         final TextField templateNameField = new TextField();
         templateNameField.setEditable(false);
-        final File templateFile = applicationModel.templateFile.getValue();
+        final File templateFile = applicationModel.getTemplateFile();
         templateNameField.setText(templateFile == null ? StringUtils.EMPTY : templateFile.getName());
-        applicationModel.templateFile.addListener((observable, oldValue, newValue) -> {
-            templateNameField.setText
-                    (newValue == null ? StringUtils.EMPTY : newValue.getName());
+        applicationModel.addStateListener(TEMPLATE_FILE, newState -> {
+            final File newTemplateFile = newState.getTemplateFile();
+            templateNameField.setText(newTemplateFile == null ? StringUtils.EMPTY : newTemplateFile.getName());
         });
         return templateNameField;
     }
@@ -119,7 +206,7 @@ public class TimezoneConverter extends Application {
     private Node createTemplateFileSelection() {
         final Button templateFileChooserButton = new Button();
         templateFileChooserButton.setText("Select template...");
-        templateFileChooserButton.setOnAction(event -> applicationModel.templateFile.setValue
+        templateFileChooserButton.setOnAction(event -> applicationModel.setTemplateFile
                 (createTemplateFileChooser().showOpenDialog(null)));
         return templateFileChooserButton;
     }
@@ -128,19 +215,19 @@ public class TimezoneConverter extends Application {
         final FileChooser templateFileChooser = new FileChooser();
         templateFileChooser.setTitle("Select template");
         templateFileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Velocity Template", "*.vm"));
-        templateFileChooser.initialFileNameProperty().bind(applicationModel.templateFile.asString());
+        templateFileChooser.setInitialFileName(String.valueOf(applicationModel.getTemplateFile()));
         return templateFileChooser;
     }
 
     private Node createTemplateCheckbox() {
         final CheckBox templateCheckBox = new CheckBox("Use text template");
-        templateCheckBox.setSelected(applicationModel.templateFile.getValue() != null);
-        applicationModel.templateFile.addListener((observable, oldValue, newValue) -> {
-            templateCheckBox.setSelected(newValue != null);
+        templateCheckBox.setSelected(applicationModel.getTemplateFile() != null);
+        applicationModel.addStateListener(TEMPLATE_FILE, newState -> {
+            templateCheckBox.setSelected(newState.getTemplateFile() != null);
         });
         templateCheckBox.selectedProperty().addListener((observable, oldValue, newValue) -> {
             if (oldValue)
-                applicationModel.templateFile.set(null);
+                applicationModel.setTemplateFile(null);
         });
         return templateCheckBox;
     }
@@ -149,118 +236,204 @@ public class TimezoneConverter extends Application {
         final ApplicationContext springContext = initializeSpringContext();
         applicationModel = springContext.getBean(ApplicationModel.class);
         preferencesProvider = springContext.getBean(PreferencesProvider.class);
-        zoneIdSelectionDialog = springContext.getBean(ZoneIdSelectionDialog.class);
-        velocityEngine = springContext.getBean(VelocityEngine.class);
-        dateFormatter = springContext.getBean(BEAN_NAME_DATE_FORMATTER, DateTimeFormatter.class);
-        dateTimeFormatter = springContext.getBean(BEAN_NAME_DATE_TIME_FORMATTER, DateTimeFormatter.class);
+        preferencesProvider.startWriteBehind();
+        zoneIdSelectionDialogProvider = springContext.getBeanProvider(ZoneIdSelectionDialog.class);
+        conversionEngine = springContext.getBean(ConversionEngine.class);
+        workingHoursOverlapFinder = springContext.getBean(WorkingHoursOverlapFinder.class);
+        zoneRulesSwitcher = springContext.getBean(ZoneRulesSwitcher.class);
+        metricsRegistry = springContext.getBean(MetricsRegistry.class);
+        metricsRegistry.startReporting();
+        renderExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("render-%d")
+                .setDaemon(true).build());
+        zoneSearchIndexExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat
+                ("zone-search-index-%d").setDaemon(true).build());
+        zoneSearchIndexExecutor.execute(ZoneSearchIndex::getInstance);
     }
 
     private Node createZoneIdSelectionButtonBox() {
         final Button zoneIdSelection = new Button("Select zone IDs to be included in text");
         zoneIdSelection.setOnAction(this::openZoneIdSelectionDialog);
-        final HBox buttonBox = new HBox(DEFAULT_BOX_SPACING, zoneIdSelection);
+        final HBox buttonBox = new HBox(DEFAULT_BOX_SPACING, zoneIdSelection, createTzdbSelection());
         buttonBox.alignmentProperty().setValue(Pos.CENTER);
         return buttonBox;
     }
 
+    /**
+     * Only enabled if the JVM runs with the switchable zone rules provider.
+     */
+    private Node createTzdbSelection() {
+        final Button tzdbFileChooserButton = new Button("Load tz database...");
+        tzdbFileChooserButton.setDisable(!zoneRulesSwitcher.isSwitchable());
+        tzdbFileChooserButton.setTooltip(new Tooltip("tz database " + zoneRulesSwitcher.getTzdbVersion()));
+        tzdbFileChooserButton.setOnAction(event -> {
+            final FileChooser tzdbFileChooser = new FileChooser();
+            tzdbFileChooser.setTitle("Select tz database");
+            tzdbFileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("tz database", "*.dat"));
+            final File tzdbFile = tzdbFileChooser.showOpenDialog(null);
+            if (tzdbFile == null) {
+                return;
+            }
+            try {
+                zoneRulesSwitcher.switchTo(tzdbFile.toPath());
+                tzdbFileChooserButton.getTooltip().setText("tz database " + zoneRulesSwitcher.getTzdbVersion());
+            } catch (IOException | RuntimeException e) {
+                final Alert tzdbErrorAlert = new Alert(Alert.AlertType.ERROR);
+                tzdbErrorAlert.setHeaderText("tz database could not be loaded");
+                tzdbErrorAlert.setContentText(String.valueOf(e));
+                tzdbErrorAlert.showAndWait();
+            }
+        });
+        return tzdbFileChooserButton;
+    }
+
     private void openZoneIdSelectionDialog(@SuppressWarnings("UnusedParameters") final ActionEvent actionEvent) {
-        final Optional<Collection<ZoneId>> selectedZoneIds = zoneIdSelectionDialog.showAndWait();
+        final Optional<Collection<ZoneId>> selectedZoneIds = zoneIdSelectionDialogProvider.getObject()
+                .showAndWait();
         if (selectedZoneIds.isPresent()) {
-            applicationModel.selectedZoneIds.setAll(selectedZoneIds.get());
-            applicationModel.sortSelectedZoneIds();
+            applicationModel.selectZoneIds(selectedZoneIds.get());
         }
     }
 
-    private Node createCopyToClipboard(final TextInputControl mainArea) {
+    private Node createCopyToClipboard() {
         final Button copyToClipboard = new Button("Copy to Clipboard");
-        copyToClipboard.setOnAction(event -> {
-            final StringSelection stringSelection = new StringSelection(mainArea.textProperty().getValue());
-            Toolkit.getDefaultToolkit().getSystemClipboard().setContents(stringSelection, stringSelection);
-        });
+        copyToClipboard.setOnAction(event -> Clipboard.getSystemClipboard().setContent(ClipboardExport.createContent
+                (renderedOutput)));
         final HBox copyToClipboardBox = new HBox(copyToClipboard);
         copyToClipboardBox.alignmentProperty().setValue(Pos.CENTER);
         return copyToClipboardBox;
     }
 
-    private TextArea createMainTextArea() {
-        final TextArea mainArea = new TextArea();
-        mainArea.setEditable(false);
-        updateTextAreaContent(mainArea, applicationModel.mainDateTime.getValue());
-        applicationModel.mainDateTime.addListener((observable, oldValue, newValue) -> {
-            updateTextAreaContent(mainArea, newValue);
-        });
-        applicationModel.selectedZoneIds.addListener((observable, oldValue, newValue) -> {
-            updateTextAreaContent(mainArea, applicationModel.mainDateTime.getValue());
-        });
-        applicationModel.templateFile.addListener((observable, oldValue, newValue) -> {
-            updateTextAreaContent(mainArea,
-                    applicationModel.mainDateTime.getValue());
+    private Node createOutputPane() {
+        final Tab overlapTab = new Tab("Working hours overlap", new WorkingHoursOverlapView(applicationModel,
+                workingHoursOverlapFinder, renderExecutor));
+        final Tab gridTab = new Tab("Grid", new ConversionGridView(applicationModel, conversionEngine,
+                this::showTemplateErrorAlert));
+        final TabPane analysisPane = new TabPane(overlapTab, gridTab);
+        analysisPane.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+        return new SplitPane(createOutputView(), analysisPane);
+    }
+
+    /**
+     * Shows the rendered lines in a virtualized list. A single {@link RenderScheduler} renders every change once;
+     * the list only updates the lines that differ from the previous render.
+     */
+    private ListView<String> createOutputView() {
+        final ListView<String> outputView = new ListView<>(outputLines);
+        final RenderScheduler renderScheduler = new RenderScheduler(conversionEngine, renderExecutor,
+                this::publishRenderedOutput, this::showTemplateErrorAlert, metricsRegistry);
+        renderScheduler.requestRender(applicationModel.getState());
+        applicationModel.state.addListener((observable, oldState, newState) -> {
+            renderScheduler.requestRender(newState);
         });
-        return mainArea;
+        return outputView;
     }
 
-    private void updateTextAreaContent(final TextArea mainArea, final ZonedDateTime dateTime) {
-        final StringWriter mainAreaWriter = new StringWriter();
-        fillFromTemplate(mainAreaWriter, dateTime);
-        mainArea.setText(mainAreaWriter.toString());
+    private void publishRenderedOutput(final RenderedOutput newRenderedOutput) {
+        renderedOutput = newRenderedOutput;
+        outputLines.update(newRenderedOutput.getLines());
     }
 
-    private void fillFromTemplate(final StringWriter mainAreaWriter, final ZonedDateTime dateTime) {
-        final File templateFileObject = applicationModel.templateFile.getValue();
-        if (templateFileObject == null) {
-            mainAreaWriter.append(formatConvertedDateTimes(dateTime));
-        } else {
-            try {
-                velocityEngine.evaluate(initVelocityContext(dateTime), mainAreaWriter, templateFileObject.getName(),
-                        new FileReader(templateFileObject));
-            } catch (FileNotFoundException e) {
-                final Alert fileNotFoundAlert = new Alert(Alert.AlertType.ERROR);
-                fileNotFoundAlert.setHeaderText("Template file not found");
-                fileNotFoundAlert.setContentText(String.valueOf(e));
-                fileNotFoundAlert.showAndWait();
-            }
-        }
+    private void showTemplateErrorAlert(final Exception e) {
+        final Alert templateErrorAlert = new Alert(Alert.AlertType.ERROR);
+        templateErrorAlert.setHeaderText(e instanceof FileNotFoundException ? "Template file not found" :
+                "Template could not be rendered");
+        templateErrorAlert.setContentText(String.valueOf(e));
+        templateErrorAlert.showAndWait();
     }
 
-    private VelocityContext initVelocityContext(final ZonedDateTime dateTime) {
-        final VelocityContext velocityContext = new VelocityContext();
-        velocityContext.put("originalDate", formatOriginalDate(dateTime));
-        velocityContext.put("convertedTimes", formatConvertedDateTimes(dateTime));
-        return velocityContext;
+    private HBox createDateTimeBox() {
+        final TextField zoneSearchField = new TextField();
+        final ComboBox<ZoneId> zoneIdBox = createTimezoneComboBox(zoneSearchField);
+        initZoneSearchField(zoneSearchField, zoneIdBox);
+        return new HBox(DEFAULT_BOX_SPACING, createDatePicker(), createHourSpinner(), createMinuteSpinner(),
+                zoneIdBox, zoneSearchField);
     }
 
-    private String formatOriginalDate(final ZonedDateTime dateTime) {
-        return dateTime.format(dateFormatter);
+    private ComboBox<ZoneId> createTimezoneComboBox(final TextField zoneSearchField) {
+        final ZoneId initialZoneId = applicationModel.getMainDateTime().getZone();
+        final ComboBox<ZoneId> zoneIdBox = new ComboBox<>(observableArrayList(initialZoneId));
+        zoneIdBox.setEditable(false);
+        zoneIdBox.setValue(initialZoneId);
+        zoneIdBox.setCellFactory(listView -> new ZoneIdWithOffsetCell());
+        // The full zone list is only needed once the popup opens, which keeps loading it off the startup path. It is
+        // grouped by the offsets at the main date and time and only replaced if one of them changed since. While a
+        // search is entered, the popup shows its results instead.
+        zoneIdBox.setOnShowing(event -> {
+            if (!zoneSearchField.getText().trim().isEmpty()) {
+                return;
+            }
+            final List<ZoneId> zoneIdsInOffsetOrder = applicationModel.getZoneOffsetGrouping()
+                    .getZoneIdsInOffsetOrder();
+            if (!zoneIdBox.getItems().equals(zoneIdsInOffsetOrder)) {
+                zoneIdBox.getItems().setAll(zoneIdsInOffsetOrder);
+            }
+        });
+        zoneIdBox.setOnAction(event -> applicationModel.setMainDateTime(applicationModel.getMainDateTime()
+                .withZoneSameLocal(zoneIdBox.getValue())));
+        return zoneIdBox;
     }
 
-    private String formatConvertedDateTimes(final ZonedDateTime localDateTime) {
-        final StringBuilder convertedDateTimeBuilder = new StringBuilder();
-        applicationModel.selectedZoneIds.forEach(zoneId -> {
-            convertedDateTimeBuilder.append(localDateTime.withZoneSameInstant(zoneId).format(dateTimeFormatter));
-            convertedDateTimeBuilder.append('\n');
+    /**
+     * Every keystroke replaces the zone box's items with the best matches from the {@link ZoneSearchIndex}; Enter
+     * picks the first of them.
+     */
+    private void initZoneSearchField(final TextField zoneSearchField, final ComboBox<ZoneId> zoneIdBox) {
+        zoneSearchField.setPromptText("Search zones");
+        zoneSearchField.textProperty().addListener((observable, oldValue, newValue) -> showZoneSearchMatches
+                (zoneSearchField, zoneIdBox));
+        zoneSearchField.setOnAction(event -> {
+            if (!zoneSearchField.getText().trim().isEmpty() && !zoneIdBox.getItems().isEmpty()) {
+                zoneIdBox.setValue(zoneIdBox.getItems().get(0));
+                zoneIdBox.hide();
+                zoneSearchField.clear();
+            }
         });
-        return convertedDateTimeBuilder.toString();
     }
 
-    private HBox createDateTimeBox() {
-        return new HBox(DEFAULT_BOX_SPACING, createDatePicker(), createHourSpinner(), createMinuteSpinner(),
-                createTimezoneComboBox());
+    /**
+     * Until the index has been built, e.g. at startup or after switching the tz database, the search waits for it in
+     * the background and then shows the matches of the text typed by then.
+     */
+    private void showZoneSearchMatches(final TextField zoneSearchField, final ComboBox<ZoneId> zoneIdBox) {
+        final String query = zoneSearchField.getText();
+        if (query.trim().isEmpty()) {
+            zoneIdBox.hide();
+            return;
+        }
+        final ZoneSearchIndex zoneSearchIndex = ZoneSearchIndex.getBuiltInstance();
+        if (zoneSearchIndex == null) {
+            zoneSearchIndexExecutor.execute(() -> {
+                ZoneSearchIndex.getInstance();
+                Platform.runLater(() -> showZoneSearchMatches(zoneSearchField, zoneIdBox));
+            });
+            return;
+        }
+        final List<ZoneId> matchingZoneIds = zoneSearchIndex.search(query, MAX_ZONE_SEARCH_RESULTS);
+        zoneIdBox.getItems().setAll(matchingZoneIds);
+        if (matchingZoneIds.isEmpty()) {
+            zoneIdBox.hide();
+        } else {
+            zoneIdBox.show();
+        }
     }
 
-    private ComboBox<ZoneId> createTimezoneComboBox() {
-        final ComboBox<ZoneId> zoneIdBox = new ComboBox<>(observableArrayList(ApplicationModel
-                .ZONE_OFFSETS_2_ZONE_IDS.values()));
-        zoneIdBox.setEditable(false);
-        zoneIdBox.setValue(applicationModel.mainDateTime.getValue().getZone());
-        zoneIdBox.setOnAction(event -> applicationModel.mainDateTime.setValue(applicationModel.mainDateTime.getValue
-                ().withZoneSameLocal(zoneIdBox.getValue())));
-        return zoneIdBox;
+    private class ZoneIdWithOffsetCell extends ListCell<ZoneId> {
+        @Override
+        protected void updateItem(final ZoneId zoneId, final boolean empty) {
+            super.updateItem(zoneId, empty);
+            if (empty || zoneId == null) {
+                setText(null);
+            } else {
+                final ZoneOffset offset = applicationModel.getZoneOffsetGrouping().getOffset(zoneId);
+                setText("(UTC" + (offset.equals(ZoneOffset.UTC) ? "" : offset.getId()) + ") " + zoneId.getId());
+            }
+        }
     }
 
     private Spinner<Integer> createMinuteSpinner() {
         final Spinner<Integer> minuteSpinner = new Spinner<>(0, 45, DEFAULT_INITIAL_MINUTE, 15);
         minuteSpinner.valueProperty().addListener((observable, oldValue, newValue) -> {
-            applicationModel.mainDateTime.setValue(applicationModel.mainDateTime.getValue().withMinute(newValue));
+            applicationModel.setMainDateTime(applicationModel.getMainDateTime().withMinute(newValue));
         });
         return minuteSpinner;
     }
@@ -268,15 +441,15 @@ public class TimezoneConverter extends Application {
     private Spinner<Integer> createHourSpinner() {
         final Spinner<Integer> hourSpinner = new Spinner<>(0, 23, DEFAULT_INITIAL_HOUR);
         hourSpinner.valueProperty().addListener((observable, oldValue, newValue) -> {
-            applicationModel.mainDateTime.setValue(applicationModel.mainDateTime.getValue().withHour(newValue));
+            applicationModel.setMainDateTime(applicationModel.getMainDateTime().withHour(newValue));
         });
         return hourSpinner;
     }
 
     private DatePicker createDatePicker() {
-        final DatePicker datePicker = new DatePicker(applicationModel.mainDateTime.getValue().toLocalDate());
+        final DatePicker datePicker = new DatePicker(applicationModel.getMainDateTime().toLocalDate());
         datePicker.valueProperty().addListener((observable, oldValue, newValue) -> {
-            applicationModel.mainDateTime.setValue(applicationModel.mainDateTime.getValue().with(newValue));
+            applicationModel.setMainDateTime(applicationModel.getMainDateTime().with(newValue));
         });
         return datePicker;
     }
@@ -0,0 +1,37 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv;
+
+import de.rkl.tools.tzconv.configuration.PreferencesProvider;
+import de.rkl.tools.tzconv.engine.EngineConfiguration;
+import de.rkl.tools.tzconv.model.ApplicationModel;
+import de.rkl.tools.tzconv.model.ZoneRulesSwitcher;
+import de.rkl.tools.tzconv.view.ZoneIdSelectionDialog;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Lists every component of the JavaFX application explicitly, so starting the context does not need to scan the
+ * classpath. New components have to be added here.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@Configuration
+@Import({EngineConfiguration.class, PreferencesProvider.class, ApplicationModel.class, ZoneRulesSwitcher.class,
+        ZoneIdSelectionDialog.class})
+public class TimezoneConverterConfiguration {
+}
@@ -0,0 +1,190 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.cli;
+
+import de.rkl.tools.tzconv.configuration.ApplicationConfiguration;
+import de.rkl.tools.tzconv.engine.ConversionEngine;
+import de.rkl.tools.tzconv.engine.EngineConfiguration;
+import de.rkl.tools.tzconv.engine.OutputFormat;
+import de.rkl.tools.tzconv.engine.ZoneIdSortKeys;
+import de.rkl.tools.tzconv.engine.ZoneSelection;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Headless entry point converting a stream of instants, one per line, into the configured zones. Input lines may
+ * either be ISO-8601 date-times (with offset or zone) or epoch seconds. Results are written as soon as each line has
+ * been converted, so the input is never held in memory as a whole.
+ * <p>
+ * Usage: {@code BatchConverter [--zones=Europe/London,Asia/Tokyo] [--template=file.vm] [--format=iso]
+ * [inputFile|-]}
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class BatchConverter {
+    private static final String OPTION_ZONES = "--zones=";
+    private static final String OPTION_TEMPLATE = "--template=";
+    private static final String OPTION_FORMAT = "--format=";
+    private static final String STANDARD_INPUT = "-";
+    private static final String ZONES_DELIMITER = ",";
+
+    private final ConversionEngine conversionEngine;
+    private final List<ZoneId> zoneIds;
+    private final File templateFile;
+    private final OutputFormat outputFormat;
+    /**
+     * Reused for every input line when no template is given, so the plain conversion does not allocate per line.
+     */
+    private final StringBuilder lineBuffer;
+    private char[] outputBuffer;
+    /**
+     * The zones ordered by their offsets at the instant of a previous line, kept while the order still holds.
+     */
+    private List<ZoneId> sortedZoneIds;
+
+    public BatchConverter(final ConversionEngine conversionEngine, final List<ZoneId> zoneIds,
+                          final File templateFile, final OutputFormat outputFormat) {
+        this.conversionEngine = conversionEngine;
+        this.zoneIds = zoneIds;
+        this.templateFile = templateFile;
+        this.outputFormat = outputFormat;
+        lineBuffer = new StringBuilder();
+        outputBuffer = new char[0];
+    }
+
+    public static void main(final String[] args) throws IOException {
+        String zonesArgument = null;
+        String templateArgument = null;
+        String formatArgument = null;
+        String inputArgument = STANDARD_INPUT;
+        for (final String argument : args) {
+            if (argument.startsWith(OPTION_ZONES)) {
+                zonesArgument = argument.substring(OPTION_ZONES.length());
+            } else if (argument.startsWith(OPTION_TEMPLATE)) {
+                templateArgument = argument.substring(OPTION_TEMPLATE.length());
+            } else if (argument.startsWith(OPTION_FORMAT)) {
+                formatArgument = argument.substring(OPTION_FORMAT.length());
+            } else {
+                inputArgument = argument;
+            }
+        }
+        try (final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext
+                (EngineConfiguration.class)) {
+            final List<ZoneId> zoneIds = zonesArgument == null ? context.getBean(ApplicationConfiguration.class)
+                    .getDefaultSelectedZoneIds() : Arrays.stream(zonesArgument.split(ZONES_DELIMITER)).map
+                    (ZoneId::of).collect(toList());
+            final ConversionEngine conversionEngine = context.getBean(ConversionEngine.class);
+            final BatchConverter batchConverter = new BatchConverter(conversionEngine, zoneIds, templateArgument ==
+                    null ? null : new File(templateArgument), conversionEngine.getOutputFormats().get
+                    (formatArgument));
+            try (final BufferedReader input = openInput(inputArgument);
+                 final Writer output = new BufferedWriter(new OutputStreamWriter(System.out, UTF_8))) {
+                final long startNanos = System.nanoTime();
+                final long convertedLines = batchConverter.convertAll(input, output);
+                output.flush();
+                reportThroughput(convertedLines, System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    private static BufferedReader openInput(final String inputArgument) throws IOException {
+        return STANDARD_INPUT.equals(inputArgument) ? new BufferedReader(new InputStreamReader(System.in, UTF_8)) :
+                Files.newBufferedReader(Paths.get(inputArgument), UTF_8);
+    }
+
+    private static void reportThroughput(final long convertedLines, final long elapsedNanos) {
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        System.err.printf("Converted %d lines in %d ms (%d lines/s)%n", convertedLines, elapsedMillis,
+                elapsedNanos == 0 ? 0 : convertedLines * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+    }
+
+    static ZonedDateTime parseDateTime(final String line) {
+        final String trimmedLine = line.trim();
+        final char firstCharacter = trimmedLine.charAt(0);
+        if (Character.isDigit(firstCharacter) && trimmedLine.indexOf('-') < 0 || firstCharacter == '-') {
+            return Instant.ofEpochSecond(Long.parseLong(trimmedLine)).atZone(ZoneOffset.UTC);
+        }
+        return ZonedDateTime.parse(trimmedLine);
+    }
+
+    /**
+     * @return the zones ordered by their offsets at the given date-time, as the application orders them
+     */
+    private List<ZoneId> getSortedZoneIds(final ZonedDateTime dateTime) {
+        final Instant referenceInstant = dateTime.toInstant();
+        if (sortedZoneIds == null || !ZoneIdSortKeys.isSorted(sortedZoneIds, referenceInstant)) {
+            sortedZoneIds = ZoneSelection.of(ZoneIdSortKeys.at(referenceInstant).sortedCopy(zoneIds));
+        }
+        return sortedZoneIds;
+    }
+
+    private void writeConvertedDateTimes(final ZonedDateTime dateTime, final Writer output) throws IOException {
+        lineBuffer.setLength(0);
+        conversionEngine.appendConvertedDateTimes(dateTime, getSortedZoneIds(dateTime), outputFormat, lineBuffer);
+        if (outputBuffer.length < lineBuffer.length()) {
+            outputBuffer = new char[lineBuffer.capacity()];
+        }
+        lineBuffer.getChars(0, lineBuffer.length(), outputBuffer, 0);
+        output.write(outputBuffer, 0, lineBuffer.length());
+    }
+
+    /**
+     * Converts every non-blank line of the input and writes the result to the output. Lines which cannot be
+     * parsed are reported on standard error and skipped.
+     *
+     * @return the number of successfully converted lines
+     */
+    public long convertAll(final BufferedReader input, final Writer output) throws IOException {
+        long convertedLines = 0;
+        long lineNumber = 0;
+        String line;
+        while ((line = input.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            final ZonedDateTime dateTime;
+            try {
+                dateTime = parseDateTime(line);
+            } catch (DateTimeException | NumberFormatException e) {
+                System.err.printf("Skipping line %d: %s%n", lineNumber, e.getMessage());
+                continue;
+            }
+            if (templateFile == null) {
+                writeConvertedDateTimes(dateTime, output);
+            } else {
+                conversionEngine.convert(dateTime, getSortedZoneIds(dateTime), templateFile, outputFormat, output);
+            }
+            convertedLines++;
+        }
+        return convertedLines;
+    }
+}
@@ -0,0 +1,304 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.cli;
+
+import com.google.common.base.Splitter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import de.rkl.tools.tzconv.configuration.ApplicationConfiguration;
+import de.rkl.tools.tzconv.engine.ConversionEngine;
+import de.rkl.tools.tzconv.engine.EngineConfiguration;
+import de.rkl.tools.tzconv.engine.OutputFormat;
+import de.rkl.tools.tzconv.engine.ZoneIdSortKeys;
+import de.rkl.tools.tzconv.engine.ZoneTable;
+import de.rkl.tools.tzconv.metrics.MetricsRegistry;
+import de.rkl.tools.tzconv.metrics.Operation;
+import de.rkl.tools.tzconv.metrics.OperationTimer;
+import org.apache.velocity.exception.VelocityException;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Headless entry point serving conversions over HTTP on the loopback interface, so that scripts can fetch them instead
+ * of copying from the clipboard. {@code GET /convert?instant=...[&zones=...][&template=...][&format=...]} answers
+ * with the same text the batch converter writes for a single line: {@code instant} is an ISO-8601 date-time or epoch
+ * seconds, {@code zones} a comma separated list of tz database zones defaulting to the configured zones,
+ * {@code template} the name of a template in the directory given on the command line and {@code format} the name of a
+ * configured output format.
+ * <p>
+ * Usage: {@code ConversionServer [--port=8080] [--templates=directory] [--backlog=1024]}
+ * <p>
+ * Requests are handled on virtual threads where the JVM provides them and on a cached thread pool otherwise. All
+ * state they share - formatters, parsed templates and offset tables - is immutable or held in concurrent caches.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class ConversionServer implements HttpHandler {
+    public static final String CONTEXT_PATH = "/convert";
+    public static final String PARAMETER_INSTANT = "instant";
+    public static final String PARAMETER_ZONES = "zones";
+    public static final String PARAMETER_TEMPLATE = "template";
+    public static final String PARAMETER_FORMAT = "format";
+
+    private static final String OPTION_PORT = "--port=";
+    private static final String OPTION_TEMPLATES = "--templates=";
+    private static final String OPTION_BACKLOG = "--backlog=";
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_BACKLOG = 1024;
+    private static final int STOP_DELAY_SECONDS = 1;
+    private static final String PROPERTY_NO_DELAY = "sun.net.httpserver.nodelay";
+    private static final String PROPERTY_MAX_IDLE_CONNECTIONS = "sun.net.httpserver.maxIdleConnections";
+    private static final String CONTENT_TYPE = "text/plain; charset=UTF-8";
+    private static final Splitter ZONES_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    private final ConversionEngine conversionEngine;
+    private final Path templateDirectory;
+    private final MetricsRegistry metricsRegistry;
+    /**
+     * The default zones ordered by their offsets at a previously requested instant, replaced once the order no longer
+     * holds for a request.
+     */
+    private volatile List<ZoneId> defaultZoneIds;
+
+    public ConversionServer(final ConversionEngine conversionEngine, final List<ZoneId> defaultZoneIds,
+                            final Path templateDirectory, final MetricsRegistry metricsRegistry) {
+        this.conversionEngine = conversionEngine;
+        this.metricsRegistry = metricsRegistry;
+        this.defaultZoneIds = defaultZoneIds;
+        this.templateDirectory = templateDirectory == null ? null : templateDirectory.toAbsolutePath().normalize();
+    }
+
+    public static ConversionServer create(final AnnotationConfigApplicationContext context,
+                                          final Path templateDirectory) {
+        return new ConversionServer(context.getBean(ConversionEngine.class), context.getBean
+                (ApplicationConfiguration.class).getDefaultSelectedZoneIds(), templateDirectory, context.getBean
+                (MetricsRegistry.class));
+    }
+
+    public static void main(final String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int backlog = DEFAULT_BACKLOG;
+        Path templateDirectory = null;
+        for (final String argument : args) {
+            if (argument.startsWith(OPTION_PORT)) {
+                port = Integer.parseInt(argument.substring(OPTION_PORT.length()));
+            } else if (argument.startsWith(OPTION_TEMPLATES)) {
+                templateDirectory = Paths.get(argument.substring(OPTION_TEMPLATES.length()));
+            } else if (argument.startsWith(OPTION_BACKLOG)) {
+                backlog = Integer.parseInt(argument.substring(OPTION_BACKLOG.length()));
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + argument);
+            }
+        }
+        final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext
+                (EngineConfiguration.class);
+        final MetricsRegistry metricsRegistry = context.getBean(MetricsRegistry.class);
+        metricsRegistry.startReporting();
+        final HttpServer httpServer = create(context, templateDirectory).start(new InetSocketAddress(InetAddress
+                .getLoopbackAddress(), port), backlog);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            httpServer.stop(STOP_DELAY_SECONDS);
+            metricsRegistry.stopReporting();
+            context.close();
+        }));
+        System.err.printf("Serving conversions on http://%s:%d%s%n", httpServer.getAddress().getHostString(),
+                httpServer.getAddress().getPort(), CONTEXT_PATH);
+    }
+
+    /**
+     * Binds and starts an {@link HttpServer} handling {@link #CONTEXT_PATH} with this converter. Stopping the returned
+     * server leaves the request executor to be shut down by the caller through {@link HttpServer#getExecutor()}.
+     */
+    public HttpServer start(final InetSocketAddress address, final int backlog) throws IOException {
+        // Read once when the first server is created. Without TCP_NODELAY the separately written headers and body
+        // run into delayed ACKs, adding about 40 ms to every keep-alive request.
+        setDefaultProperty(PROPERTY_NO_DELAY, Boolean.TRUE.toString());
+        setDefaultProperty(PROPERTY_MAX_IDLE_CONNECTIONS, String.valueOf(backlog));
+        final HttpServer httpServer = HttpServer.create(address, backlog);
+        httpServer.createContext(CONTEXT_PATH, this);
+        httpServer.setExecutor(newRequestExecutor());
+        httpServer.start();
+        return httpServer;
+    }
+
+    /**
+     * Creates a virtual thread per task executor when running on a JVM which has them. The lookup is reflective so the
+     * application still runs on older JVMs, which get a cached pool of daemon threads instead.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                final Thread requestThread = new Thread(runnable, "conversion-request");
+                requestThread.setDaemon(true);
+                return requestThread;
+            });
+        }
+    }
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+        final OperationTimer requestTimer = OperationTimer.start(Operation.HTTP_REQUEST);
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, HttpURLConnection.HTTP_BAD_METHOD, "Only GET is supported");
+                return;
+            }
+            final ZonedDateTime dateTime;
+            final List<ZoneId> zoneIds;
+            final File templateFile;
+            final OutputFormat outputFormat;
+            try {
+                final Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+                final String instantParameter = parameters.get(PARAMETER_INSTANT);
+                if (instantParameter == null || instantParameter.trim().isEmpty()) {
+                    throw new IllegalArgumentException("Missing parameter " + PARAMETER_INSTANT);
+                }
+                dateTime = BatchConverter.parseDateTime(instantParameter);
+                zoneIds = parseZoneIds(parameters.get(PARAMETER_ZONES), dateTime.toInstant());
+                templateFile = resolveTemplate(parameters.get(PARAMETER_TEMPLATE));
+                outputFormat = conversionEngine.getOutputFormats().get(parameters.get(PARAMETER_FORMAT));
+            } catch (DateTimeException | IllegalArgumentException e) {
+                sendResponse(exchange, HttpURLConnection.HTTP_BAD_REQUEST, String.valueOf(e.getMessage()));
+                return;
+            }
+            final StringWriter output = new StringWriter();
+            try {
+                conversionEngine.convert(dateTime, zoneIds, templateFile, outputFormat, output);
+            } catch (FileNotFoundException | NoSuchFileException e) {
+                sendResponse(exchange, HttpURLConnection.HTTP_NOT_FOUND, "Template not found: " + e.getMessage());
+                return;
+            } catch (IOException | VelocityException e) {
+                sendResponse(exchange, HttpURLConnection.HTTP_INTERNAL_ERROR, "Template could not be rendered: " + e);
+                return;
+            }
+            sendResponse(exchange, HttpURLConnection.HTTP_OK, output.toString());
+        } finally {
+            exchange.close();
+            requestTimer.stop(metricsRegistry, exchange.getRequestURI().getRawQuery());
+        }
+    }
+
+    /**
+     * @return the requested or default zones, ordered by their offsets at the requested instant as the application
+     * orders them for its main date-time
+     */
+    private List<ZoneId> parseZoneIds(final String zonesParameter, final Instant referenceInstant) {
+        if (zonesParameter == null) {
+            final List<ZoneId> currentDefaultZoneIds = defaultZoneIds;
+            if (ZoneIdSortKeys.isSorted(currentDefaultZoneIds, referenceInstant)) {
+                return currentDefaultZoneIds;
+            }
+            final List<ZoneId> sortedDefaultZoneIds = ZoneIdSortKeys.at(referenceInstant).sortedCopy
+                    (currentDefaultZoneIds);
+            defaultZoneIds = sortedDefaultZoneIds;
+            return sortedDefaultZoneIds;
+        }
+        final List<ZoneId> zoneIds = ZONES_SPLITTER.splitToList(zonesParameter).stream().map
+                (ConversionServer::parseRegionId).collect(toList());
+        return ZoneIdSortKeys.isSorted(zoneIds, referenceInstant) ? zoneIds : ZoneIdSortKeys.at(referenceInstant)
+                .sortedCopy(zoneIds);
+    }
+
+    /**
+     * Only accepts the zones of the tz database, so that clients cannot make the zone and offset tables grow without
+     * bound by requesting ever new ad-hoc zones such as {@code UTC+01:00:07}.
+     */
+    private static ZoneId parseRegionId(final String zoneId) {
+        final ZoneTable zoneTable = ZoneTable.getInstance();
+        final int ordinal = zoneTable.getOrdinal(zoneId);
+        if (ordinal < 0 || !zoneTable.isRegion(ordinal)) {
+            throw new IllegalArgumentException("Unknown zone " + zoneId);
+        }
+        return zoneTable.getZoneId(ordinal);
+    }
+
+    /**
+     * Resolves a template name against the template directory, refusing anything which would leave it.
+     */
+    private File resolveTemplate(final String templateParameter) {
+        if (templateParameter == null) {
+            return null;
+        }
+        if (templateDirectory == null) {
+            throw new IllegalArgumentException("No template directory configured");
+        }
+        final Path templatePath = templateDirectory.resolve(templateParameter).normalize();
+        if (!templatePath.getParent().equals(templateDirectory)) {
+            throw new IllegalArgumentException("Invalid template name " + templateParameter);
+        }
+        return templatePath.toFile();
+    }
+
+    private static void setDefaultProperty(final String key, final String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static Map<String, String> parseQuery(final String rawQuery) throws UnsupportedEncodingException {
+        final Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (final String parameter : rawQuery.split("&")) {
+            final int separatorIndex = parameter.indexOf('=');
+            if (separatorIndex > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separatorIndex), UTF_8.name()), URLDecoder
+                        .decode(parameter.substring(separatorIndex + 1), UTF_8.name()));
+            }
+        }
+        return parameters;
+    }
+
+    private static void sendResponse(final HttpExchange exchange, final int status, final String body) throws
+            IOException {
+        final byte[] bodyBytes = body.getBytes(UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bodyBytes.length);
+        try (final OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bodyBytes);
+        }
+    }
+}
@@ -0,0 +1,372 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.cli;
+
+import de.rkl.tools.tzconv.configuration.ApplicationConfiguration;
+import de.rkl.tools.tzconv.configuration.PreferencesProvider;
+import de.rkl.tools.tzconv.engine.ConversionEngine;
+import de.rkl.tools.tzconv.engine.EngineConfiguration;
+import de.rkl.tools.tzconv.engine.OutputFormat;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.stream.Collectors.toList;
+import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
+
+/**
+ * Headless entry point appending the converted times to every line of a log file which starts with a timestamp.
+ * The input is memory-mapped in line-aligned chunks which are rewritten in parallel on the common
+ * {@link ForkJoinPool}; the rewritten chunks are written to the output file in input order, with only a bounded number
+ * of them held in memory at any time. Lines without a timestamp, e.g. stack traces, are copied unchanged.
+ * <p>
+ * Usage: {@code LogTimestampRewriter [--zones=Europe/London,Asia/Tokyo] [--format=iso]
+ * [--pattern=yyyy-MM-dd HH:mm:ss] [--zone=UTC] [--column=0] [--chunkSize=8388608] inputFile outputFile}
+ * <p>
+ * {@code pattern} is a {@link DateTimeFormatter} pattern for the timestamps, which start at the given
+ * {@code column}; timestamps without an offset are taken to be in {@code zone}. Without {@code --zones} the zones
+ * selected in the application are used, falling back to the configured default zones.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class LogTimestampRewriter {
+    private static final String OPTION_ZONES = "--zones=";
+    private static final String OPTION_FORMAT = "--format=";
+    private static final String OPTION_PATTERN = "--pattern=";
+    private static final String OPTION_ZONE = "--zone=";
+    private static final String OPTION_COLUMN = "--column=";
+    private static final String OPTION_CHUNK_SIZE = "--chunkSize=";
+    private static final String ZONES_DELIMITER = ",";
+    private static final String DEFAULT_TIMESTAMP_PATTERN = "yyyy-MM-dd HH:mm:ss";
+    private static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+    /**
+     * Only this many characters from the timestamp column on are offered to the timestamp parser.
+     */
+    private static final int MAX_TIMESTAMP_LENGTH = 64;
+    private static final int BOUNDARY_SCAN_SIZE = 4096;
+    private static final String ZONE_SEPARATOR = " | ";
+
+    private final ConversionEngine conversionEngine;
+    private final List<ZoneId> zoneIds;
+    private final OutputFormat outputFormat;
+    private final DateTimeFormatter timestampFormatter;
+    private final int timestampColumn;
+    private final int chunkSize;
+
+    public LogTimestampRewriter(final ConversionEngine conversionEngine, final List<ZoneId> zoneIds,
+                                final OutputFormat outputFormat, final DateTimeFormatter timestampFormatter,
+                                final int timestampColumn, final int chunkSize) {
+        this.conversionEngine = conversionEngine;
+        this.zoneIds = zoneIds;
+        this.outputFormat = outputFormat;
+        this.timestampFormatter = timestampFormatter;
+        this.timestampColumn = timestampColumn;
+        this.chunkSize = chunkSize;
+    }
+
+    public static void main(final String[] args) throws IOException {
+        String zonesArgument = null;
+        String formatArgument = null;
+        String timestampPattern = DEFAULT_TIMESTAMP_PATTERN;
+        ZoneId timestampZoneId = ZoneOffset.UTC;
+        int timestampColumn = 0;
+        int chunkSize = DEFAULT_CHUNK_SIZE;
+        final List<Path> files = new ArrayList<>();
+        for (final String argument : args) {
+            if (argument.startsWith(OPTION_ZONES)) {
+                zonesArgument = argument.substring(OPTION_ZONES.length());
+            } else if (argument.startsWith(OPTION_FORMAT)) {
+                formatArgument = argument.substring(OPTION_FORMAT.length());
+            } else if (argument.startsWith(OPTION_PATTERN)) {
+                timestampPattern = argument.substring(OPTION_PATTERN.length());
+            } else if (argument.startsWith(OPTION_ZONE)) {
+                timestampZoneId = ZoneId.of(argument.substring(OPTION_ZONE.length()));
+            } else if (argument.startsWith(OPTION_COLUMN)) {
+                timestampColumn = Integer.parseInt(argument.substring(OPTION_COLUMN.length()));
+            } else if (argument.startsWith(OPTION_CHUNK_SIZE)) {
+                chunkSize = Integer.parseInt(argument.substring(OPTION_CHUNK_SIZE.length()));
+            } else {
+                files.add(Paths.get(argument));
+            }
+        }
+        if (files.size() != 2) {
+            throw new IllegalArgumentException("Expected an input and an output file, got " + files);
+        }
+        try (final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext
+                (EngineConfiguration.class, PreferencesProvider.class)) {
+            final List<ZoneId> zoneIds = zonesArgument == null ? getSelectedZoneIds(context) : Arrays.stream
+                    (zonesArgument.split(ZONES_DELIMITER)).map(ZoneId::of).collect(toList());
+            final ConversionEngine conversionEngine = context.getBean(ConversionEngine.class);
+            final LogTimestampRewriter logTimestampRewriter = new LogTimestampRewriter(conversionEngine, zoneIds,
+                    conversionEngine.getOutputFormats().get(formatArgument), DateTimeFormatter.ofPattern
+                    (timestampPattern).withZone(timestampZoneId), timestampColumn, chunkSize);
+            final long startNanos = System.nanoTime();
+            final long convertedLines = logTimestampRewriter.rewrite(files.get(0), files.get(1));
+            reportThroughput(convertedLines, files.get(0).toFile().length(), System.nanoTime() - startNanos);
+        }
+    }
+
+    private static List<ZoneId> getSelectedZoneIds(final AnnotationConfigApplicationContext context) {
+        final List<ZoneId> preferredZoneIds = context.getBean(PreferencesProvider.class)
+                .getPreferredSelectedZoneIds();
+        return isNotEmpty(preferredZoneIds) ? preferredZoneIds : context.getBean(ApplicationConfiguration.class)
+                .getDefaultSelectedZoneIds();
+    }
+
+    private static void reportThroughput(final long convertedLines, final long inputBytes, final long elapsedNanos) {
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        System.err.printf("Converted %d lines of %d bytes in %d ms (%d MB/s)%n", convertedLines, inputBytes,
+                elapsedMillis, elapsedNanos == 0 ? 0 : inputBytes * TimeUnit.SECONDS.toNanos(1) / elapsedNanos /
+                (1 << 20));
+    }
+
+    /**
+     * Rewrites the input file into the output file, which is created or replaced.
+     *
+     * @return the number of lines the converted times have been appended to
+     */
+    public long rewrite(final Path inputFile, final Path outputFile) throws IOException {
+        try (final FileChannel input = FileChannel.open(inputFile, READ);
+             final FileChannel output = FileChannel.open(outputFile, WRITE, CREATE, TRUNCATE_EXISTING)) {
+            final long inputSize = input.size();
+            final ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
+            // Enough to keep every worker busy while the oldest chunk is written
+            final int maxChunksInFlight = 2 * forkJoinPool.getParallelism() + 1;
+            final Deque<ChunkRewrite> chunksInFlight = new ArrayDeque<>(maxChunksInFlight);
+            long chunkStart = 0;
+            long convertedLines = 0;
+            while (chunkStart < inputSize || !chunksInFlight.isEmpty()) {
+                while (chunkStart < inputSize && chunksInFlight.size() < maxChunksInFlight) {
+                    final long chunkEnd = findChunkEnd(input, chunkStart, inputSize);
+                    final ChunkRewrite chunkRewrite = new ChunkRewrite(input.map(FileChannel.MapMode.READ_ONLY,
+                            chunkStart, chunkEnd - chunkStart));
+                    forkJoinPool.execute(chunkRewrite);
+                    chunksInFlight.add(chunkRewrite);
+                    chunkStart = chunkEnd;
+                }
+                final ChunkRewrite oldestChunkRewrite = chunksInFlight.remove();
+                final ByteBuffer rewrittenChunk = oldestChunkRewrite.join();
+                while (rewrittenChunk.hasRemaining()) {
+                    output.write(rewrittenChunk);
+                }
+                convertedLines += oldestChunkRewrite.convertedLines;
+            }
+            return convertedLines;
+        }
+    }
+
+    /**
+     * @return the position after the first line break at least {@link #chunkSize} bytes after the chunk's start, or
+     * the end of the input
+     */
+    private long findChunkEnd(final FileChannel input, final long chunkStart, final long inputSize)
+            throws IOException {
+        long position = chunkStart + chunkSize;
+        final ByteBuffer scanBuffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        while (position < inputSize) {
+            scanBuffer.clear();
+            final int readBytes = input.read(scanBuffer, position);
+            for (int index = 0; index < readBytes; index++) {
+                if (scanBuffer.get(index) == '\n') {
+                    return checkChunkLength(chunkStart, position + index + 1);
+                }
+            }
+            position += Math.max(readBytes, 0);
+        }
+        return checkChunkLength(chunkStart, inputSize);
+    }
+
+    private static long checkChunkLength(final long chunkStart, final long chunkEnd) throws IOException {
+        if (chunkEnd - chunkStart > Integer.MAX_VALUE) {
+            throw new IOException("Line starting after position " + chunkStart + " is too long to be mapped");
+        }
+        return chunkEnd;
+    }
+
+    /**
+     * Rewrites one chunk into a heap buffer. Log lines usually share their timestamp with the previous line, so the
+     * converted times are only formatted again once the timestamp's text changes.
+     */
+    private final class ChunkRewrite extends RecursiveTask<ByteBuffer> {
+        private static final long serialVersionUID = 1L;
+
+        private final MappedByteBuffer chunk;
+        private final ByteBuffer copySource;
+        private final char[] timestampCharacters;
+        private final CharBuffer timestampText;
+        private final ParsePosition parsePosition;
+        private final StringBuilder convertedDateTimes;
+        private final StringBuilder suffixBuilder;
+        /**
+         * Text of the last parsed timestamp followed by the byte after it, or -1 at the end of its line.
+         */
+        private final int[] cachedTimestamp;
+        private int cachedTimestampLength;
+        private byte[] cachedSuffix;
+        private byte[] rewrittenBytes;
+        private int rewrittenLength;
+        private long convertedLines;
+
+        private ChunkRewrite(final MappedByteBuffer chunk) {
+            this.chunk = chunk;
+            copySource = chunk.duplicate();
+            timestampCharacters = new char[MAX_TIMESTAMP_LENGTH];
+            timestampText = CharBuffer.wrap(timestampCharacters);
+            parsePosition = new ParsePosition(0);
+            convertedDateTimes = new StringBuilder();
+            suffixBuilder = new StringBuilder();
+            cachedTimestamp = new int[MAX_TIMESTAMP_LENGTH + 1];
+        }
+
+        @Override
+        protected ByteBuffer compute() {
+            final int chunkLength = chunk.limit();
+            rewrittenBytes = new byte[chunkLength + chunkLength / 2];
+            int lineStart = 0;
+            while (lineStart < chunkLength) {
+                int lineEnd = lineStart;
+                while (lineEnd < chunkLength && chunk.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                final int contentEnd = lineEnd > lineStart && chunk.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                copyFromChunk(lineStart, contentEnd);
+                final byte[] suffix = findConvertedDateTimes(lineStart + timestampColumn, contentEnd);
+                if (suffix != null) {
+                    append(suffix);
+                    convertedLines++;
+                }
+                final int nextLineStart = Math.min(lineEnd + 1, chunkLength);
+                copyFromChunk(contentEnd, nextLineStart);
+                lineStart = nextLineStart;
+            }
+            return ByteBuffer.wrap(rewrittenBytes, 0, rewrittenLength);
+        }
+
+        /**
+         * @return the encoded converted times for the timestamp at the given position, or {@code null} if there is
+         * no timestamp
+         */
+        private byte[] findConvertedDateTimes(final int timestampStart, final int contentEnd) {
+            if (timestampStart >= contentEnd) {
+                return null;
+            }
+            if (cachedSuffix != null && isCachedTimestamp(timestampStart, contentEnd)) {
+                return cachedSuffix;
+            }
+            final int candidateLength = Math.min(contentEnd - timestampStart, MAX_TIMESTAMP_LENGTH);
+            for (int index = 0; index < candidateLength; index++) {
+                timestampCharacters[index] = (char) (chunk.get(timestampStart + index) & 0xff);
+            }
+            timestampText.clear();
+            timestampText.limit(candidateLength);
+            parsePosition.setIndex(0);
+            parsePosition.setErrorIndex(-1);
+            // Unlike parse, parseUnresolved reports failures without throwing, which keeps lines without timestamps
+            // cheap
+            if (timestampFormatter.parseUnresolved(timestampText, parsePosition) == null) {
+                return null;
+            }
+            final int timestampLength = parsePosition.getIndex();
+            final ZonedDateTime dateTime;
+            try {
+                dateTime = ZonedDateTime.from(timestampFormatter.parse(timestampText.subSequence(0,
+                        timestampLength)));
+            } catch (DateTimeException e) {
+                return null;
+            }
+            cachedSuffix = formatConvertedDateTimes(dateTime);
+            cachedTimestampLength = timestampLength;
+            for (int index = 0; index <= timestampLength; index++) {
+                cachedTimestamp[index] = timestampStart + index < contentEnd ? chunk.get(timestampStart + index) :
+                        -1;
+            }
+            return cachedSuffix;
+        }
+
+        private boolean isCachedTimestamp(final int timestampStart, final int contentEnd) {
+            for (int index = 0; index <= cachedTimestampLength; index++) {
+                final int currentByte = timestampStart + index < contentEnd ? chunk.get(timestampStart + index) : -1;
+                if (currentByte != cachedTimestamp[index]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private byte[] formatConvertedDateTimes(final ZonedDateTime dateTime) {
+            convertedDateTimes.setLength(0);
+            conversionEngine.appendConvertedDateTimes(dateTime, zoneIds, outputFormat, convertedDateTimes);
+            // One line per zone; they are joined onto the log line instead
+            suffixBuilder.setLength(0);
+            int convertedLineStart = 0;
+            for (int index = 0; index < convertedDateTimes.length(); index++) {
+                if (convertedDateTimes.charAt(index) == '\n') {
+                    suffixBuilder.append(ZONE_SEPARATOR).append(convertedDateTimes, convertedLineStart, index);
+                    convertedLineStart = index + 1;
+                }
+            }
+            return suffixBuilder.toString().getBytes(UTF_8);
+        }
+
+        private void copyFromChunk(final int start, final int end) {
+            final int length = end - start;
+            ensureCapacity(length);
+            copySource.limit(end);
+            copySource.position(start);
+            copySource.get(rewrittenBytes, rewrittenLength, length);
+            rewrittenLength += length;
+        }
+
+        private void append(final byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, rewrittenBytes, rewrittenLength, bytes.length);
+            rewrittenLength += bytes.length;
+        }
+
+        private void ensureCapacity(final int additionalLength) {
+            if (rewrittenLength + additionalLength > rewrittenBytes.length) {
+                rewrittenBytes = Arrays.copyOf(rewrittenBytes, Math.max(rewrittenBytes.length * 2, rewrittenLength +
+                        additionalLength));
+            }
+        }
+    }
+}
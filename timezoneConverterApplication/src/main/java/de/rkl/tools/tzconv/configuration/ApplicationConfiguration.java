@@ -16,31 +16,121 @@
  */
 package de.rkl.tools.tzconv.configuration;
 
+import com.google.common.collect.ImmutableList;
+import de.rkl.tools.tzconv.engine.OutputFormat;
+import de.rkl.tools.tzconv.engine.OutputFormats;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 import org.apache.commons.configuration.XMLConfiguration;
 import org.springframework.stereotype.Component;
 
 import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
-import static java.util.stream.Collectors.toList;
+import static java.time.temporal.ChronoField.INSTANT_SECONDS;
 
 /**
+ * Immutable snapshot of {@code configuration.xml}. The file is read once; zones are resolved and output formats are
+ * compiled into formatters at that point, so the getters only hand out prepared objects.
+ *
  * @author Raimund Klein <raimund.klein@gmx.de>
  */
 @Component
 public class ApplicationConfiguration {
-    private HierarchicalConfiguration configuration;
+    private static final int DEFAULT_OFFSET_TABLE_FIRST_YEAR = 1970;
+    private static final int DEFAULT_OFFSET_TABLE_LAST_YEAR = 2100;
+    private static final String DEFAULT_OUTPUT_FORMAT_NAME = "default";
+    private static final String DEFAULT_DATE_PATTERN = "EEEE dd MMMM yyyy";
+    private static final String DEFAULT_DATE_TIME_PATTERN = "VV: dd-MM-yyyy kk:mm";
+    private final ImmutableList<ZoneId> defaultSelectedZoneIds;
+    private final int offsetTableFirstYear;
+    private final int offsetTableLastYear;
+    private final OutputFormats outputFormats;
 
     @SuppressWarnings("unused")
     public ApplicationConfiguration() throws ConfigurationException {
-        configuration = new XMLConfiguration("configuration.xml");
+        final XMLConfiguration configuration = new XMLConfiguration();
+        // Patterns may contain commas, which would otherwise split them into lists
+        configuration.setDelimiterParsingDisabled(true);
+        configuration.load("configuration.xml");
+        defaultSelectedZoneIds = configuration.getList("defaultSelectedZoneIds.selectedZoneId[@id]").stream().map
+                (selectedZoneId -> ZoneId.of(selectedZoneId.toString())).collect(ImmutableList.toImmutableList());
+        offsetTableFirstYear = configuration.getInt("offsetTableWindow[@firstYear]", DEFAULT_OFFSET_TABLE_FIRST_YEAR);
+        offsetTableLastYear = configuration.getInt("offsetTableWindow[@lastYear]", DEFAULT_OFFSET_TABLE_LAST_YEAR);
+        outputFormats = compileOutputFormats(configuration);
+    }
+
+    private static OutputFormats compileOutputFormats(final HierarchicalConfiguration configuration) {
+        final List<OutputFormat> outputFormatVariants = new ArrayList<>();
+        for (final HierarchicalConfiguration formatConfiguration : configuration.configurationsAt
+                ("outputFormats.outputFormat")) {
+            outputFormatVariants.add(compileOutputFormat(formatConfiguration));
+        }
+        if (outputFormatVariants.isEmpty()) {
+            outputFormatVariants.add(new OutputFormat(DEFAULT_OUTPUT_FORMAT_NAME, null, DateTimeFormatter.ofPattern
+                    (DEFAULT_DATE_PATTERN), DateTimeFormatter.ofPattern(DEFAULT_DATE_TIME_PATTERN)));
+        }
+        return new OutputFormats(outputFormatVariants, configuration.getString("outputFormats[@default]"), Locale
+                .getDefault(Locale.Category.FORMAT));
+    }
+
+    /**
+     * Compiles an {@code outputFormat} element. Its {@code type} is either {@code PATTERN}, the default, which takes
+     * the converted date-times' pattern from the {@code pattern} attribute, or one of the predefined {@link Type}s,
+     * which print the zone ID followed by the date-time in that standard format.
+     */
+    private static OutputFormat compileOutputFormat(final HierarchicalConfiguration formatConfiguration) {
+        final String name = formatConfiguration.getString("[@name]");
+        if (name == null) {
+            throw new IllegalArgumentException("Output format without name");
+        }
+        final String languageTag = formatConfiguration.getString("[@locale]");
+        final Locale locale = languageTag == null ? null : Locale.forLanguageTag(languageTag);
+        final Locale formattingLocale = locale == null ? Locale.getDefault(Locale.Category.FORMAT) : locale;
+        final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern(formatConfiguration.getString
+                ("[@datePattern]", DEFAULT_DATE_PATTERN), formattingLocale);
+        final Type type = Type.valueOf(formatConfiguration.getString("[@type]", Type.PATTERN.name()));
+        final DateTimeFormatter dateTimeFormatter = type == Type.PATTERN ? DateTimeFormatter.ofPattern
+                (formatConfiguration.getString("[@pattern]", DEFAULT_DATE_TIME_PATTERN), formattingLocale) : new
+                DateTimeFormatterBuilder().appendZoneId().appendLiteral(": ").append(type.createFormatter())
+                .toFormatter(formattingLocale);
+        return new OutputFormat(name, locale, dateFormatter, dateTimeFormatter);
     }
 
     public List<ZoneId> getDefaultSelectedZoneIds() {
-        return configuration.getList
-                ("defaultSelectedZoneIds.selectedZoneId[@id]").stream().map(selectedZoneId -> ZoneId.of(selectedZoneId
-                .toString())).collect(toList());
+        return defaultSelectedZoneIds;
+    }
+
+    public int getOffsetTableFirstYear() {
+        return offsetTableFirstYear;
+    }
+
+    public int getOffsetTableLastYear() {
+        return offsetTableLastYear;
+    }
+
+    public OutputFormats getOutputFormats() {
+        return outputFormats;
+    }
+
+    private enum Type {
+        PATTERN, ISO_8601, RFC_1123, EPOCH_SECONDS;
+
+        private DateTimeFormatter createFormatter() {
+            switch (this) {
+                case ISO_8601:
+                    return DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+                case RFC_1123:
+                    return DateTimeFormatter.RFC_1123_DATE_TIME;
+                case EPOCH_SECONDS:
+                    return new DateTimeFormatterBuilder().appendValue(INSTANT_SECONDS).toFormatter();
+                default:
+                    throw new IllegalStateException("No predefined formatter for " + this);
+            }
+        }
     }
 }
@@ -16,16 +16,12 @@
  */
 package de.rkl.tools.tzconv.configuration;
 
-import com.google.common.collect.ComparisonChain;
-import com.google.common.collect.Ordering;
-import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.RuntimeServices;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 
-import java.time.Instant;
-import java.time.ZoneId;
-import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 
 import static de.rkl.tools.tzconv.configuration.Constants.BEAN_NAME_DATE_FORMATTER;
@@ -40,30 +36,19 @@ import static de.rkl.tools.tzconv.configuration.Constants.BEAN_NAME_DATE_TIME_FO
 public class ConfiguredComponentsProvider {
 
     @Bean
-    public Ordering<ZoneId> createZoneIdOrderingByOffsetAndName() {
-        return Ordering.<ZoneId>from((left, right) -> {
-            final Instant comparisonInstant = Instant.now();
-            final ZoneOffset leftOffset = left.getRules().getStandardOffset(comparisonInstant);
-            final ZoneOffset rightOffset = right.getRules().getStandardOffset(comparisonInstant);
-            return ComparisonChain.start().compare(rightOffset, leftOffset).compare(left.toString(),
-                    right.toString()).result();
-        }).nullsFirst();
-    }
-
-    @Bean
-    public VelocityEngine createVelocityEngine() {
-        final VelocityEngine velocityEngine = new VelocityEngine();
-        velocityEngine.init();
-        return velocityEngine;
+    public RuntimeServices createVelocityRuntime() {
+        final RuntimeInstance velocityRuntime = new RuntimeInstance();
+        velocityRuntime.init();
+        return velocityRuntime;
     }
 
     @Bean(name = BEAN_NAME_DATE_FORMATTER)
-    public DateTimeFormatter configureDateFormatter() {
-        return DateTimeFormatter.ofPattern("EEEE dd MMMM yyyy");
+    public DateTimeFormatter configureDateFormatter(final ApplicationConfiguration applicationConfiguration) {
+        return applicationConfiguration.getOutputFormats().getDefault().getDateFormatter();
     }
 
     @Bean(name = BEAN_NAME_DATE_TIME_FORMATTER)
-    public DateTimeFormatter configureDateTimeFormatter() {
-        return DateTimeFormatter.ofPattern("VV: dd-MM-yyyy kk:mm");
+    public DateTimeFormatter configureDateTimeFormatter(final ApplicationConfiguration applicationConfiguration) {
+        return applicationConfiguration.getOutputFormats().getDefault().getDateTimeFormatter();
     }
 }
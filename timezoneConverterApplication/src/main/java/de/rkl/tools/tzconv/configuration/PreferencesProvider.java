@@ -16,91 +16,204 @@
  */
 package de.rkl.tools.tzconv.configuration;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.rkl.tools.tzconv.engine.ZoneSelection;
+import de.rkl.tools.tzconv.engine.ZoneTable;
+import de.rkl.tools.tzconv.metrics.MetricsRegistry;
+import de.rkl.tools.tzconv.metrics.Operation;
+import de.rkl.tools.tzconv.metrics.OperationTimer;
 import de.rkl.tools.tzconv.model.ApplicationModel;
+import de.rkl.tools.tzconv.model.ApplicationState;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.ZoneId;
 import java.util.Arrays;
-import java.util.List;
-import java.util.prefs.BackingStoreException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.prefs.Preferences;
-import java.util.stream.Collectors;
 
-import static java.util.stream.Collectors.toList;
+import static de.rkl.tools.tzconv.model.ApplicationState.Aspect.MAIN_DATE_TIME;
+import static de.rkl.tools.tzconv.model.ApplicationState.Aspect.OUTPUT_FORMAT;
+import static de.rkl.tools.tzconv.model.ApplicationState.Aspect.ZONE_RULES;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 /**
+ * Persists the reference zone, the selected zones and the template file across sessions. Once
+ * {@link #startWriteBehind()} has been called, every change of the model is written behind on a background thread:
+ * changes arriving within {@value #WRITE_DELAY_MILLIS} ms are batched into one write of the latest state, so disk
+ * never lags the model by much more than that. The store is a single small file read once at startup; preferences
+ * of older versions, kept in {@link Preferences}, are used as long as it does not exist yet.
+ *
  * @author Raimund Klein <raimund.klein@gmx.de>
  */
 @Component
 public final class PreferencesProvider {
+    /**
+     * System property overriding the location of the preferences file.
+     */
+    public static final String PROPERTY_PREFERENCES_FILE = "timezoneConverter.preferencesFile";
+    private static final String DEFAULT_PREFERENCES_DIRECTORY = ".timezoneConverter";
+    private static final String DEFAULT_PREFERENCES_FILE_NAME = "preferences.bin";
+    private static final long WRITE_DELAY_MILLIS = 250;
+    private static final long WRITER_SHUTDOWN_SECONDS = 1;
     private static final String PREFERENCES_KEY_REFERENCE_ZONE_ID = "referenceZoneId";
     private static final String PREFERENCES_SELECTED_ZONE_IDS_DELIMITER = ",";
     private static final String PREFERENCES_KEY_SELECTED_ZONE_IDS = "selectedZoneIds";
     private static final String PREFERENCES_KEY_TEMPLATE_FILE_PATH = "templateFilePath";
-    private final Preferences applicationPreferences;
+    private final Path preferencesFile;
+    private final AtomicReference<ApplicationState> pendingState;
+    private boolean snapshotRead;
+    private PreferencesStore.Snapshot snapshot;
+    private ScheduledThreadPoolExecutor preferencesWriter;
 
+    /**
+     * Absent in headless contexts, which only read the preferences.
+     */
     @SuppressWarnings("unused")
-    @Autowired
+    @Autowired(required = false)
     private ApplicationModel applicationModel;
+    @SuppressWarnings("unused")
+    @Autowired
+    private MetricsRegistry metricsRegistry;
 
     @SuppressWarnings("unused")
     public PreferencesProvider() {
-        applicationPreferences = Preferences.userNodeForPackage(PreferencesProvider.class);
+        final String preferencesFileProperty = System.getProperty(PROPERTY_PREFERENCES_FILE);
+        preferencesFile = preferencesFileProperty != null ? Paths.get(preferencesFileProperty) : Paths.get(System
+                .getProperty("user.home"), DEFAULT_PREFERENCES_DIRECTORY, DEFAULT_PREFERENCES_FILE_NAME);
+        pendingState = new AtomicReference<>();
     }
 
-
-    private void dumpReferenceZoneIdIntoPreferences() {
-        applicationPreferences.put(PREFERENCES_KEY_REFERENCE_ZONE_ID, applicationModel.mainDateTime.getValue()
-                .getZone().toString());
+    static ZoneSelection parseZoneIds(final String zoneIdsString) {
+        if (isBlank(zoneIdsString)) {
+            return null;
+        }
+        final ZoneTable zoneTable = ZoneTable.getInstance();
+        return ZoneSelection.ofOrdinals(Arrays.stream(zoneIdsString.split(PREFERENCES_SELECTED_ZONE_IDS_DELIMITER))
+                .mapToInt(zoneTable::intern).toArray());
     }
 
-    private void dumpSelectedZoneIdsIntoPreferences() {
-        applicationPreferences.put(PREFERENCES_KEY_SELECTED_ZONE_IDS, applicationModel.selectedZoneIds.stream().map
-                (ZoneId::toString).collect(Collectors.joining(PREFERENCES_SELECTED_ZONE_IDS_DELIMITER)));
+    private PreferencesStore.Snapshot getSnapshot() {
+        if (!snapshotRead) {
+            final OperationTimer loadTimer = OperationTimer.start(Operation.PREFERENCES_LOAD);
+            snapshot = PreferencesStore.read(preferencesFile);
+            loadTimer.stop(metricsRegistry);
+            snapshotRead = true;
+        }
+        return snapshot;
     }
 
-    private void dumpTemplateFilePathIntoPreferences() {
-        final File templateFile = applicationModel.templateFile.getValue();
-        applicationPreferences.put(PREFERENCES_KEY_TEMPLATE_FILE_PATH, templateFile == null ? StringUtils.EMPTY :
-                templateFile.getAbsolutePath());
+    private static Preferences getLegacyPreferences() {
+        return Preferences.userNodeForPackage(PreferencesProvider.class);
     }
 
     public ZoneId getPreferredReferenceZoneIdIfSet() {
-        final String preferredReferenceZoneId = applicationPreferences.get(PREFERENCES_KEY_REFERENCE_ZONE_ID, null);
+        final PreferencesStore.Snapshot storedSnapshot = getSnapshot();
+        if (storedSnapshot != null) {
+            return storedSnapshot.getReferenceZoneId() != null ? storedSnapshot.getReferenceZoneId() : ZoneId
+                    .systemDefault();
+        }
+        final String preferredReferenceZoneId = getLegacyPreferences().get(PREFERENCES_KEY_REFERENCE_ZONE_ID, null);
         return StringUtils.isNotBlank(preferredReferenceZoneId) ? ZoneId.of
                 (preferredReferenceZoneId) : ZoneId.systemDefault();
     }
 
-    public List<ZoneId> getPreferredSelectedZoneIds() {
-        final String preferredZoneIdsString = applicationPreferences.get(PREFERENCES_KEY_SELECTED_ZONE_IDS, null);
-        return (isBlank(preferredZoneIdsString) ? null : Arrays.stream(preferredZoneIdsString.split
-                (PREFERENCES_SELECTED_ZONE_IDS_DELIMITER)).map(ZoneId::of).collect(toList()));
+    public ZoneSelection getPreferredSelectedZoneIds() {
+        final PreferencesStore.Snapshot storedSnapshot = getSnapshot();
+        if (storedSnapshot != null) {
+            return storedSnapshot.getSelectedZoneIds().isEmpty() ? null : storedSnapshot.getSelectedZoneIds();
+        }
+        return parseZoneIds(getLegacyPreferences().get(PREFERENCES_KEY_SELECTED_ZONE_IDS, null));
     }
 
     public File getPreferredTemplateFile() {
-        final String preferredTemplateFilePath = applicationPreferences.get(PREFERENCES_KEY_TEMPLATE_FILE_PATH, null);
-        final File templateFile;
-        if (isBlank(preferredTemplateFilePath)) {
-            templateFile = null;
+        final PreferencesStore.Snapshot storedSnapshot = getSnapshot();
+        final File rawTemplateFile;
+        if (storedSnapshot != null) {
+            rawTemplateFile = storedSnapshot.getTemplateFile();
         } else {
-            final File rawTemplateFile = new File(preferredTemplateFilePath);
-            if (rawTemplateFile.exists() && rawTemplateFile.isFile() && rawTemplateFile.canRead()) {
-                templateFile = rawTemplateFile;
-            } else {
-                templateFile = null;
+            final String preferredTemplateFilePath = getLegacyPreferences().get(PREFERENCES_KEY_TEMPLATE_FILE_PATH,
+                    null);
+            rawTemplateFile = isBlank(preferredTemplateFilePath) ? null : new File(preferredTemplateFilePath);
+        }
+        return rawTemplateFile != null && rawTemplateFile.exists() && rawTemplateFile.isFile() && rawTemplateFile
+                .canRead() ? rawTemplateFile : null;
+    }
+
+    /**
+     * Starts writing every persisted change of the model behind. Must be called on the JavaFX application thread.
+     */
+    public void startWriteBehind() {
+        preferencesWriter = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder().setNameFormat
+                ("preferences-writer").setDaemon(true).build());
+        // A write still waiting for its delay is superseded by the final one of flushPreferences()
+        preferencesWriter.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        applicationModel.state.addListener((observable, oldState, newState) -> {
+            if (isPersistedChange(oldState, newState)) {
+                scheduleWrite(newState);
             }
+        });
+    }
+
+    private static boolean isPersistedChange(final ApplicationState oldState, final ApplicationState newState) {
+        final Set<ApplicationState.Aspect> changedAspects = newState.changedAspects(oldState);
+        // The output format and the tz database are chosen per session and not persisted
+        changedAspects.remove(OUTPUT_FORMAT);
+        changedAspects.remove(ZONE_RULES);
+        if (!changedAspects.equals(EnumSet.of(MAIN_DATE_TIME))) {
+            return !changedAspects.isEmpty();
+        }
+        // Of the main date and time only the zone is persisted
+        return !oldState.getMainDateTime().getZone().equals(newState.getMainDateTime().getZone());
+    }
+
+    private void scheduleWrite(final ApplicationState state) {
+        if (pendingState.getAndSet(state) == null) {
+            preferencesWriter.schedule(this::writePendingState, WRITE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
         }
-        return templateFile;
     }
 
-    public void flushPreferences() throws BackingStoreException {
-        dumpSelectedZoneIdsIntoPreferences();
-        dumpReferenceZoneIdIntoPreferences();
-        dumpTemplateFilePathIntoPreferences();
-        applicationPreferences.flush();
+    private void writePendingState() {
+        final ApplicationState state = pendingState.getAndSet(null);
+        if (state != null) {
+            writeState(state);
+        }
+    }
+
+    /**
+     * Synchronized so that a write behind outliving {@link #flushPreferences()}'s wait cannot interleave with the
+     * final write on the temporary file.
+     */
+    private synchronized void writeState(final ApplicationState state) {
+        final OperationTimer writeTimer = OperationTimer.start(Operation.PREFERENCES_WRITE);
+        try {
+            PreferencesStore.write(preferencesFile, state);
+            writeTimer.stop(metricsRegistry);
+        } catch (IOException e) {
+            metricsRegistry.increment(MetricsRegistry.COUNTER_PREFERENCES_WRITE_FAILURES);
+            System.err.printf("Preferences could not be written to %s: %s%n", preferencesFile, e);
+        }
+    }
+
+    /**
+     * Stops writing behind and writes the model's current state synchronously. A write already running is not
+     * interrupted but completes first.
+     */
+    public void flushPreferences() throws InterruptedException {
+        if (preferencesWriter != null) {
+            preferencesWriter.shutdown();
+            preferencesWriter.awaitTermination(WRITER_SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+        }
+        pendingState.set(null);
+        writeState(applicationModel.getState());
     }
 }
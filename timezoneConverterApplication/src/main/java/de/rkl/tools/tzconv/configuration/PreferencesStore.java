@@ -0,0 +1,169 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.configuration;
+
+import de.rkl.tools.tzconv.engine.ZoneSelection;
+import de.rkl.tools.tzconv.engine.ZoneTable;
+import de.rkl.tools.tzconv.model.ApplicationState;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Binary snapshot of the persisted parts of an {@link ApplicationState}: the reference zone, the template file and
+ * the selected zones. The file is read in one go and replaced atomically on every write, so a crash leaves either the
+ * previous or the new snapshot behind.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+final class PreferencesStore {
+    static final int MAGIC = 0x545a4350;
+    static final int FORMAT_VERSION = 1;
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private PreferencesStore() {
+    }
+
+    /**
+     * Zones the current tz database does not know, e.g. after switching to an older one, are skipped one by one.
+     *
+     * @return the stored snapshot, an empty one if the file exists but cannot be read, or {@code null} if there is no
+     * file
+     */
+    static Snapshot read(final Path storeFile) {
+        final byte[] storedBytes;
+        try {
+            storedBytes = Files.readAllBytes(storeFile);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.printf("Preferences could not be read from %s: %s%n", storeFile, e);
+            return Snapshot.empty();
+        }
+        try (final DataInputStream input = new DataInputStream(new ByteArrayInputStream(storedBytes))) {
+            if (input.readInt() != MAGIC || input.readByte() != FORMAT_VERSION) {
+                System.err.printf("Ignoring preferences of an unknown format in %s%n", storeFile);
+                return Snapshot.empty();
+            }
+            final ZoneId referenceZoneId = parseZoneId(input.readUTF(), storeFile);
+            final String templateFilePath = input.readUTF();
+            final ZoneTable zoneTable = ZoneTable.getInstance();
+            final int zoneCount = input.readInt();
+            // Every stored ID takes at least its two length bytes, which bounds the count of a damaged file
+            final int[] selectedOrdinals = new int[Math.max(0, Math.min(zoneCount, storedBytes.length / 2))];
+            int knownZoneCount = 0;
+            for (int zoneIndex = 0; zoneIndex < zoneCount; zoneIndex++) {
+                final String zoneId = input.readUTF();
+                final int ordinal = zoneTable.getOrdinal(zoneId);
+                if (ordinal >= 0) {
+                    selectedOrdinals[knownZoneCount++] = ordinal;
+                } else if (parseZoneId(zoneId, storeFile) != null) {
+                    selectedOrdinals[knownZoneCount++] = zoneTable.intern(zoneId);
+                }
+            }
+            return new Snapshot(referenceZoneId, templateFilePath.isEmpty() ? null : new File(templateFilePath),
+                    ZoneSelection.ofOrdinals(Arrays.copyOf(selectedOrdinals, knownZoneCount)));
+        } catch (IOException e) {
+            System.err.printf("Ignoring unreadable preferences in %s: %s%n", storeFile, e);
+            return Snapshot.empty();
+        }
+    }
+
+    /**
+     * @return the zone, or {@code null} if the ID is empty or unknown
+     */
+    private static ZoneId parseZoneId(final String zoneId, final Path storeFile) {
+        if (zoneId.isEmpty()) {
+            return null;
+        }
+        try {
+            return ZoneId.of(zoneId);
+        } catch (DateTimeException e) {
+            System.err.printf("Ignoring unknown zone %s in %s: %s%n", zoneId, storeFile, e.getMessage());
+            return null;
+        }
+    }
+
+    static void write(final Path storeFile, final ApplicationState state) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(MAGIC);
+            output.writeByte(FORMAT_VERSION);
+            output.writeUTF(state.getMainDateTime().getZone().getId());
+            final File templateFile = state.getTemplateFile();
+            output.writeUTF(templateFile == null ? "" : templateFile.getAbsolutePath());
+            final ZoneSelection selectedZoneIds = state.getSelectedZoneIds();
+            final ZoneTable zoneTable = ZoneTable.getInstance();
+            output.writeInt(selectedZoneIds.size());
+            for (int zoneIndex = 0; zoneIndex < selectedZoneIds.size(); zoneIndex++) {
+                zoneTable.writeId(selectedZoneIds.getOrdinal(zoneIndex), output);
+            }
+        }
+        final Path storeDirectory = storeFile.toAbsolutePath().getParent();
+        Files.createDirectories(storeDirectory);
+        final Path temporaryFile = storeDirectory.resolve(storeFile.getFileName() + TEMPORARY_FILE_SUFFIX);
+        Files.write(temporaryFile, bytes.toByteArray());
+        try {
+            Files.move(temporaryFile, storeFile, ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryFile, storeFile, REPLACE_EXISTING);
+        }
+    }
+
+    static final class Snapshot {
+        private final ZoneId referenceZoneId;
+        private final File templateFile;
+        private final ZoneSelection selectedZoneIds;
+
+        private Snapshot(final ZoneId referenceZoneId, final File templateFile,
+                         final ZoneSelection selectedZoneIds) {
+            this.referenceZoneId = referenceZoneId;
+            this.templateFile = templateFile;
+            this.selectedZoneIds = selectedZoneIds;
+        }
+
+        private static Snapshot empty() {
+            return new Snapshot(null, null, ZoneSelection.ofOrdinals(new int[0]));
+        }
+
+        ZoneId getReferenceZoneId() {
+            return referenceZoneId;
+        }
+
+        File getTemplateFile() {
+            return templateFile;
+        }
+
+        ZoneSelection getSelectedZoneIds() {
+            return selectedZoneIds;
+        }
+    }
+}
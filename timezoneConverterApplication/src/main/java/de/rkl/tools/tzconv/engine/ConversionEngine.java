@@ -0,0 +1,317 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import com.google.common.collect.ImmutableList;
+import de.rkl.tools.tzconv.configuration.ApplicationConfiguration;
+import de.rkl.tools.tzconv.metrics.MetricsRegistry;
+import de.rkl.tools.tzconv.metrics.Operation;
+import de.rkl.tools.tzconv.metrics.OperationTimer;
+import org.apache.velocity.Template;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Converts a reference date and time into a collection of zones and renders the result either as plain lines or
+ * through a Velocity template. Holds no UI state and can therefore be shared by the JavaFX application and the
+ * headless entry points.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@Component
+public class ConversionEngine {
+    public static final String CONTEXT_KEY_ORIGINAL_DATE = "originalDate";
+    public static final String CONTEXT_KEY_CONVERTED_TIMES = "convertedTimes";
+    public static final String CONTEXT_KEY_GRID = "grid";
+    public static final String CONTEXT_KEY_ZONES = "zones";
+    public static final String CONTEXT_KEY_REFERENCE = "reference";
+    /**
+     * Rough length of one converted line, used to size buffers up front.
+     */
+    private static final int ESTIMATED_LINE_LENGTH = 40;
+    /**
+     * Rough length of one cell of a converted grid, including its separator.
+     */
+    private static final int ESTIMATED_CELL_LENGTH = 8;
+
+    @SuppressWarnings("unused")
+    @Autowired
+    private TemplateCache templateCache;
+    @SuppressWarnings("unused")
+    @Autowired
+    private ZoneOffsetTables zoneOffsetTables;
+    @SuppressWarnings("unused")
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+    @SuppressWarnings("unused")
+    @Autowired
+    private ApplicationConfiguration applicationConfiguration;
+    private final ThreadLocal<LineBuffer> lineBuffers = ThreadLocal.withInitial(LineBuffer::new);
+    /**
+     * The zones of the latest render, whose conversions the next render of the same instant takes over.
+     */
+    private final AtomicReference<ConvertedZones> latestConvertedZones = new AtomicReference<>();
+
+    /**
+     * @return the configured output formats, any of which can be passed to the methods taking an {@link OutputFormat}
+     */
+    public OutputFormats getOutputFormats() {
+        return applicationConfiguration.getOutputFormats();
+    }
+
+    public String convert(final ZonedDateTime dateTime, final Collection<ZoneId> zoneIds, final File templateFile)
+            throws IOException {
+        return convert(dateTime, zoneIds, templateFile, getOutputFormats().getDefault());
+    }
+
+    public String convert(final ZonedDateTime dateTime, final Collection<ZoneId> zoneIds, final File templateFile,
+                          final OutputFormat outputFormat) throws IOException {
+        if (templateFile == null) {
+            return formatConvertedDateTimes(dateTime, zoneIds, outputFormat);
+        }
+        final StringWriter writer = new StringWriter();
+        convert(dateTime, zoneIds, templateFile, outputFormat, writer);
+        return writer.toString();
+    }
+
+    public void convert(final ZonedDateTime dateTime, final Collection<ZoneId> zoneIds, final File templateFile,
+                        final Writer writer) throws IOException {
+        convert(dateTime, zoneIds, templateFile, getOutputFormats().getDefault(), writer);
+    }
+
+    public void convert(final ZonedDateTime dateTime, final Collection<ZoneId> zoneIds, final File templateFile,
+                        final OutputFormat outputFormat, final Writer writer) throws IOException {
+        if (templateFile == null) {
+            appendConvertedDateTimes(dateTime, zoneIds, outputFormat, writer);
+        } else {
+            final Template template = templateCache.getTemplate(templateFile);
+            final OperationTimer mergeTimer = OperationTimer.start(Operation.TEMPLATE_MERGE);
+            template.merge(createVelocityContext(dateTime, zoneIds, outputFormat), writer);
+            mergeTimer.stop(metricsRegistry, template.getName());
+        }
+    }
+
+    public String formatOriginalDate(final ZonedDateTime dateTime) {
+        return dateTime.format(getOutputFormats().getDefault().getDateFormatter());
+    }
+
+    public String formatConvertedDateTimes(final ZonedDateTime dateTime, final Collection<ZoneId> zoneIds) {
+        return formatConvertedDateTimes(dateTime, zoneIds, getOutputFormats().getDefault());
+    }
+
+    private String formatConvertedDateTimes(final ZonedDateTime dateTime, final Collection<ZoneId> zoneIds,
+                                            final OutputFormat outputFormat) {
+        final StringBuilder convertedDateTimeBuilder = new StringBuilder(zoneIds.size() * ESTIMATED_LINE_LENGTH);
+        appendConvertedDateTimes(dateTime, zoneIds, outputFormat, convertedDateTimeBuilder);
+        return convertedDateTimeBuilder.toString();
+    }
+
+    public void appendConvertedDateTimes(final ZonedDateTime dateTime, final Collection<ZoneId> zoneIds,
+                                         final StringBuilder target) {
+        appendConvertedDateTimes(dateTime, zoneIds, getOutputFormats().getDefault(), target);
+    }
+
+    /**
+     * Appends one line per zone to the given builder. For the default pattern this does not allocate, so callers
+     * converting in bulk should reuse one builder. A {@link ZoneSelection} is converted by ordinal, without looking
+     * up its zones.
+     */
+    public void appendConvertedDateTimes(final ZonedDateTime dateTime, final Collection<ZoneId> zoneIds,
+                                         final OutputFormat outputFormat, final StringBuilder target) {
+        final ConvertedDateTimeFormatter lineFormatter = outputFormat.getLineFormatter();
+        final long epochSecond = dateTime.toEpochSecond();
+        final int nano = dateTime.getNano();
+        if (zoneIds instanceof ZoneSelection) {
+            final ZoneSelection zoneSelection = (ZoneSelection) zoneIds;
+            for (int index = 0; index < zoneSelection.size(); index++) {
+                lineFormatter.formatTo(epochSecond, nano, zoneOffsetTables.getOffsetTable(zoneSelection.getOrdinal
+                        (index)), zoneSelection.get(index), target);
+                target.append('\n');
+            }
+            return;
+        }
+        for (final ZoneId zoneId : zoneIds) {
+            lineFormatter.formatTo(epochSecond, nano, zoneOffsetTables.getOffsetTable(zoneId), zoneId, target);
+            target.append('\n');
+        }
+    }
+
+    public void appendConvertedDateTimes(final ZonedDateTime dateTime, final Collection<ZoneId> zoneIds,
+                                         final Appendable target) throws IOException {
+        appendConvertedDateTimes(dateTime, zoneIds, getOutputFormats().getDefault(), target);
+    }
+
+    /**
+     * Other targets than a {@link StringBuilder} get the lines formatted into a builder reused by the calling thread,
+     * which is copied into a {@link StringWriter}'s buffer or written to a {@link Writer} as one block of characters
+     * without building a string first.
+     */
+    public void appendConvertedDateTimes(final ZonedDateTime dateTime, final Collection<ZoneId> zoneIds,
+                                         final OutputFormat outputFormat, final Appendable target)
+            throws IOException {
+        if (target instanceof StringBuilder) {
+            appendConvertedDateTimes(dateTime, zoneIds, outputFormat, (StringBuilder) target);
+            return;
+        }
+        final LineBuffer lineBuffer = lineBuffers.get();
+        final StringBuilder lineBuilder = lineBuffer.lineBuilder;
+        lineBuilder.setLength(0);
+        appendConvertedDateTimes(dateTime, zoneIds, outputFormat, lineBuilder);
+        if (target instanceof StringWriter) {
+            ((StringWriter) target).getBuffer().append(lineBuilder);
+        } else if (target instanceof Writer) {
+            // Appending char by char to a writer is far slower than handing it all lines at once
+            ((Writer) target).write(lineBuffer.toChars(), 0, lineBuilder.length());
+        } else {
+            target.append(lineBuilder);
+        }
+    }
+
+    /**
+     * @return the offsets of the given zones at the given instant, in the zones' order
+     */
+    public ImmutableList<ZoneOffset> getOffsets(final ZonedDateTime dateTime, final Collection<ZoneId> zoneIds) {
+        final long epochSecond = dateTime.toEpochSecond();
+        final ImmutableList.Builder<ZoneOffset> offsetsBuilder = ImmutableList.builderWithExpectedSize(zoneIds
+                .size());
+        for (final ZoneId zoneId : zoneIds) {
+            offsetsBuilder.add(zoneOffsetTables.getOffsetTable(zoneId).getOffset(epochSecond));
+        }
+        return offsetsBuilder.build();
+    }
+
+    /**
+     * @return the given zones' views of the instant, each converted on first access unless the previous call
+     * converted it for the same instant and output format
+     */
+    public List<ConvertedZone> convertZones(final ZonedDateTime dateTime, final Collection<ZoneId> zoneIds,
+                                            final OutputFormat outputFormat) {
+        final ConvertedZones convertedZones = new ConvertedZones(dateTime.toEpochSecond(), dateTime.getNano(),
+                outputFormat, ZoneSelection.of(zoneIds), zoneOffsetTables, latestConvertedZones.get());
+        latestConvertedZones.set(convertedZones);
+        return convertedZones;
+    }
+
+    /**
+     * Zones which have not been interned, e.g. the offset of a parsed date-time, are converted without interning them.
+     */
+    public ConvertedZone convertZone(final ZonedDateTime dateTime, final ZoneId zoneId,
+                                     final OutputFormat outputFormat) {
+        return new ConvertedZone(zoneId, dateTime.toEpochSecond(), dateTime.getNano(), zoneOffsetTables
+                .getOffsetTable(zoneId), outputFormat);
+    }
+
+    /**
+     * Converts a series of instants into the given zones at once.
+     *
+     * @param firstDateTime the first row, which also determines the reference zone the rows are labelled in
+     * @param stepSeconds   the distance between consecutive rows
+     * @param workingHours  the working hours to flag in every zone
+     */
+    public ConversionGrid createGrid(final ZonedDateTime firstDateTime, final long stepSeconds, final int rowCount,
+                                     final Collection<ZoneId> zoneIds, final WorkingHours workingHours) {
+        final long[] epochSeconds = new long[rowCount];
+        final long firstEpochSecond = firstDateTime.toEpochSecond();
+        for (int row = 0; row < rowCount; row++) {
+            epochSeconds[row] = firstEpochSecond + row * stepSeconds;
+        }
+        return ConversionGrid.create(firstDateTime.getZone(), epochSeconds, zoneIds, workingHours, zoneOffsetTables);
+    }
+
+    /**
+     * Writes the grid as tab-separated text, see {@link ConversionGrid#appendTo(StringBuilder)}, or fills the
+     * template with it. Templates get the text as {@value #CONTEXT_KEY_CONVERTED_TIMES}, the date of the first row as
+     * {@value #CONTEXT_KEY_ORIGINAL_DATE} and the grid itself as {@value #CONTEXT_KEY_GRID}; the first two are only
+     * formatted if the template uses them.
+     */
+    public void convert(final ConversionGrid grid, final File templateFile, final OutputFormat outputFormat,
+                        final Writer writer) throws IOException {
+        if (templateFile == null) {
+            writer.append(formatGrid(grid));
+            return;
+        }
+        final Template template = templateCache.getTemplate(templateFile);
+        final OperationTimer mergeTimer = OperationTimer.start(Operation.TEMPLATE_MERGE);
+        final LazyVelocityContext velocityContext = new LazyVelocityContext();
+        velocityContext.putLazy(CONTEXT_KEY_ORIGINAL_DATE, () -> grid.getRowCount() == 0 ? "" : Instant
+                .ofEpochSecond(grid.getEpochSecond(0)).atZone(grid.getReferenceZoneId()).format(outputFormat
+                        .getDateFormatter()));
+        velocityContext.putLazy(CONTEXT_KEY_CONVERTED_TIMES, () -> formatGrid(grid).toString());
+        velocityContext.put(CONTEXT_KEY_GRID, grid);
+        template.merge(velocityContext, writer);
+        mergeTimer.stop(metricsRegistry, template.getName());
+    }
+
+    private static StringBuilder formatGrid(final ConversionGrid grid) {
+        final StringBuilder gridBuilder = new StringBuilder((grid.getZoneCount() + 1) * (grid.getRowCount() + 1) *
+                ESTIMATED_CELL_LENGTH);
+        grid.appendTo(gridBuilder);
+        return gridBuilder;
+    }
+
+    /**
+     * Besides the preformatted {@value #CONTEXT_KEY_ORIGINAL_DATE} and {@value #CONTEXT_KEY_CONVERTED_TIMES},
+     * templates get the selected zones as a list of {@link ConvertedZone}s under {@value #CONTEXT_KEY_ZONES} and the
+     * reference date-time as one under {@value #CONTEXT_KEY_REFERENCE}. Each value is only computed once the template
+     * uses it.
+     */
+    private LazyVelocityContext createVelocityContext(final ZonedDateTime dateTime, final Collection<ZoneId> zoneIds,
+                                                      final OutputFormat outputFormat) {
+        final LazyVelocityContext velocityContext = new LazyVelocityContext();
+        velocityContext.putLazy(CONTEXT_KEY_ORIGINAL_DATE, () -> dateTime.format(outputFormat.getDateFormatter()));
+        velocityContext.putLazy(CONTEXT_KEY_CONVERTED_TIMES, () -> formatConvertedDateTimes(dateTime, zoneIds,
+                outputFormat));
+        velocityContext.putLazy(CONTEXT_KEY_ZONES, () -> convertZones(dateTime, zoneIds, outputFormat));
+        velocityContext.putLazy(CONTEXT_KEY_REFERENCE, () -> convertZone(dateTime, dateTime.getZone(),
+                outputFormat));
+        return velocityContext;
+    }
+
+    /**
+     * The lines for a non-{@link StringBuilder} target and the characters copied out of them, both grown to the
+     * longest output of their thread.
+     */
+    private static final class LineBuffer {
+        private final StringBuilder lineBuilder;
+        private char[] chars;
+
+        private LineBuffer() {
+            lineBuilder = new StringBuilder();
+            chars = new char[0];
+        }
+
+        private char[] toChars() {
+            if (chars.length < lineBuilder.length()) {
+                chars = new char[lineBuilder.capacity()];
+            }
+            lineBuilder.getChars(0, lineBuilder.length(), chars, 0);
+            return chars;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import com.google.common.collect.ImmutableList;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+import static de.rkl.tools.tzconv.engine.LocalTimeArithmetic.SECONDS_PER_HOUR;
+import static de.rkl.tools.tzconv.engine.LocalTimeArithmetic.SECONDS_PER_MINUTE;
+import static de.rkl.tools.tzconv.engine.LocalTimeArithmetic.appendTwoDigits;
+import static de.rkl.tools.tzconv.engine.LocalTimeArithmetic.toDayOfWeekIndex;
+import static de.rkl.tools.tzconv.engine.LocalTimeArithmetic.toEpochDay;
+import static de.rkl.tools.tzconv.engine.LocalTimeArithmetic.toSecondOfDay;
+
+/**
+ * A series of instants converted into a set of zones at once. The offsets of all cells are looked up zone by zone
+ * into one primitive array, and each cell's local time, day shift and working hours flag is derived from its instant
+ * and offset by plain arithmetic, so neither computing nor displaying the grid creates a date-time object per cell.
+ * <p>
+ * Immutable.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class ConversionGrid {
+    private static final char COLUMN_SEPARATOR = '\t';
+    private static final char WORKING_HOURS_MARKER = '*';
+    private static final DateTimeFormatter ROW_LABEL_FORMATTER = DateTimeFormatter.ofPattern("EEE dd-MM-yyyy HH:mm");
+
+    private final ZoneId referenceZoneId;
+    private final long[] epochSeconds;
+    private final ImmutableList<ZoneId> zoneIds;
+    /**
+     * The offset of each row in the reference zone.
+     */
+    private final int[] referenceOffsetSeconds;
+    /**
+     * Column by column: {@code offsetSeconds[zoneIndex * rowCount + row]}.
+     */
+    private final int[] offsetSeconds;
+    /**
+     * Cells inside working hours, indexed like {@link #offsetSeconds}.
+     */
+    private final BitSet workingCells;
+
+    private ConversionGrid(final ZoneId referenceZoneId, final long[] epochSeconds, final ImmutableList<ZoneId> zoneIds,
+                           final int[] referenceOffsetSeconds, final int[] offsetSeconds, final BitSet workingCells) {
+        this.referenceZoneId = referenceZoneId;
+        this.epochSeconds = epochSeconds;
+        this.zoneIds = zoneIds;
+        this.referenceOffsetSeconds = referenceOffsetSeconds;
+        this.offsetSeconds = offsetSeconds;
+        this.workingCells = workingCells;
+    }
+
+    /**
+     * @param epochSeconds the rows' instants, ideally ascending
+     */
+    static ConversionGrid create(final ZoneId referenceZoneId, final long[] epochSeconds,
+                                 final Collection<ZoneId> zoneIds, final WorkingHours workingHours,
+                                 final ZoneOffsetTables zoneOffsetTables) {
+        final ImmutableList<ZoneId> gridZoneIds = ImmutableList.copyOf(zoneIds);
+        final int rowCount = epochSeconds.length;
+        final int[] referenceOffsetSeconds = new int[rowCount];
+        zoneOffsetTables.getOffsetTable(referenceZoneId).getOffsetSeconds(epochSeconds, referenceOffsetSeconds, 0);
+        final int[] offsetSeconds = new int[gridZoneIds.size() * rowCount];
+        for (int zoneIndex = 0; zoneIndex < gridZoneIds.size(); zoneIndex++) {
+            zoneOffsetTables.getOffsetTable(gridZoneIds.get(zoneIndex)).getOffsetSeconds(epochSeconds, offsetSeconds,
+                    zoneIndex * rowCount);
+        }
+        return new ConversionGrid(referenceZoneId, epochSeconds, gridZoneIds, referenceOffsetSeconds, offsetSeconds,
+                findWorkingCells(epochSeconds, offsetSeconds, workingHours));
+    }
+
+    private static BitSet findWorkingCells(final long[] epochSeconds, final int[] offsetSeconds,
+                                           final WorkingHours workingHours) {
+        final boolean[] workingDays = new boolean[7];
+        workingHours.getWorkingDays().forEach(dayOfWeek -> workingDays[dayOfWeek.getValue() - 1] = true);
+        final int startSecondOfDay = workingHours.getStartSecondOfDay();
+        final int endSecondOfDay = workingHours.getEndSecondOfDay();
+        final BitSet workingCells = new BitSet(offsetSeconds.length);
+        final int rowCount = epochSeconds.length;
+        for (int columnStart = 0; columnStart < offsetSeconds.length; columnStart += rowCount) {
+            for (int row = 0; row < rowCount; row++) {
+                final long localEpochSecond = epochSeconds[row] + offsetSeconds[columnStart + row];
+                final int secondOfDay = toSecondOfDay(localEpochSecond);
+                final int dayOfWeekIndex = toDayOfWeekIndex(toEpochDay(localEpochSecond));
+                if (workingDays[dayOfWeekIndex] && secondOfDay >= startSecondOfDay && secondOfDay < endSecondOfDay) {
+                    workingCells.set(columnStart + row);
+                }
+            }
+        }
+        return workingCells;
+    }
+
+    public ZoneId getReferenceZoneId() {
+        return referenceZoneId;
+    }
+
+    public List<ZoneId> getZoneIds() {
+        return zoneIds;
+    }
+
+    public int getRowCount() {
+        return epochSeconds.length;
+    }
+
+    public int getZoneCount() {
+        return zoneIds.size();
+    }
+
+    public long getEpochSecond(final int row) {
+        return epochSeconds[row];
+    }
+
+    public LocalDateTime getReferenceDateTime(final int row) {
+        return LocalDateTime.ofEpochSecond(epochSeconds[row], 0, ZoneOffset.ofTotalSeconds
+                (referenceOffsetSeconds[row]));
+    }
+
+    public int getOffsetSeconds(final int row, final int zoneIndex) {
+        return offsetSeconds[zoneIndex * epochSeconds.length + row];
+    }
+
+    public boolean isWorking(final int row, final int zoneIndex) {
+        return workingCells.get(zoneIndex * epochSeconds.length + row);
+    }
+
+    /**
+     * @return by how many days the cell's local date differs from the row's date in the reference zone
+     */
+    public int getDayShift(final int row, final int zoneIndex) {
+        final long epochSecond = epochSeconds[row];
+        return (int) (toEpochDay(epochSecond + getOffsetSeconds(row, zoneIndex)) - toEpochDay(epochSecond +
+                referenceOffsetSeconds[row]));
+    }
+
+    /**
+     * Appends the cell's local time as {@code HH:mm}, followed by the day shift if there is one, e.g. {@code 01:00+1}.
+     */
+    public void appendCell(final int row, final int zoneIndex, final StringBuilder target) {
+        final int secondOfDay = toSecondOfDay(epochSeconds[row] + getOffsetSeconds(row, zoneIndex));
+        appendTwoDigits(secondOfDay / SECONDS_PER_HOUR, target);
+        target.append(':');
+        appendTwoDigits(secondOfDay % SECONDS_PER_HOUR / SECONDS_PER_MINUTE, target);
+        final int dayShift = getDayShift(row, zoneIndex);
+        if (dayShift != 0) {
+            target.append(dayShift > 0 ? '+' : '-').append(Math.abs(dayShift));
+        }
+    }
+
+    /**
+     * Appends the grid as tab-separated text: a header line of zone IDs, then one line per row starting with its date
+     * and time in the reference zone. Cells inside working hours are marked with {@value #WORKING_HOURS_MARKER}.
+     */
+    public void appendTo(final StringBuilder target) {
+        target.append(referenceZoneId.getId());
+        for (final ZoneId zoneId : zoneIds) {
+            target.append(COLUMN_SEPARATOR).append(zoneId.getId());
+        }
+        target.append('\n');
+        for (int row = 0; row < epochSeconds.length; row++) {
+            ROW_LABEL_FORMATTER.formatTo(getReferenceDateTime(row), target);
+            for (int zoneIndex = 0; zoneIndex < zoneIds.size(); zoneIndex++) {
+                target.append(COLUMN_SEPARATOR);
+                appendCell(row, zoneIndex, target);
+                if (isWorking(row, zoneIndex)) {
+                    target.append(WORKING_HOURS_MARKER);
+                }
+            }
+            target.append('\n');
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalField;
+import java.time.temporal.TemporalQueries;
+import java.time.temporal.TemporalQuery;
+import java.time.temporal.ValueRange;
+
+import static java.time.temporal.ChronoField.INSTANT_SECONDS;
+import static java.time.temporal.ChronoField.OFFSET_SECONDS;
+
+/**
+ * Read-only view of a local date and time in a zone whose offset is already known. Unlike
+ * {@link java.time.ZonedDateTime} it does not consult the zone's rules to validate the offset, so it can be formatted
+ * with any {@link java.time.format.DateTimeFormatter} directly from an {@link ZoneOffsetTable} lookup.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+final class ConvertedDateTime implements TemporalAccessor {
+    private final LocalDateTime localDateTime;
+    private final ZoneOffset offset;
+    private final ZoneId zoneId;
+
+    ConvertedDateTime(final long epochSecond, final int nano, final ZoneOffset offset, final ZoneId zoneId) {
+        this.localDateTime = LocalDateTime.ofEpochSecond(epochSecond, nano, offset);
+        this.offset = offset;
+        this.zoneId = zoneId;
+    }
+
+    @Override
+    public boolean isSupported(final TemporalField field) {
+        return field == INSTANT_SECONDS || field == OFFSET_SECONDS || localDateTime.isSupported(field);
+    }
+
+    @Override
+    public ValueRange range(final TemporalField field) {
+        return field == INSTANT_SECONDS || field == OFFSET_SECONDS ? field.range() : localDateTime.range(field);
+    }
+
+    @Override
+    public int get(final TemporalField field) {
+        return field == OFFSET_SECONDS ? offset.getTotalSeconds() : field instanceof ChronoField && field !=
+                INSTANT_SECONDS ? localDateTime.get(field) : TemporalAccessor.super.get(field);
+    }
+
+    @Override
+    public long getLong(final TemporalField field) {
+        if (field == INSTANT_SECONDS) {
+            return localDateTime.toEpochSecond(offset);
+        }
+        return field == OFFSET_SECONDS ? offset.getTotalSeconds() : localDateTime.getLong(field);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <R> R query(final TemporalQuery<R> query) {
+        if (query == TemporalQueries.zoneId() || query == TemporalQueries.zone()) {
+            return (R) zoneId;
+        }
+        if (query == TemporalQueries.offset()) {
+            return (R) offset;
+        }
+        return localDateTime.query(query);
+    }
+}
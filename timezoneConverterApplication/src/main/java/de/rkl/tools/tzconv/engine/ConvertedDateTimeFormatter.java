@@ -0,0 +1,135 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DecimalStyle;
+
+import static de.rkl.tools.tzconv.engine.LocalTimeArithmetic.SECONDS_PER_HOUR;
+import static de.rkl.tools.tzconv.engine.LocalTimeArithmetic.SECONDS_PER_MINUTE;
+import static de.rkl.tools.tzconv.engine.LocalTimeArithmetic.appendTwoDigits;
+import static de.rkl.tools.tzconv.engine.LocalTimeArithmetic.toEpochDay;
+import static de.rkl.tools.tzconv.engine.LocalTimeArithmetic.toSecondOfDay;
+
+/**
+ * Formats converted date-times line by line into a caller-supplied {@link StringBuilder}. The application's default
+ * pattern {@value #DEFAULT_PATTERN} is written digit by digit straight from the epoch second and the offset, without
+ * creating any intermediate objects; any other pattern, and years the pattern would print with a sign, go through
+ * the {@link DateTimeFormatter}.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+abstract class ConvertedDateTimeFormatter {
+    static final String DEFAULT_PATTERN = "VV: dd-MM-yyyy kk:mm";
+
+    private static final String DEFAULT_PATTERN_DESCRIPTION = DateTimeFormatter.ofPattern(DEFAULT_PATTERN).toString();
+
+    final DateTimeFormatter dateTimeFormatter;
+
+    private ConvertedDateTimeFormatter(final DateTimeFormatter dateTimeFormatter) {
+        this.dateTimeFormatter = dateTimeFormatter;
+    }
+
+    /**
+     * Returns the specialized formatter if the given one prints {@value #DEFAULT_PATTERN} with standard digits, and a
+     * formatter delegating to it otherwise.
+     */
+    static ConvertedDateTimeFormatter of(final DateTimeFormatter dateTimeFormatter) {
+        final boolean isDefaultPattern = DEFAULT_PATTERN_DESCRIPTION.equals(dateTimeFormatter.toString()) &&
+                DecimalStyle.STANDARD.equals(dateTimeFormatter.getDecimalStyle()) && dateTimeFormatter.getZone() ==
+                null && dateTimeFormatter.getChronology() == null;
+        return isDefaultPattern ? new DefaultPatternFormatter(dateTimeFormatter) : new DelegatingFormatter
+                (dateTimeFormatter);
+    }
+
+    abstract void formatTo(long epochSecond, int nano, ZoneOffsetTable offsetTable, ZoneId zoneId,
+                           StringBuilder target);
+
+    final void formatWithDateTimeFormatter(final long epochSecond, final int nano, final ZoneOffsetTable offsetTable,
+                                           final ZoneId zoneId, final StringBuilder target) {
+        dateTimeFormatter.formatTo(new ConvertedDateTime(epochSecond, nano, offsetTable.getOffset(epochSecond),
+                zoneId), target);
+    }
+
+    private static final class DelegatingFormatter extends ConvertedDateTimeFormatter {
+        private DelegatingFormatter(final DateTimeFormatter dateTimeFormatter) {
+            super(dateTimeFormatter);
+        }
+
+        @Override
+        void formatTo(final long epochSecond, final int nano, final ZoneOffsetTable offsetTable, final ZoneId zoneId,
+                      final StringBuilder target) {
+            formatWithDateTimeFormatter(epochSecond, nano, offsetTable, zoneId, target);
+        }
+    }
+
+    private static final class DefaultPatternFormatter extends ConvertedDateTimeFormatter {
+        private static final int DAYS_PER_400_YEARS = 146_097;
+        /**
+         * Days from 0000-03-01 to 1970-01-01; counting from March puts the leap day at the end of each year.
+         */
+        private static final long DAYS_FROM_MARCH_0000_TO_1970 = 719_468;
+        /**
+         * Four digit years without a sign; outside of them the formatter's own rules apply.
+         */
+        private static final long MIN_EPOCH_DAY = LocalDate.of(1, 1, 1).toEpochDay();
+        private static final long MAX_EPOCH_DAY = LocalDate.of(9999, 12, 31).toEpochDay();
+
+        private DefaultPatternFormatter(final DateTimeFormatter dateTimeFormatter) {
+            super(dateTimeFormatter);
+        }
+
+        @Override
+        void formatTo(final long epochSecond, final int nano, final ZoneOffsetTable offsetTable, final ZoneId zoneId,
+                      final StringBuilder target) {
+            final long localEpochSecond = epochSecond + offsetTable.getOffsetSeconds(epochSecond);
+            final long epochDay = toEpochDay(localEpochSecond);
+            if (epochDay < MIN_EPOCH_DAY || epochDay > MAX_EPOCH_DAY) {
+                formatWithDateTimeFormatter(epochSecond, nano, offsetTable, zoneId, target);
+                return;
+            }
+            final int secondOfDay = toSecondOfDay(localEpochSecond);
+            // Civil date from the day count, as in LocalDate.ofEpochDay restricted to non-negative years
+            final long marchDay = epochDay + DAYS_FROM_MARCH_0000_TO_1970;
+            long year = (400 * marchDay + 591) / DAYS_PER_400_YEARS;
+            long dayOfMarchYear = marchDay - (365 * year + year / 4 - year / 100 + year / 400);
+            if (dayOfMarchYear < 0) {
+                year--;
+                dayOfMarchYear = marchDay - (365 * year + year / 4 - year / 100 + year / 400);
+            }
+            final int marchMonth = ((int) dayOfMarchYear * 5 + 2) / 153;
+            final int month = (marchMonth + 2) % 12 + 1;
+            final int dayOfMonth = (int) dayOfMarchYear - (marchMonth * 306 + 5) / 10 + 1;
+            year += marchMonth / 10;
+            final int hourOfDay = secondOfDay / SECONDS_PER_HOUR;
+            target.append(zoneId.getId()).append(':').append(' ');
+            appendTwoDigits(dayOfMonth, target);
+            target.append('-');
+            appendTwoDigits(month, target);
+            target.append('-');
+            appendTwoDigits((int) year / 100, target);
+            appendTwoDigits((int) year % 100, target);
+            target.append(' ');
+            // kk is the clock hour, which runs from 1 to 24
+            appendTwoDigits(hourOfDay == 0 ? 24 : hourOfDay, target);
+            target.append(':');
+            appendTwoDigits(secondOfDay % SECONDS_PER_HOUR / SECONDS_PER_MINUTE, target);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * One zone's view of an instant, as handed to templates. Every value is computed on first access and kept, so a
+ * template only pays for what it reads.
+ * <p>
+ * Thread-safe; under contention a value may be computed more than once.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class ConvertedZone {
+    private final ZoneId zoneId;
+    private final long epochSecond;
+    private final int nano;
+    private final ZoneOffsetTable offsetTable;
+    private final OutputFormat outputFormat;
+    private ZoneOffset offset;
+    private ZonedDateTime dateTime;
+    private String formattedTime;
+    private String formattedDate;
+    private Boolean daylightSavings;
+
+    ConvertedZone(final ZoneId zoneId, final long epochSecond, final int nano, final ZoneOffsetTable offsetTable,
+                  final OutputFormat outputFormat) {
+        this.zoneId = zoneId;
+        this.epochSecond = epochSecond;
+        this.nano = nano;
+        this.offsetTable = offsetTable;
+        this.outputFormat = outputFormat;
+    }
+
+    public ZoneId getZoneId() {
+        return zoneId;
+    }
+
+    public String getId() {
+        return zoneId.getId();
+    }
+
+    public Instant getInstant() {
+        return Instant.ofEpochSecond(epochSecond, nano);
+    }
+
+    public ZoneOffset getOffset() {
+        ZoneOffset currentOffset = offset;
+        if (currentOffset == null) {
+            currentOffset = offsetTable.getOffset(epochSecond);
+            offset = currentOffset;
+        }
+        return currentOffset;
+    }
+
+    public int getOffsetSeconds() {
+        return getOffset().getTotalSeconds();
+    }
+
+    public ZonedDateTime getDateTime() {
+        ZonedDateTime currentDateTime = dateTime;
+        if (currentDateTime == null) {
+            currentDateTime = ZonedDateTime.ofInstant(LocalDateTime.ofEpochSecond(epochSecond, nano, getOffset()),
+                    getOffset(), zoneId);
+            dateTime = currentDateTime;
+        }
+        return currentDateTime;
+    }
+
+    /**
+     * @return the zone's line of the converted times, e.g. {@code Europe/London: 10-03-2024 12:00}
+     */
+    public String getFormattedTime() {
+        String currentFormattedTime = formattedTime;
+        if (currentFormattedTime == null) {
+            final StringBuilder formattedTimeBuilder = new StringBuilder();
+            outputFormat.getLineFormatter().formatTo(epochSecond, nano, offsetTable, zoneId, formattedTimeBuilder);
+            currentFormattedTime = formattedTimeBuilder.toString();
+            formattedTime = currentFormattedTime;
+        }
+        return currentFormattedTime;
+    }
+
+    /**
+     * @return the date and time formatted like the reference date
+     */
+    public String getFormattedDate() {
+        String currentFormattedDate = formattedDate;
+        if (currentFormattedDate == null) {
+            currentFormattedDate = getDateTime().format(outputFormat.getDateFormatter());
+            formattedDate = currentFormattedDate;
+        }
+        return currentFormattedDate;
+    }
+
+    public boolean isDaylightSavings() {
+        Boolean currentDaylightSavings = daylightSavings;
+        if (currentDaylightSavings == null) {
+            currentDaylightSavings = zoneId.getRules().isDaylightSavings(getInstant());
+            daylightSavings = currentDaylightSavings;
+        }
+        return currentDaylightSavings;
+    }
+
+    boolean isConvertedWith(final ZoneOffsetTable offsetTable) {
+        return this.offsetTable == offsetTable;
+    }
+
+    @Override
+    public String toString() {
+        return getFormattedTime();
+    }
+}
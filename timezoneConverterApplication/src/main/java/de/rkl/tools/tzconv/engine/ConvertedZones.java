@@ -0,0 +1,97 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The {@link ConvertedZone}s of one render: the selected zones' views of its instant in its output format, each
+ * converted on first access. Sized to the selection, so a render only pays for the zones it converts. A render of the
+ * same instant in the same format starts with the zones the previous render has converted, so changing the template
+ * or the selection converts only the zones not seen before.
+ * <p>
+ * Thread-safe; under contention a zone may be converted more than once.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+final class ConvertedZones extends AbstractList<ConvertedZone> implements RandomAccess {
+    private final long epochSecond;
+    private final int nano;
+    private final OutputFormat outputFormat;
+    private final ZoneSelection zoneIds;
+    private final ZoneOffsetTables zoneOffsetTables;
+    private final AtomicReferenceArray<ConvertedZone> convertedZones;
+
+    /**
+     * @param previous the zones of the previous render, whose conversions are taken over if they are of the same
+     *                 instant in the same format, or {@code null}
+     */
+    ConvertedZones(final long epochSecond, final int nano, final OutputFormat outputFormat,
+                   final ZoneSelection zoneIds, final ZoneOffsetTables zoneOffsetTables,
+                   final ConvertedZones previous) {
+        this.epochSecond = epochSecond;
+        this.nano = nano;
+        this.outputFormat = outputFormat;
+        this.zoneIds = zoneIds;
+        this.zoneOffsetTables = zoneOffsetTables;
+        convertedZones = new AtomicReferenceArray<>(zoneIds.size());
+        if (previous != null && previous.isConvertedWith(epochSecond, nano, outputFormat)) {
+            takeOver(previous);
+        }
+    }
+
+    private boolean isConvertedWith(final long epochSecond, final int nano, final OutputFormat outputFormat) {
+        return this.epochSecond == epochSecond && this.nano == nano && this.outputFormat == outputFormat;
+    }
+
+    /**
+     * Copies the previous render's conversions rather than referring to them, so that renders do not keep each other
+     * alive. Conversions with a replaced offset table, e.g. after switching the tz database, are left behind.
+     */
+    private void takeOver(final ConvertedZones previous) {
+        final boolean sameSelection = zoneIds.equals(previous.zoneIds);
+        for (int previousIndex = 0; previousIndex < previous.size(); previousIndex++) {
+            final ConvertedZone convertedZone = previous.convertedZones.get(previousIndex);
+            if (convertedZone == null) {
+                continue;
+            }
+            final int ordinal = previous.zoneIds.getOrdinal(previousIndex);
+            final int index = sameSelection ? previousIndex : zoneIds.indexOfOrdinal(ordinal);
+            if (index >= 0 && convertedZone.isConvertedWith(zoneOffsetTables.getOffsetTable(ordinal))) {
+                convertedZones.set(index, convertedZone);
+            }
+        }
+    }
+
+    @Override
+    public ConvertedZone get(final int index) {
+        ConvertedZone convertedZone = convertedZones.get(index);
+        if (convertedZone == null) {
+            convertedZone = new ConvertedZone(zoneIds.get(index), epochSecond, nano, zoneOffsetTables
+                    .getOffsetTable(zoneIds.getOrdinal(index)), outputFormat);
+            convertedZones.set(index, convertedZone);
+        }
+        return convertedZone;
+    }
+
+    @Override
+    public int size() {
+        return convertedZones.length();
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import de.rkl.tools.tzconv.configuration.ApplicationConfiguration;
+import de.rkl.tools.tzconv.configuration.ConfiguredComponentsProvider;
+import de.rkl.tools.tzconv.metrics.MetricsRegistry;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Collects the components the {@link ConversionEngine} needs, so headless entry points can start a Spring context
+ * without scanning the JavaFX views and model.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@Configuration
+@Import({ConfiguredComponentsProvider.class, ApplicationConfiguration.class, TemplateCache.class,
+        ZoneOffsetTables.class, ConversionEngine.class, WorkingHoursOverlapFinder.class,
+        MetricsRegistry.class})
+public class EngineConfiguration {
+}
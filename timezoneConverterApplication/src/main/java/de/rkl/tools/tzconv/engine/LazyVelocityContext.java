@@ -0,0 +1,98 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import org.apache.velocity.context.AbstractContext;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Velocity context whose values may be given as suppliers, which are only invoked once the template looks the key up
+ * and whose result is kept for any further lookups. Templates thus only pay for the values they reference.
+ * <p>
+ * Not thread-safe, like a Velocity context in general.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class LazyVelocityContext extends AbstractContext {
+    private final Map<String, Object> values;
+    private final Map<String, Supplier<?>> suppliers;
+
+    public LazyVelocityContext() {
+        values = new HashMap<>();
+        suppliers = new HashMap<>();
+    }
+
+    /**
+     * Binds the key to the supplier's result, computed on first lookup.
+     */
+    public void putLazy(final String key, final Supplier<?> supplier) {
+        values.remove(key);
+        suppliers.put(key, supplier);
+    }
+
+    /**
+     * @return whether the key's value has been computed or was put directly
+     */
+    public boolean isResolved(final String key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public Object internalGet(final String key) {
+        final Object value = values.get(key);
+        if (value != null || values.containsKey(key)) {
+            return value;
+        }
+        final Supplier<?> supplier = suppliers.remove(key);
+        if (supplier == null) {
+            return null;
+        }
+        final Object suppliedValue = supplier.get();
+        values.put(key, suppliedValue);
+        return suppliedValue;
+    }
+
+    @Override
+    public Object internalPut(final String key, final Object value) {
+        final Supplier<?> supplier = suppliers.remove(key);
+        final Object previousValue = values.put(key, value);
+        return supplier == null ? previousValue : null;
+    }
+
+    @Override
+    public boolean internalContainsKey(final Object key) {
+        return values.containsKey(key) || suppliers.containsKey(key);
+    }
+
+    @Override
+    public Object[] internalGetKeys() {
+        final Set<String> keys = new LinkedHashSet<>(values.keySet());
+        keys.addAll(suppliers.keySet());
+        return keys.toArray();
+    }
+
+    @Override
+    public Object internalRemove(final Object key) {
+        suppliers.remove(key);
+        return values.remove(key);
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import java.time.DayOfWeek;
+
+/**
+ * Plain arithmetic on local epoch seconds, i.e. epoch seconds shifted by a zone's offset, for the code which derives
+ * local dates and times of many instants without creating a date-time object for each.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+final class LocalTimeArithmetic {
+    static final int SECONDS_PER_DAY = 86_400;
+    static final int SECONDS_PER_HOUR = 3_600;
+    static final int SECONDS_PER_MINUTE = 60;
+    private static final int DAYS_PER_WEEK = 7;
+    /**
+     * 1970-01-01 was a Thursday, three days after a Monday.
+     */
+    private static final int EPOCH_DAY_OF_WEEK_INDEX = 3;
+
+    private LocalTimeArithmetic() {
+    }
+
+    static long toEpochDay(final long localEpochSecond) {
+        return Math.floorDiv(localEpochSecond, SECONDS_PER_DAY);
+    }
+
+    static int toSecondOfDay(final long localEpochSecond) {
+        return (int) Math.floorMod(localEpochSecond, SECONDS_PER_DAY);
+    }
+
+    /**
+     * @return the day of the week counted from 0 for Monday, as an index for {@link DayOfWeek#values()}
+     */
+    static int toDayOfWeekIndex(final long epochDay) {
+        return (int) Math.floorMod(epochDay + EPOCH_DAY_OF_WEEK_INDEX, DAYS_PER_WEEK);
+    }
+
+    static DayOfWeek toDayOfWeek(final long epochDay) {
+        return DayOfWeek.of(toDayOfWeekIndex(epochDay) + 1);
+    }
+
+    /**
+     * Appends a value from 0 to 99 with a leading zero.
+     */
+    static void appendTwoDigits(final int value, final StringBuilder target) {
+        target.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * A named pair of formatters for the reference date and the converted date-times, optionally restricted to a locale.
+ * The line formatter for the converted date-times is compiled when the format is created, so rendering with it does
+ * no further setup.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class OutputFormat {
+    private final String name;
+    private final Locale locale;
+    private final DateTimeFormatter dateFormatter;
+    private final DateTimeFormatter dateTimeFormatter;
+    private final ConvertedDateTimeFormatter lineFormatter;
+
+    /**
+     * @param locale the locale this variant of the format is meant for, or {@code null} if it applies to any
+     */
+    public OutputFormat(final String name, final Locale locale, final DateTimeFormatter dateFormatter,
+                        final DateTimeFormatter dateTimeFormatter) {
+        this.name = name;
+        this.locale = locale;
+        this.dateFormatter = dateFormatter;
+        this.dateTimeFormatter = dateTimeFormatter;
+        lineFormatter = ConvertedDateTimeFormatter.of(dateTimeFormatter);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    public DateTimeFormatter getDateFormatter() {
+        return dateFormatter;
+    }
+
+    public DateTimeFormatter getDateTimeFormatter() {
+        return dateTimeFormatter;
+    }
+
+    ConvertedDateTimeFormatter getLineFormatter() {
+        return lineFormatter;
+    }
+
+    @Override
+    public String toString() {
+        return locale == null ? name : name + " (" + locale.toLanguageTag() + ")";
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable set of {@link OutputFormat}s. Formats sharing a name are variants for different locales; the variant for
+ * the locale given on creation is chosen up front, so looking a format up by name at render time is a single map
+ * access.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class OutputFormats {
+    private final ImmutableList<OutputFormat> variants;
+    private final ImmutableMap<String, OutputFormat> resolvedFormats;
+    private final OutputFormat defaultFormat;
+
+    /**
+     * @param variants    all formats in the order they are offered, at least one
+     * @param defaultName the name of the format used when none is requested; the first format's if {@code null}
+     * @param locale      the locale to pick each format's variant for
+     */
+    public OutputFormats(final Collection<OutputFormat> variants, final String defaultName, final Locale locale) {
+        if (variants.isEmpty()) {
+            throw new IllegalArgumentException("At least one output format is required");
+        }
+        this.variants = ImmutableList.copyOf(variants);
+        final Map<String, OutputFormat> resolvedFormatsInOrder = new LinkedHashMap<>();
+        for (final OutputFormat variant : variants) {
+            resolvedFormatsInOrder.computeIfAbsent(variant.getName(), name -> resolve(this.variants, name, locale));
+        }
+        resolvedFormats = ImmutableMap.copyOf(resolvedFormatsInOrder);
+        defaultFormat = defaultName == null ? resolvedFormats.values().iterator().next() : get(defaultName);
+    }
+
+    private static OutputFormat resolve(final List<OutputFormat> variants, final String name, final Locale locale) {
+        OutputFormat bestVariant = null;
+        int bestScore = -1;
+        for (final OutputFormat variant : variants) {
+            if (variant.getName().equals(name)) {
+                final int score = matchScore(variant.getLocale(), locale);
+                if (score > bestScore) {
+                    bestVariant = variant;
+                    bestScore = score;
+                }
+            }
+        }
+        return bestVariant;
+    }
+
+    /**
+     * Exact locale matches win over language matches, which win over variants for any locale.
+     */
+    private static int matchScore(final Locale variantLocale, final Locale locale) {
+        if (variantLocale == null) {
+            return 1;
+        }
+        if (variantLocale.equals(locale)) {
+            return 3;
+        }
+        return variantLocale.getCountry().isEmpty() && variantLocale.getLanguage().equals(locale.getLanguage()) ? 2 :
+                0;
+    }
+
+    public OutputFormat getDefault() {
+        return defaultFormat;
+    }
+
+    /**
+     * @param name the format's name, or {@code null} for the default format
+     * @throws IllegalArgumentException if there is no format with the given name
+     */
+    public OutputFormat get(final String name) {
+        if (name == null) {
+            return defaultFormat;
+        }
+        final OutputFormat outputFormat = resolvedFormats.get(name);
+        if (outputFormat == null) {
+            throw new IllegalArgumentException("Unknown output format " + name);
+        }
+        return outputFormat;
+    }
+
+    /**
+     * Picks the variant for a locale other than the one this set was created for.
+     *
+     * @throws IllegalArgumentException if there is no format with the given name
+     */
+    public OutputFormat get(final String name, final Locale locale) {
+        final OutputFormat outputFormat = resolve(variants, name == null ? defaultFormat.getName() : name, locale);
+        if (outputFormat == null) {
+            throw new IllegalArgumentException("Unknown output format " + name);
+        }
+        return outputFormat;
+    }
+
+    /**
+     * @return the distinct format names in their configured order
+     */
+    public ImmutableList<String> getNames() {
+        return resolvedFormats.keySet().asList();
+    }
+}
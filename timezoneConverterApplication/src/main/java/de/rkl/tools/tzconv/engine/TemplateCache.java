@@ -0,0 +1,202 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import de.rkl.tools.tzconv.metrics.MetricsRegistry;
+import de.rkl.tools.tzconv.metrics.Operation;
+import de.rkl.tools.tzconv.metrics.OperationTimer;
+import org.apache.velocity.Template;
+import org.apache.velocity.exception.ParseErrorException;
+import org.apache.velocity.runtime.RuntimeServices;
+import org.apache.velocity.runtime.parser.ParseException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Keeps parsed Velocity templates in memory, keyed by their absolute path and stamped with the modification time
+ * they were parsed at. Repeated renders of an unchanged template neither parse it again nor read it; a
+ * {@link WatchService} on the templates' directories evicts entries as soon as the underlying file is modified or
+ * deleted. Since file systems such as network mounts may not deliver watch events, a cached entry's stamp is also
+ * compared with the file's modification time, at most once per {@link #MODIFICATION_CHECK_INTERVAL_NANOS}.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@Component
+public class TemplateCache {
+    private static final long MODIFICATION_CHECK_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final Map<Path, CachedTemplate> cachedTemplates;
+    private final Map<Path, WatchKey> watchedDirectories;
+    /**
+     * Resolved on first use, so the Velocity runtime is only initialized once a template is actually rendered.
+     */
+    @SuppressWarnings("unused")
+    @Autowired
+    @Lazy
+    private RuntimeServices velocityRuntime;
+    @SuppressWarnings("unused")
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+    private WatchService watchService;
+
+    @SuppressWarnings("unused")
+    public TemplateCache() {
+        cachedTemplates = new ConcurrentHashMap<>();
+        watchedDirectories = new ConcurrentHashMap<>();
+    }
+
+    public Template getTemplate(final File templateFile) throws IOException {
+        final Path templatePath = templateFile.toPath().toAbsolutePath().normalize();
+        final CachedTemplate cachedTemplate = cachedTemplates.get(templatePath);
+        return cachedTemplate != null && cachedTemplate.isCurrent(templatePath) ? cachedTemplate.template :
+                loadTemplate(templatePath);
+    }
+
+    public void invalidate(final File templateFile) {
+        cachedTemplates.remove(templateFile.toPath().toAbsolutePath().normalize());
+    }
+
+    public void invalidateAll() {
+        cachedTemplates.clear();
+    }
+
+    private Template loadTemplate(final Path templatePath) throws IOException {
+        final OperationTimer parseTimer = OperationTimer.start(Operation.TEMPLATE_PARSE);
+        watchDirectoryOf(templatePath);
+        final long lastModified = Files.getLastModifiedTime(templatePath).toMillis();
+        final String templateName = templatePath.getFileName().toString();
+        final Template template = new Template();
+        template.setRuntimeServices(velocityRuntime);
+        template.setName(templateName);
+        template.setLastModified(lastModified);
+        try (final Reader templateReader = new FileReader(templatePath.toFile())) {
+            template.setData(velocityRuntime.parse(templateReader, templateName));
+        } catch (ParseException e) {
+            throw new ParseErrorException(e, templateName);
+        }
+        template.initDocument();
+        parseTimer.stop(metricsRegistry, templateName);
+        final CachedTemplate cachedTemplate = new CachedTemplate(template);
+        cachedTemplates.put(templatePath, cachedTemplate);
+        if (Files.getLastModifiedTime(templatePath).toMillis() != lastModified) {
+            // Modified while parsing; the watch event may already have been processed
+            cachedTemplates.remove(templatePath, cachedTemplate);
+        }
+        return template;
+    }
+
+    private synchronized void watchDirectoryOf(final Path templatePath) throws IOException {
+        final Path directory = templatePath.getParent();
+        if (directory == null || watchedDirectories.containsKey(directory)) {
+            return;
+        }
+        if (watchService == null) {
+            final WatchService newWatchService = FileSystems.getDefault().newWatchService();
+            final Thread watcherThread = new Thread(() -> processWatchEvents(newWatchService),
+                    "template-cache-watcher");
+            watcherThread.setDaemon(true);
+            watcherThread.start();
+            watchService = newWatchService;
+        }
+        watchedDirectories.put(directory, directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY,
+                ENTRY_DELETE));
+    }
+
+    private void processWatchEvents(final WatchService directoryWatchService) {
+        try {
+            while (true) {
+                final WatchKey watchKey = directoryWatchService.take();
+                final Path directory = (Path) watchKey.watchable();
+                for (final WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+                    if (watchEvent.kind() == OVERFLOW) {
+                        evictDirectory(directory);
+                    } else {
+                        cachedTemplates.remove(directory.resolve((Path) watchEvent.context()));
+                    }
+                }
+                if (!watchKey.reset()) {
+                    watchedDirectories.remove(directory);
+                    evictDirectory(directory);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Cache has been shut down
+        }
+    }
+
+    private void evictDirectory(final Path directory) {
+        cachedTemplates.keySet().removeIf(templatePath -> directory.equals(templatePath.getParent()));
+    }
+
+    @SuppressWarnings("unused")
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+        watchedDirectories.clear();
+        cachedTemplates.clear();
+    }
+
+    private static final class CachedTemplate {
+        private final Template template;
+        private volatile long checkedNanos;
+
+        private CachedTemplate(final Template template) {
+            this.template = template;
+            checkedNanos = System.nanoTime();
+        }
+
+        /**
+         * @return {@code false} if the file's modification time no longer matches the one the template was parsed at
+         */
+        private boolean isCurrent(final Path templatePath) throws IOException {
+            final long nowNanos = System.nanoTime();
+            if (nowNanos - checkedNanos < MODIFICATION_CHECK_INTERVAL_NANOS) {
+                return true;
+            }
+            checkedNanos = nowNanos;
+            return Files.exists(templatePath) && Files.getLastModifiedTime(templatePath).toMillis() == template
+                    .getLastModified();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import com.google.common.collect.Sets;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Local working hours of a zone: the same time span on each of the given days of the week. An end at
+ * {@link LocalTime#MIDNIGHT} stands for the end of the day.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class WorkingHours {
+    public static final Set<DayOfWeek> WEEKDAYS = Sets.immutableEnumSet(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek
+            .FRIDAY));
+
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    private final LocalTime start;
+    private final LocalTime end;
+    private final Set<DayOfWeek> workingDays;
+
+    public WorkingHours(final LocalTime start, final LocalTime end, final Set<DayOfWeek> workingDays) {
+        if (!start.isBefore(end) && !end.equals(LocalTime.MIDNIGHT)) {
+            throw new IllegalArgumentException("Working hours must end after they start: " + start + " - " + end);
+        }
+        this.start = start;
+        this.end = end;
+        this.workingDays = Sets.immutableEnumSet(workingDays);
+    }
+
+    public static WorkingHours onWeekdays(final LocalTime start, final LocalTime end) {
+        return new WorkingHours(start, end, WEEKDAYS);
+    }
+
+    public LocalTime getStart() {
+        return start;
+    }
+
+    public LocalTime getEnd() {
+        return end;
+    }
+
+    public int getStartSecondOfDay() {
+        return start.toSecondOfDay();
+    }
+
+    public int getEndSecondOfDay() {
+        return end.equals(LocalTime.MIDNIGHT) ? SECONDS_PER_DAY : end.toSecondOfDay();
+    }
+
+    public Set<DayOfWeek> getWorkingDays() {
+        return workingDays;
+    }
+
+    public boolean isWorkingDay(final DayOfWeek dayOfWeek) {
+        return workingDays.contains(dayOfWeek);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof WorkingHours)) {
+            return false;
+        }
+        final WorkingHours otherWorkingHours = (WorkingHours) other;
+        return start.equals(otherWorkingHours.start) && end.equals(otherWorkingHours.end) && workingDays.equals
+                (otherWorkingHours.workingDays);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(start, end, workingDays);
+    }
+
+    @Override
+    public String toString() {
+        return start + "-" + end + " " + workingDays;
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A time span during which at least the requested number of zones are inside their working hours.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class WorkingHoursOverlap {
+    private final long startEpochSecond;
+    private final long endEpochSecond;
+    private final int minimumZoneCount;
+    private final int maximumZoneCount;
+
+    WorkingHoursOverlap(final long startEpochSecond, final long endEpochSecond, final int minimumZoneCount,
+                        final int maximumZoneCount) {
+        this.startEpochSecond = startEpochSecond;
+        this.endEpochSecond = endEpochSecond;
+        this.minimumZoneCount = minimumZoneCount;
+        this.maximumZoneCount = maximumZoneCount;
+    }
+
+    public Instant getStart() {
+        return Instant.ofEpochSecond(startEpochSecond);
+    }
+
+    public Instant getEnd() {
+        return Instant.ofEpochSecond(endEpochSecond);
+    }
+
+    public Duration getDuration() {
+        return Duration.ofSeconds(endEpochSecond - startEpochSecond);
+    }
+
+    /**
+     * The fewest zones inside working hours at any point of the span; at least the requested quorum.
+     */
+    public int getMinimumZoneCount() {
+        return minimumZoneCount;
+    }
+
+    public int getMaximumZoneCount() {
+        return maximumZoneCount;
+    }
+
+    @Override
+    public String toString() {
+        return getStart() + "/" + getEnd() + " (" + minimumZoneCount + "-" + maximumZoneCount + " zones)";
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static de.rkl.tools.tzconv.engine.LocalTimeArithmetic.SECONDS_PER_DAY;
+import static de.rkl.tools.tzconv.engine.LocalTimeArithmetic.toDayOfWeek;
+import static de.rkl.tools.tzconv.engine.LocalTimeArithmetic.toEpochDay;
+
+/**
+ * Finds the spans of a date range in which all, or a quorum, of a set of zones are inside their working hours. Each
+ * zone's working hours are turned into a sorted list of UTC intervals - one per working day, mapped through the
+ * zone's {@link ZoneOffsetTable} so that days with a transition get their true length - and the lists of all zones
+ * are then swept once in time order, counting how many zones are working between consecutive interval boundaries.
+ * The per-zone intervals are computed in parallel.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@Component
+public class WorkingHoursOverlapFinder {
+    @SuppressWarnings("unused")
+    @Autowired
+    private ZoneOffsetTables zoneOffsetTables;
+
+    public List<WorkingHoursOverlap> findOverlaps(final LocalDate firstDate, final LocalDate lastDate,
+                                                  final ZoneId rangeZoneId, final Collection<ZoneId> zoneIds,
+                                                  final WorkingHours workingHours, final int quorum) {
+        final Map<ZoneId, WorkingHours> workingHoursByZoneId = new LinkedHashMap<>();
+        zoneIds.forEach(zoneId -> workingHoursByZoneId.put(zoneId, workingHours));
+        return findOverlaps(firstDate, lastDate, rangeZoneId, workingHoursByZoneId, quorum);
+    }
+
+    /**
+     * @param firstDate            first day of the range, starting at midnight in {@code rangeZoneId}
+     * @param lastDate             last day of the range, inclusive
+     * @param rangeZoneId          the zone the range's days are taken in
+     * @param workingHoursByZoneId the working hours of each zone to take into account
+     * @param quorum               how many zones have to be working at the same time; clamped to the number of zones
+     * @return the overlaps in ascending order, adjacent spans with different counts merged into one
+     */
+    public List<WorkingHoursOverlap> findOverlaps(final LocalDate firstDate, final LocalDate lastDate,
+                                                  final ZoneId rangeZoneId,
+                                                  final Map<ZoneId, WorkingHours> workingHoursByZoneId,
+                                                  final int quorum) {
+        if (workingHoursByZoneId.isEmpty() || lastDate.isBefore(firstDate)) {
+            return Collections.emptyList();
+        }
+        final long rangeStart = firstDate.atStartOfDay(rangeZoneId).toEpochSecond();
+        final long rangeEnd = lastDate.plusDays(1).atStartOfDay(rangeZoneId).toEpochSecond();
+        final List<Map.Entry<ZoneId, WorkingHours>> zoneEntries = new ArrayList<>(workingHoursByZoneId.entrySet());
+        final long[][] intervalsByZone = IntStream.range(0, zoneEntries.size()).parallel().mapToObj(zoneIndex ->
+                computeWorkingIntervals(zoneEntries.get(zoneIndex).getKey(), zoneEntries.get(zoneIndex).getValue(),
+                        rangeStart, rangeEnd)).toArray(long[][]::new);
+        return sweep(intervalsByZone, Math.max(1, Math.min(quorum, zoneEntries.size())));
+    }
+
+    /**
+     * @return the zone's working intervals inside the range as consecutive start/end epoch second pairs
+     */
+    private long[] computeWorkingIntervals(final ZoneId zoneId, final WorkingHours workingHours,
+                                           final long rangeStart, final long rangeEnd) {
+        final ZoneOffsetTable offsetTable = zoneOffsetTables.getOffsetTable(zoneId);
+        final int startSecondOfDay = workingHours.getStartSecondOfDay();
+        final int endSecondOfDay = workingHours.getEndSecondOfDay();
+        // No offset exceeds a day, so one extra day on either side covers every local day touching the range
+        final long firstEpochDay = toEpochDay(rangeStart) - 1;
+        final long lastEpochDay = toEpochDay(rangeEnd) + 1;
+        final long[] intervals = new long[(int) (lastEpochDay - firstEpochDay + 1) * 2];
+        int intervalCount = 0;
+        for (long epochDay = firstEpochDay; epochDay <= lastEpochDay; epochDay++) {
+            if (!workingHours.isWorkingDay(toDayOfWeek(epochDay))) {
+                continue;
+            }
+            final long localStartOfDay = epochDay * SECONDS_PER_DAY;
+            final long start = Math.max(rangeStart, offsetTable.toEpochSecond(localStartOfDay + startSecondOfDay));
+            final long end = Math.min(rangeEnd, offsetTable.toEpochSecond(localStartOfDay + endSecondOfDay));
+            if (start < end) {
+                intervals[intervalCount++] = start;
+                intervals[intervalCount++] = end;
+            }
+        }
+        return Arrays.copyOf(intervals, intervalCount);
+    }
+
+    private static List<WorkingHoursOverlap> sweep(final long[][] intervalsByZone, final int quorum) {
+        final int intervalCount = Arrays.stream(intervalsByZone).mapToInt(intervals -> intervals.length / 2).sum();
+        final long[] starts = new long[intervalCount];
+        final long[] ends = new long[intervalCount];
+        int index = 0;
+        for (final long[] intervals : intervalsByZone) {
+            for (int i = 0; i < intervals.length; i += 2, index++) {
+                starts[index] = intervals[i];
+                ends[index] = intervals[i + 1];
+            }
+        }
+        Arrays.sort(starts);
+        Arrays.sort(ends);
+        final List<WorkingHoursOverlap> overlaps = new ArrayList<>();
+        int startIndex = 0;
+        int endIndex = 0;
+        int workingZoneCount = 0;
+        long overlapStart = 0;
+        int minimumZoneCount = Integer.MAX_VALUE;
+        int maximumZoneCount = 0;
+        while (endIndex < intervalCount) {
+            final long time = startIndex < intervalCount ? Math.min(starts[startIndex], ends[endIndex]) :
+                    ends[endIndex];
+            final boolean wasOverlapping = workingZoneCount >= quorum;
+            // Intervals are half-open: those ending at this instant stop before those starting at it begin
+            while (endIndex < intervalCount && ends[endIndex] == time) {
+                endIndex++;
+                workingZoneCount--;
+            }
+            while (startIndex < intervalCount && starts[startIndex] == time) {
+                startIndex++;
+                workingZoneCount++;
+            }
+            final boolean isOverlapping = workingZoneCount >= quorum;
+            if (isOverlapping) {
+                if (!wasOverlapping) {
+                    overlapStart = time;
+                    minimumZoneCount = Integer.MAX_VALUE;
+                    maximumZoneCount = 0;
+                }
+                minimumZoneCount = Math.min(minimumZoneCount, workingZoneCount);
+                maximumZoneCount = Math.max(maximumZoneCount, workingZoneCount);
+            } else if (wasOverlapping) {
+                overlaps.add(new WorkingHoursOverlap(overlapStart, time, minimumZoneCount, maximumZoneCount));
+            }
+        }
+        return overlaps;
+    }
+}
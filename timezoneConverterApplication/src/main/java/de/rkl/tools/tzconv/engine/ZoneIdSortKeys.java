@@ -0,0 +1,142 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import com.google.common.collect.Ordering;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Sort keys ordering zones by their standard offset at a fixed reference instant and then by name. Each zone's key
+ * is computed once per reference instant and packs the offset and the zone's rank by name, i.e. its
+ * {@link ZoneTable} ordinal, into a single {@code long}, so sorting needs neither rule lookups nor string comparisons.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class ZoneIdSortKeys {
+    private static final int OFFSET_BIAS_SECONDS = 18 * 60 * 60;
+    private static final int INDEX_BITS = 20;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    private static final int UNKNOWN_NAME_RANK = (int) INDEX_MASK;
+
+    private final Instant referenceInstant;
+    private final ConcurrentMap<ZoneId, Long> sortKeys;
+
+    private ZoneIdSortKeys(final Instant referenceInstant) {
+        this.referenceInstant = referenceInstant;
+        sortKeys = new ConcurrentHashMap<>();
+    }
+
+    public static ZoneIdSortKeys at(final Instant referenceInstant) {
+        return new ZoneIdSortKeys(referenceInstant);
+    }
+
+    private static int getNameRank(final ZoneId zoneId) {
+        final ZoneTable zoneTable = ZoneTable.getInstance();
+        final int ordinal = zoneTable.getOrdinal(zoneId);
+        return ordinal >= 0 && zoneTable.isRegion(ordinal) ? ordinal : UNKNOWN_NAME_RANK;
+    }
+
+    private static boolean hasUnknownName(final long sortKey) {
+        return (sortKey >>> INDEX_BITS & INDEX_MASK) == UNKNOWN_NAME_RANK;
+    }
+
+    public Instant getReferenceInstant() {
+        return referenceInstant;
+    }
+
+    /**
+     * @return the key of the given zone with the lowest {@code INDEX_BITS} bits cleared
+     */
+    private long getSortKey(final ZoneId zoneId) {
+        final Long sortKey = sortKeys.get(zoneId);
+        return sortKey != null ? sortKey : sortKeys.computeIfAbsent(zoneId, this::computeSortKey);
+    }
+
+    private long computeSortKey(final ZoneId zoneId) {
+        return computeSortKey(zoneId, referenceInstant);
+    }
+
+    private static long computeSortKey(final ZoneId zoneId, final Instant referenceInstant) {
+        final long biasedOffset = zoneId.getRules().getStandardOffset(referenceInstant).getTotalSeconds() +
+                OFFSET_BIAS_SECONDS;
+        return biasedOffset << 2 * INDEX_BITS | (long) getNameRank(zoneId) << INDEX_BITS;
+    }
+
+    private static int compareKeys(final ZoneId left, final long leftKey, final ZoneId right, final long rightKey) {
+        if (leftKey >>> 2 * INDEX_BITS == rightKey >>> 2 * INDEX_BITS && (hasUnknownName(leftKey) ||
+                hasUnknownName(rightKey))) {
+            return left.getId().compareTo(right.getId());
+        }
+        return Long.compare(leftKey, rightKey);
+    }
+
+    /**
+     * Checks an already sorted list against another reference instant without creating any keys. Standard offsets
+     * rarely change, so callers sorting for many instants can keep their order as long as this holds.
+     *
+     * @return whether sorting the zones for the given instant would leave their order unchanged
+     */
+    public static boolean isSorted(final List<ZoneId> zoneIds, final Instant referenceInstant) {
+        ZoneId previousZoneId = null;
+        long previousKey = 0;
+        for (int index = 0; index < zoneIds.size(); index++) {
+            final ZoneId zoneId = zoneIds.get(index);
+            final long key = computeSortKey(zoneId, referenceInstant);
+            if (previousZoneId != null && compareKeys(previousZoneId, previousKey, zoneId, key) > 0) {
+                return false;
+            }
+            previousZoneId = zoneId;
+            previousKey = key;
+        }
+        return true;
+    }
+
+    public int compare(final ZoneId left, final ZoneId right) {
+        return compareKeys(left, getSortKey(left), right, getSortKey(right));
+    }
+
+    public Ordering<ZoneId> ordering() {
+        return Ordering.from(this::compare).nullsFirst();
+    }
+
+    public List<ZoneId> sortedCopy(final Collection<? extends ZoneId> zoneIds) {
+        final ZoneId[] unsortedZoneIds = zoneIds.toArray(new ZoneId[zoneIds.size()]);
+        final long[] keys = new long[unsortedZoneIds.length];
+        boolean unknownNamesPresent = false;
+        for (int i = 0; i < unsortedZoneIds.length; i++) {
+            keys[i] = getSortKey(unsortedZoneIds[i]) | i;
+            unknownNamesPresent |= hasUnknownName(keys[i]);
+        }
+        Arrays.sort(keys);
+        final ZoneId[] sortedZoneIds = new ZoneId[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            sortedZoneIds[i] = unsortedZoneIds[(int) (keys[i] & INDEX_MASK)];
+        }
+        if (unknownNamesPresent) {
+            // Zones outside the tz database have no rank; order them by name among the zones of their offset
+            Arrays.sort(sortedZoneIds, this::compare);
+        }
+        return Arrays.asList(sortedZoneIds);
+    }
+}
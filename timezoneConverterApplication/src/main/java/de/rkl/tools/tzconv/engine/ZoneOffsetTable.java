@@ -0,0 +1,154 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/**
+ * Precomputed offset lookup for a single zone. Within the year window the table was built for, an epoch second is
+ * mapped to its UTC offset by a binary search over primitive arrays without allocating; outside the window the
+ * lookup falls back to the zone's {@link ZoneRules}.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class ZoneOffsetTable {
+    private static final int INITIAL_TRANSITION_CAPACITY = 16;
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    private final ZoneRules zoneRules;
+    private final long windowStartEpochSecond;
+    private final long windowEndEpochSecond;
+    /**
+     * Instants of all transitions inside the window, in ascending order.
+     */
+    private final long[] transitionEpochSeconds;
+    /**
+     * {@code offsetSeconds[i]} is valid before {@code transitionEpochSeconds[i]}, the last entry after the last
+     * transition.
+     */
+    private final int[] offsetSeconds;
+
+    private ZoneOffsetTable(final ZoneRules zoneRules, final long windowStartEpochSecond,
+                            final long windowEndEpochSecond, final long[] transitionEpochSeconds,
+                            final int[] offsetSeconds) {
+        this.zoneRules = zoneRules;
+        this.windowStartEpochSecond = windowStartEpochSecond;
+        this.windowEndEpochSecond = windowEndEpochSecond;
+        this.transitionEpochSeconds = transitionEpochSeconds;
+        this.offsetSeconds = offsetSeconds;
+    }
+
+    public static ZoneOffsetTable create(final ZoneRules zoneRules, final int firstYear, final int lastYear) {
+        if (zoneRules.isFixedOffset()) {
+            return new ZoneOffsetTable(zoneRules, Long.MIN_VALUE, Long.MAX_VALUE, new long[0], new
+                    int[]{zoneRules.getOffset(Instant.EPOCH).getTotalSeconds()});
+        }
+        final long windowStartEpochSecond = LocalDate.of(firstYear, 1, 1).atStartOfDay().toEpochSecond(ZoneOffset
+                .UTC);
+        final long windowEndEpochSecond = LocalDate.of(lastYear + 1, 1, 1).atStartOfDay().toEpochSecond(ZoneOffset
+                .UTC);
+        final Instant windowStart = Instant.ofEpochSecond(windowStartEpochSecond);
+        long[] transitionEpochSeconds = new long[INITIAL_TRANSITION_CAPACITY];
+        int[] offsetSeconds = new int[INITIAL_TRANSITION_CAPACITY + 1];
+        offsetSeconds[0] = zoneRules.getOffset(windowStart).getTotalSeconds();
+        int transitionCount = 0;
+        for (ZoneOffsetTransition transition = zoneRules.nextTransition(windowStart); transition != null &&
+                transition.toEpochSecond() < windowEndEpochSecond; transition = zoneRules.nextTransition(transition
+                .getInstant())) {
+            if (transitionCount == transitionEpochSeconds.length) {
+                transitionEpochSeconds = Arrays.copyOf(transitionEpochSeconds, transitionCount * 2);
+                offsetSeconds = Arrays.copyOf(offsetSeconds, transitionCount * 2 + 1);
+            }
+            transitionEpochSeconds[transitionCount] = transition.toEpochSecond();
+            offsetSeconds[++transitionCount] = transition.getOffsetAfter().getTotalSeconds();
+        }
+        return new ZoneOffsetTable(zoneRules, windowStartEpochSecond, windowEndEpochSecond, Arrays.copyOf
+                (transitionEpochSeconds, transitionCount), Arrays.copyOf(offsetSeconds, transitionCount + 1));
+    }
+
+    public int getOffsetSeconds(final long epochSecond) {
+        if (epochSecond < windowStartEpochSecond || epochSecond >= windowEndEpochSecond) {
+            return zoneRules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        }
+        final int searchResult = Arrays.binarySearch(transitionEpochSeconds, epochSecond);
+        // An exact hit is the transition instant itself, at which the offset after the transition applies
+        return offsetSeconds[searchResult >= 0 ? searchResult + 1 : -searchResult - 1];
+    }
+
+    /**
+     * Looks up the offsets of many instants in one pass. For ascending epoch seconds the transitions are walked
+     * alongside instead of being searched for each instant.
+     *
+     * @param target      receives the offset of {@code epochSeconds[i]} at {@code target[targetStart + i]}
+     * @param targetStart the first index of {@code target} to write
+     */
+    public void getOffsetSeconds(final long[] epochSeconds, final int[] target, final int targetStart) {
+        int transitionIndex = 0;
+        long previousEpochSecond = Long.MIN_VALUE;
+        for (int index = 0; index < epochSeconds.length; index++) {
+            final long epochSecond = epochSeconds[index];
+            if (epochSecond < windowStartEpochSecond || epochSecond >= windowEndEpochSecond) {
+                target[targetStart + index] = getOffsetSeconds(epochSecond);
+                continue;
+            }
+            if (epochSecond < previousEpochSecond) {
+                transitionIndex = 0;
+            }
+            previousEpochSecond = epochSecond;
+            while (transitionIndex < transitionEpochSeconds.length && transitionEpochSeconds[transitionIndex] <=
+                    epochSecond) {
+                transitionIndex++;
+            }
+            target[targetStart + index] = offsetSeconds[transitionIndex];
+        }
+    }
+
+    /**
+     * Maps a local date-time, given as seconds since 1970-01-01T00:00 local time, to its instant with the same rules
+     * as {@link java.time.ZonedDateTime#ofLocal}: in an overlap the earlier offset applies, and a local time in a gap
+     * is moved forward by the length of the gap. Assumes at most one transition within a day of the local time.
+     */
+    public long toEpochSecond(final long localEpochSecond) {
+        final int offsetBefore = getOffsetSeconds(localEpochSecond - SECONDS_PER_DAY);
+        if (getOffsetSeconds(localEpochSecond - offsetBefore) == offsetBefore) {
+            return localEpochSecond - offsetBefore;
+        }
+        final int offsetAfter = getOffsetSeconds(localEpochSecond + SECONDS_PER_DAY);
+        if (getOffsetSeconds(localEpochSecond - offsetAfter) == offsetAfter) {
+            return localEpochSecond - offsetAfter;
+        }
+        // In a gap: the local time shifted by the gap, at the offset after it
+        return localEpochSecond - offsetBefore;
+    }
+
+    public ZoneOffset getOffset(final long epochSecond) {
+        return ZoneOffset.ofTotalSeconds(getOffsetSeconds(epochSecond));
+    }
+
+    public boolean isInWindow(final long epochSecond) {
+        return epochSecond >= windowStartEpochSecond && epochSecond < windowEndEpochSecond;
+    }
+
+    public int getTransitionCount() {
+        return transitionEpochSeconds.length;
+    }
+}
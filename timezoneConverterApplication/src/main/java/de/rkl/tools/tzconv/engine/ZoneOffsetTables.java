@@ -0,0 +1,93 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import de.rkl.tools.tzconv.configuration.ApplicationConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lazily builds and caches one {@link ZoneOffsetTable} per zone for the year window given in the configuration. The
+ * tables of the tz database's zones are kept in an array indexed by {@link ZoneTable} ordinal.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@Component
+public class ZoneOffsetTables {
+    private final ZoneTable zoneTable;
+    private final AtomicReferenceArray<ZoneOffsetTable> regionOffsetTables;
+    /**
+     * Tables of zones interned after the array was sized, keyed by ordinal.
+     */
+    private final ConcurrentMap<Integer, ZoneOffsetTable> otherOffsetTables;
+    @SuppressWarnings("unused")
+    @Autowired
+    private ApplicationConfiguration applicationConfiguration;
+
+    @SuppressWarnings("unused")
+    public ZoneOffsetTables() {
+        zoneTable = ZoneTable.getInstance();
+        regionOffsetTables = new AtomicReferenceArray<>(zoneTable.size());
+        otherOffsetTables = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return the cached table of an interned zone, or a new table for any other zone, which is not interned so that
+     * ad-hoc zones from untrusted input do not accumulate
+     */
+    public ZoneOffsetTable getOffsetTable(final ZoneId zoneId) {
+        final int ordinal = zoneTable.getOrdinal(zoneId);
+        return ordinal >= 0 ? getOffsetTable(ordinal) : createOffsetTable(zoneId);
+    }
+
+    public ZoneOffsetTable getOffsetTable(final int ordinal) {
+        if (ordinal >= regionOffsetTables.length()) {
+            final ZoneOffsetTable offsetTable = otherOffsetTables.get(ordinal);
+            return offsetTable != null ? offsetTable : otherOffsetTables.computeIfAbsent(ordinal,
+                    this::createOffsetTable);
+        }
+        final ZoneOffsetTable offsetTable = regionOffsetTables.get(ordinal);
+        if (offsetTable != null) {
+            return offsetTable;
+        }
+        // Racing threads build equal tables; whichever is stored first is used by all
+        final ZoneOffsetTable newOffsetTable = createOffsetTable(ordinal);
+        return regionOffsetTables.compareAndSet(ordinal, null, newOffsetTable) ? newOffsetTable :
+                regionOffsetTables.get(ordinal);
+    }
+
+    public void invalidateAll() {
+        for (int ordinal = 0; ordinal < regionOffsetTables.length(); ordinal++) {
+            regionOffsetTables.set(ordinal, null);
+        }
+        otherOffsetTables.clear();
+    }
+
+    private ZoneOffsetTable createOffsetTable(final int ordinal) {
+        return createOffsetTable(zoneTable.getZoneId(ordinal));
+    }
+
+    private ZoneOffsetTable createOffsetTable(final ZoneId zoneId) {
+        return ZoneOffsetTable.create(zoneId.getRules(), applicationConfiguration.getOffsetTableFirstYear(),
+                applicationConfiguration.getOffsetTableLastYear());
+    }
+}
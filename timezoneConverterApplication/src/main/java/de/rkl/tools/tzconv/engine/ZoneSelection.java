@@ -0,0 +1,170 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import java.time.ZoneId;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * Immutable, duplicate-free list of zones stored as their {@link ZoneTable} ordinals, together with a bitset of the
+ * ordinals for constant-time membership checks. As a {@code List<ZoneId>} it can be passed wherever zones are
+ * expected; code aware of it works on the ordinals directly.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class ZoneSelection extends AbstractList<ZoneId> implements RandomAccess {
+    public static final ZoneSelection EMPTY = new ZoneSelection(ZoneTable.getInstance(), new int[0], new BitSet());
+
+    private final ZoneTable zoneTable;
+    private final int[] ordinals;
+    private final BitSet members;
+    private int hashCode;
+
+    private ZoneSelection(final ZoneTable zoneTable, final int[] ordinals, final BitSet members) {
+        this.zoneTable = zoneTable;
+        this.ordinals = ordinals;
+        this.members = members;
+    }
+
+    /**
+     * @return the given zones in their order, without duplicates
+     */
+    public static ZoneSelection of(final Collection<? extends ZoneId> zoneIds) {
+        if (zoneIds instanceof ZoneSelection) {
+            return (ZoneSelection) zoneIds;
+        }
+        final ZoneTable zoneTable = ZoneTable.getInstance();
+        final int[] ordinals = new int[zoneIds.size()];
+        int ordinalCount = 0;
+        for (final ZoneId zoneId : zoneIds) {
+            ordinals[ordinalCount++] = zoneTable.intern(zoneId);
+        }
+        return ofOrdinals(ordinals, ordinalCount);
+    }
+
+    /**
+     * @return the zones with the given ordinals in their order, without duplicates
+     */
+    public static ZoneSelection ofOrdinals(final int[] ordinals) {
+        return ofOrdinals(ordinals.clone(), ordinals.length);
+    }
+
+    /**
+     * @return the zones with the ordinals set in the given bitset, in ordinal order
+     */
+    public static ZoneSelection ofOrdinals(final BitSet ordinals) {
+        return ordinals.isEmpty() ? EMPTY : new ZoneSelection(ZoneTable.getInstance(), ordinals.stream().toArray(),
+                (BitSet) ordinals.clone());
+    }
+
+    /**
+     * Takes ownership of the given array.
+     */
+    private static ZoneSelection ofOrdinals(final int[] ordinals, final int ordinalCount) {
+        final BitSet members = new BitSet();
+        int distinctCount = 0;
+        for (int index = 0; index < ordinalCount; index++) {
+            final int ordinal = ordinals[index];
+            if (!members.get(ordinal)) {
+                members.set(ordinal);
+                ordinals[distinctCount++] = ordinal;
+            }
+        }
+        return distinctCount == 0 ? EMPTY : new ZoneSelection(ZoneTable.getInstance(), distinctCount ==
+                ordinals.length ? ordinals : Arrays.copyOf(ordinals, distinctCount), members);
+    }
+
+    @Override
+    public ZoneId get(final int index) {
+        return zoneTable.getZoneId(ordinals[index]);
+    }
+
+    @Override
+    public int size() {
+        return ordinals.length;
+    }
+
+    public int getOrdinal(final int index) {
+        return ordinals[index];
+    }
+
+    public int[] toOrdinalArray() {
+        return ordinals.clone();
+    }
+
+    public BitSet toBitSet() {
+        return (BitSet) members.clone();
+    }
+
+    public boolean containsOrdinal(final int ordinal) {
+        return ordinal >= 0 && members.get(ordinal);
+    }
+
+    /**
+     * @return the index of the zone with the given ordinal, or -1 if it is not selected
+     */
+    public int indexOfOrdinal(final int ordinal) {
+        if (containsOrdinal(ordinal)) {
+            for (int index = 0; index < ordinals.length; index++) {
+                if (ordinals[index] == ordinal) {
+                    return index;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(final Object element) {
+        return element instanceof ZoneId && containsOrdinal(zoneTable.getOrdinal((ZoneId) element));
+    }
+
+    @Override
+    public int indexOf(final Object element) {
+        return element instanceof ZoneId ? indexOfOrdinal(zoneTable.getOrdinal((ZoneId) element)) : -1;
+    }
+
+    @Override
+    public int lastIndexOf(final Object element) {
+        return indexOf(element);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (other instanceof ZoneSelection) {
+            return Arrays.equals(ordinals, ((ZoneSelection) other).ordinals);
+        }
+        return super.equals(other);
+    }
+
+    /**
+     * Computed as specified by {@link java.util.List#hashCode()} and cached, like {@link String#hashCode()}.
+     */
+    @Override
+    public int hashCode() {
+        int cachedHashCode = hashCode;
+        if (cachedHashCode == 0) {
+            cachedHashCode = super.hashCode();
+            hashCode = cachedHashCode;
+        }
+        return cachedHashCode;
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns every zone once and numbers it. The zones of the tz database are numbered by name on first use, so their
+ * ordinal is also their rank by name; any other zone, e.g. {@code UTC+01:00}, gets the next free ordinal when it is
+ * first {@link #intern(ZoneId) interned}. Ordinals stay fixed for the lifetime of the JVM, also across switches of the
+ * tz database, but are not meant to be persisted. Besides the {@link ZoneId} each entry keeps the encoded bytes of its
+ * ID, so writing a zone needs no encoding.
+ * <p>
+ * Thread-safe.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class ZoneTable {
+    private static final int MAX_UTF_LENGTH = 0xFFFF;
+
+    private final ConcurrentMap<String, Integer> ordinalsById;
+    private final int regionCount;
+    /**
+     * Replaced as a whole when zones are interned, so readers always see entries at least up to any ordinal they got.
+     */
+    private volatile ZoneId[] zoneIds;
+    private volatile byte[][] encodedIds;
+
+    private ZoneTable(final String[] sortedRegionIds) {
+        ordinalsById = new ConcurrentHashMap<>(sortedRegionIds.length * 2);
+        regionCount = sortedRegionIds.length;
+        final ZoneId[] regionZoneIds = new ZoneId[regionCount];
+        final byte[][] encodedRegionIds = new byte[regionCount][];
+        for (int ordinal = 0; ordinal < regionCount; ordinal++) {
+            regionZoneIds[ordinal] = ZoneId.of(sortedRegionIds[ordinal]);
+            encodedRegionIds[ordinal] = encode(sortedRegionIds[ordinal]);
+            ordinalsById.put(sortedRegionIds[ordinal], ordinal);
+        }
+        zoneIds = regionZoneIds;
+        encodedIds = encodedRegionIds;
+    }
+
+    public static ZoneTable getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * @return the ID in modified UTF-8 as written by {@link DataOutput#writeUTF(String)}, including its length
+     */
+    private static byte[] encode(final String id) {
+        int length = 0;
+        for (int index = 0; index < id.length(); index++) {
+            final char character = id.charAt(index);
+            length += character >= 0x0001 && character <= 0x007F ? 1 : character <= 0x07FF ? 2 : 3;
+        }
+        if (length > MAX_UTF_LENGTH) {
+            throw new IllegalArgumentException("Zone ID too long: " + length + " bytes");
+        }
+        final byte[] encodedId = new byte[length + 2];
+        encodedId[0] = (byte) (length >>> 8);
+        encodedId[1] = (byte) length;
+        int position = 2;
+        for (int index = 0; index < id.length(); index++) {
+            final char character = id.charAt(index);
+            if (character >= 0x0001 && character <= 0x007F) {
+                encodedId[position++] = (byte) character;
+            } else if (character <= 0x07FF) {
+                encodedId[position++] = (byte) (0xC0 | character >> 6 & 0x1F);
+                encodedId[position++] = (byte) (0x80 | character & 0x3F);
+            } else {
+                encodedId[position++] = (byte) (0xE0 | character >> 12 & 0x0F);
+                encodedId[position++] = (byte) (0x80 | character >> 6 & 0x3F);
+                encodedId[position++] = (byte) (0x80 | character & 0x3F);
+            }
+        }
+        return encodedId;
+    }
+
+    /**
+     * @return the number of zones interned so far
+     */
+    public int size() {
+        return zoneIds.length;
+    }
+
+    /**
+     * @return whether the zone is part of the tz database, in which case its ordinal is its rank by name
+     */
+    public boolean isRegion(final int ordinal) {
+        return ordinal < regionCount;
+    }
+
+    /**
+     * @return the zone's ordinal, or {@code -1} if it has not been interned
+     */
+    public int getOrdinal(final ZoneId zoneId) {
+        return getOrdinal(zoneId.getId());
+    }
+
+    public int getOrdinal(final String zoneId) {
+        final Integer ordinal = ordinalsById.get(zoneId);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    public int intern(final ZoneId zoneId) {
+        final int ordinal = getOrdinal(zoneId);
+        return ordinal >= 0 ? ordinal : add(zoneId);
+    }
+
+    /**
+     * @throws java.time.DateTimeException if the ID is not a valid zone ID
+     */
+    public int intern(final String zoneId) {
+        final int ordinal = getOrdinal(zoneId);
+        return ordinal >= 0 ? ordinal : add(ZoneId.of(zoneId));
+    }
+
+    private synchronized int add(final ZoneId zoneId) {
+        final Integer existingOrdinal = ordinalsById.get(zoneId.getId());
+        if (existingOrdinal != null) {
+            return existingOrdinal;
+        }
+        final int ordinal = zoneIds.length;
+        final byte[][] newEncodedIds = Arrays.copyOf(encodedIds, ordinal + 1);
+        newEncodedIds[ordinal] = encode(zoneId.getId());
+        final ZoneId[] newZoneIds = Arrays.copyOf(zoneIds, ordinal + 1);
+        newZoneIds[ordinal] = zoneId;
+        encodedIds = newEncodedIds;
+        zoneIds = newZoneIds;
+        ordinalsById.put(zoneId.getId(), ordinal);
+        return ordinal;
+    }
+
+    public ZoneId getZoneId(final int ordinal) {
+        return zoneIds[ordinal];
+    }
+
+    /**
+     * Writes the zone's ID exactly like {@link DataOutput#writeUTF(String)} would.
+     */
+    public void writeId(final int ordinal, final DataOutput output) throws IOException {
+        output.write(encodedIds[ordinal]);
+    }
+
+    private static final class Holder {
+        private static final ZoneTable INSTANCE = new ZoneTable(sortAvailableZoneIds());
+
+        private static String[] sortAvailableZoneIds() {
+            final String[] zoneIds = ZoneId.getAvailableZoneIds().toArray(new String[0]);
+            Arrays.sort(zoneIds);
+            return zoneIds;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.metrics;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * In-process latency histograms per {@link Operation} and named counters. The current values can be written out at
+ * any time; {@link #startReporting()} additionally writes them periodically to the file given by
+ * {@value #PROPERTY_METRICS_FILE} and/or logs them to standard error every {@value #PROPERTY_METRICS_LOG_SECONDS}
+ * seconds, depending on which of these system properties are set.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@Component
+public class MetricsRegistry {
+    public static final String PROPERTY_METRICS_FILE = "timezoneConverter.metricsFile";
+    public static final String PROPERTY_METRICS_LOG_SECONDS = "timezoneConverter.metricsLogSeconds";
+    public static final String COUNTER_RENDERS_SUPERSEDED = "render.superseded";
+    public static final String COUNTER_RENDER_FAILURES = "render.failures";
+    public static final String COUNTER_PREFERENCES_WRITE_FAILURES = "preferences.write.failures";
+    private static final long METRICS_FILE_INTERVAL_SECONDS = 10;
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final Map<Operation, LatencyHistogram> histograms;
+    private final ConcurrentMap<String, LongAdder> counters;
+    private ScheduledExecutorService reporter;
+
+    @SuppressWarnings("unused")
+    public MetricsRegistry() {
+        histograms = new EnumMap<>(Operation.class);
+        for (final Operation operation : Operation.values()) {
+            histograms.put(operation, new LatencyHistogram());
+        }
+        counters = new ConcurrentHashMap<>();
+    }
+
+    public void recordLatency(final Operation operation, final long nanos) {
+        histograms.get(operation).record(nanos);
+    }
+
+    public LatencyHistogram getHistogram(final Operation operation) {
+        return histograms.get(operation);
+    }
+
+    public void increment(final String counterName) {
+        counters.computeIfAbsent(counterName, name -> new LongAdder()).increment();
+    }
+
+    public long getCount(final String counterName) {
+        final LongAdder counter = counters.get(counterName);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Writes one line per operation which has been recorded at least once, then one line per counter.
+     */
+    public void writeTo(final Appendable target) throws IOException {
+        target.append(String.format("# metrics at %s%n", Instant.now()));
+        target.append(String.format("%-18s %8s %10s %10s %10s %10s%n", "operation", "count", "mean ms", "p50 ms",
+                "p99 ms", "max ms"));
+        for (final Map.Entry<Operation, LatencyHistogram> histogramEntry : histograms.entrySet()) {
+            final LatencyHistogram histogram = histogramEntry.getValue();
+            if (histogram.getCount() > 0) {
+                target.append(String.format("%-18s %8d %10.3f %10.3f %10.3f %10.3f%n", histogramEntry.getKey()
+                        .getMetricName(), histogram.getCount(), histogram.getMeanNanos() / NANOS_PER_MILLI, histogram
+                        .getPercentileNanos(50) / NANOS_PER_MILLI, histogram.getPercentileNanos(99) / NANOS_PER_MILLI,
+                        histogram.getMaxNanos() / NANOS_PER_MILLI));
+            }
+        }
+        for (final Map.Entry<String, LongAdder> counterEntry : new TreeMap<>(counters).entrySet()) {
+            target.append(String.format("%-18s %8d%n", counterEntry.getKey(), counterEntry.getValue().sum()));
+        }
+    }
+
+    /**
+     * Starts periodic reporting as configured by the system properties; does nothing if neither is set.
+     */
+    public synchronized void startReporting() {
+        final String metricsFile = System.getProperty(PROPERTY_METRICS_FILE);
+        final long logSeconds = Long.getLong(PROPERTY_METRICS_LOG_SECONDS, 0);
+        if (reporter != null || metricsFile == null && logSeconds <= 0) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat
+                ("metrics-reporter").setDaemon(true).build());
+        if (metricsFile != null) {
+            reporter.scheduleWithFixedDelay(() -> writeToFile(Paths.get(metricsFile)), METRICS_FILE_INTERVAL_SECONDS,
+                    METRICS_FILE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
+        if (logSeconds > 0) {
+            reporter.scheduleWithFixedDelay(this::logToStandardError, logSeconds, logSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stops periodic reporting and writes the final values to the metrics file, if one is configured.
+     */
+    public synchronized void stopReporting() {
+        if (reporter == null) {
+            return;
+        }
+        reporter.shutdownNow();
+        reporter = null;
+        final String metricsFile = System.getProperty(PROPERTY_METRICS_FILE);
+        if (metricsFile != null) {
+            writeToFile(Paths.get(metricsFile));
+        }
+    }
+
+    private void writeToFile(final Path metricsFile) {
+        try (final Writer metricsWriter = Files.newBufferedWriter(metricsFile, UTF_8)) {
+            writeTo(metricsWriter);
+        } catch (IOException e) {
+            System.err.printf("Metrics could not be written to %s: %s%n", metricsFile, e);
+        }
+    }
+
+    private void logToStandardError() {
+        final StringBuilder metricsText = new StringBuilder();
+        try {
+            writeTo(metricsText);
+        } catch (IOException e) {
+            throw new IllegalStateException("StringBuilder does not throw", e);
+        }
+        System.err.print(metricsText);
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.metrics;
+
+/**
+ * Timed operations, each recorded in its own latency histogram and as {@link OperationEvent}s.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public enum Operation {
+    SPRING_REFRESH("spring.refresh"),
+    RENDER("render"),
+    FX_UPDATE("fx.update"),
+    TEMPLATE_PARSE("template.parse"),
+    TEMPLATE_MERGE("template.merge"),
+    ZONE_DIALOG_OPEN("zoneDialog.open"),
+    PREFERENCES_LOAD("preferences.load"),
+    PREFERENCES_WRITE("preferences.write"),
+    HTTP_REQUEST("http.request");
+
+    private final String metricName;
+
+    Operation(final String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning one {@link Operation}. Only loaded if the running JVM has Flight Recorder, see
+ * {@link OperationTimer}.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@Name("de.rkl.tools.tzconv.Operation")
+@Label("Timezone Converter Operation")
+@Category("Timezone Converter")
+@StackTrace(false)
+final class OperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+    @Label("Detail")
+    String detail;
+
+    static Object beginEvent() {
+        final OperationEvent event = new OperationEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitEvent(final Object beganEvent, final Operation operation, final String detail) {
+        final OperationEvent event = (OperationEvent) beganEvent;
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation.getMetricName();
+            event.detail = detail;
+            event.commit();
+        }
+    }
+}
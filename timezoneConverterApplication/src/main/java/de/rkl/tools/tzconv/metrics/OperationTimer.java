@@ -0,0 +1,71 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.metrics;
+
+/**
+ * Times one execution of an {@link Operation}. Stopping the timer records the latency in a {@link MetricsRegistry}
+ * and commits an {@link OperationEvent} if a flight recording is running. Since the registry is only needed at the
+ * end, operations can be timed before it exists, e.g. the refresh of the context providing it.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class OperationTimer {
+    private static final boolean FLIGHT_RECORDER_AVAILABLE = isFlightRecorderAvailable();
+
+    private final Operation operation;
+    private final long startNanos;
+    /**
+     * The began {@link OperationEvent}, typed as {@link Object} so that JVMs without Flight Recorder never load it.
+     */
+    private final Object event;
+
+    private OperationTimer(final Operation operation) {
+        this.operation = operation;
+        event = FLIGHT_RECORDER_AVAILABLE ? OperationEvent.beginEvent() : null;
+        startNanos = System.nanoTime();
+    }
+
+    public static OperationTimer start(final Operation operation) {
+        return new OperationTimer(operation);
+    }
+
+    public long stop(final MetricsRegistry metricsRegistry) {
+        return stop(metricsRegistry, null);
+    }
+
+    /**
+     * @param detail additional information shown in the Flight Recorder event, e.g. the template's name
+     * @return the elapsed time in nanoseconds
+     */
+    public long stop(final MetricsRegistry metricsRegistry, final String detail) {
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        metricsRegistry.recordLatency(operation, elapsedNanos);
+        if (event != null) {
+            OperationEvent.commitEvent(event, operation, detail);
+        }
+        return elapsedNanos;
+    }
+
+    private static boolean isFlightRecorderAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -16,15 +16,12 @@
  */
 package de.rkl.tools.tzconv.model;
 
-import com.google.common.collect.*;
 import de.rkl.tools.tzconv.configuration.ApplicationConfiguration;
 import de.rkl.tools.tzconv.configuration.PreferencesProvider;
-import javafx.beans.property.ListProperty;
-import javafx.beans.property.ObjectProperty;
-import javafx.beans.property.SimpleListProperty;
-import javafx.beans.property.SimpleObjectProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import de.rkl.tools.tzconv.engine.ZoneIdSortKeys;
+import de.rkl.tools.tzconv.engine.ZoneSelection;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -32,68 +29,53 @@ import javax.annotation.PostConstruct;
 import java.io.File;
 import java.time.Instant;
 import java.time.ZoneId;
-import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 
 /**
+ * Holds the current {@link ApplicationState}. All changes go through {@link #update(UnaryOperator)}, and any number of
+ * updates inside {@link #batch(Runnable)} are published as a single change of {@link #state}.
+ *
  * @author Raimund Klein <raimund.klein@gmx.de>
  */
 @Component
 public class ApplicationModel {
     public static final int DEFAULT_INITIAL_HOUR = 12;
     public static final int DEFAULT_INITIAL_MINUTE = 30;
-    public static final SetMultimap<ZoneOffset, ZoneId> ZONE_OFFSETS_2_ZONE_IDS = sortAvailableZoneIds();
-    public final ObjectProperty<ZonedDateTime> mainDateTime;
-    public final ListProperty<ZoneId> selectedZoneIds;
-    public final ObjectProperty<File> templateFile;
+    private final ReadOnlyObjectWrapper<ApplicationState> stateWrapper;
+    public final ReadOnlyObjectProperty<ApplicationState> state;
     @SuppressWarnings("unused")
     @Autowired
     private ApplicationConfiguration applicationConfiguration;
     @SuppressWarnings("unused")
     @Autowired
-    private Ordering<ZoneId> selectedZoneIdOrdering;
-    @SuppressWarnings("unused")
-    @Autowired
     private PreferencesProvider preferencesProvider;
+    private ZoneIdSortKeys zoneIdSortKeys;
+    private ZoneOffsetGrouping zoneOffsetGrouping;
+    private ApplicationState pendingState;
+    private int batchDepth;
 
     @SuppressWarnings("unused")
     public ApplicationModel() {
-        mainDateTime = new SimpleObjectProperty<>();
-        selectedZoneIds = new SimpleListProperty<>();
-        templateFile = new SimpleObjectProperty<>();
-    }
-
-    private static SetMultimap<ZoneOffset, ZoneId> sortAvailableZoneIds() {
-        final SortedSetMultimap<ZoneOffset, ZoneId> zoneIdMap = TreeMultimap.create(Ordering.natural().reverse(), new
-                Ordering<ZoneId>() {
-                    @Override
-                    public int compare(final ZoneId zoneId1, final ZoneId zoneId2) {
-                        return ComparisonChain.start().compare(zoneId1.toString(), zoneId2.toString()).result();
-                    }
-                }.nullsFirst());
-        ZoneId.getAvailableZoneIds().stream().forEach(zoneId -> {
-            final ZoneId zoneIdObject = ZoneId.of(zoneId);
-            zoneIdMap.put(zoneIdObject.getRules().getStandardOffset(Instant.now()), zoneIdObject);
-        });
-        return ImmutableSetMultimap.copyOf(zoneIdMap);
+        stateWrapper = new ReadOnlyObjectWrapper<>();
+        state = stateWrapper.getReadOnlyProperty();
     }
 
     @SuppressWarnings("unused")
     @PostConstruct
     public void fillProperties() {
-        mainDateTime.setValue(ZonedDateTime.now().withHour(DEFAULT_INITIAL_HOUR).withMinute
-                (DEFAULT_INITIAL_MINUTE).withZoneSameLocal(preferencesProvider.getPreferredReferenceZoneIdIfSet()));
-        selectedZoneIds.setValue(getInitialZoneIds());
-        templateFile.setValue(preferencesProvider.getPreferredTemplateFile());
-        sortSelectedZoneIds();
+        final ZonedDateTime initialDateTime = ZonedDateTime.now().withHour(DEFAULT_INITIAL_HOUR).withMinute
+                (DEFAULT_INITIAL_MINUTE).withZoneSameLocal(preferencesProvider.getPreferredReferenceZoneIdIfSet());
+        stateWrapper.set(new ApplicationState(initialDateTime, getZoneIdSortKeys(initialDateTime).sortedCopy
+                (getInitialZoneIds()), preferencesProvider.getPreferredTemplateFile(), null));
     }
 
-    private ObservableList<ZoneId> getInitialZoneIds() {
+    private Collection<ZoneId> getInitialZoneIds() {
         final java.util.List<ZoneId> preferredZoneIds = preferencesProvider.getPreferredSelectedZoneIds();
         final Collection<ZoneId> initialZoneIds;
         if (isNotEmpty(preferredZoneIds)) {
@@ -101,12 +83,132 @@ public class ApplicationModel {
         } else {
             final List<ZoneId> defaultListFromConfiguration = applicationConfiguration.getDefaultSelectedZoneIds();
             initialZoneIds = isNotEmpty(defaultListFromConfiguration) ? defaultListFromConfiguration :
-                    ZONE_OFFSETS_2_ZONE_IDS.values();
+                    ZoneOffsetIndex.getZoneOffsets2ZoneIds().values();
         }
-        return observableArrayList(initialZoneIds);
+        return initialZoneIds;
+    }
+
+    public ApplicationState getState() {
+        return pendingState != null ? pendingState : stateWrapper.get();
+    }
+
+    public ZonedDateTime getMainDateTime() {
+        return getState().getMainDateTime();
+    }
+
+    public ZoneSelection getSelectedZoneIds() {
+        return getState().getSelectedZoneIds();
+    }
+
+    public File getTemplateFile() {
+        return getState().getTemplateFile();
+    }
+
+    /**
+     * Applies the given modification to the current state. Outside of a {@link #batch(Runnable)} listeners are
+     * notified immediately, provided the modification actually changed anything.
+     */
+    public void update(final UnaryOperator<ApplicationState> modification) {
+        final ApplicationState updatedState = modification.apply(getState());
+        if (batchDepth > 0) {
+            pendingState = updatedState;
+        } else {
+            stateWrapper.set(updatedState);
+        }
+    }
+
+    /**
+     * Runs the given edits and publishes their combined result as one state change. Batches may be nested; only the
+     * outermost one publishes.
+     */
+    public void batch(final Runnable edits) {
+        batchDepth++;
+        try {
+            edits.run();
+        } finally {
+            if (--batchDepth == 0 && pendingState != null) {
+                final ApplicationState updatedState = pendingState;
+                pendingState = null;
+                stateWrapper.set(updatedState);
+            }
+        }
+    }
+
+    /**
+     * Registers a listener invoked with the new state whenever the given aspect has changed.
+     */
+    public void addStateListener(final ApplicationState.Aspect aspect, final Consumer<ApplicationState> listener) {
+        state.addListener((observable, oldState, newState) -> {
+            if (newState.changedAspects(oldState).contains(aspect)) {
+                listener.accept(newState);
+            }
+        });
+    }
+
+    public void setMainDateTime(final ZonedDateTime mainDateTime) {
+        update(currentState -> currentState.withMainDateTime(mainDateTime));
+    }
+
+    public void setTemplateFile(final File templateFile) {
+        update(currentState -> currentState.withTemplateFile(templateFile));
+    }
+
+    /**
+     * @param outputFormatName the name of a configured output format, {@code null} for the default one
+     */
+    public void setOutputFormatName(final String outputFormatName) {
+        update(currentState -> currentState.withOutputFormatName(outputFormatName));
+    }
+
+    /**
+     * Replaces the selected zones by the given ones in their sorted order.
+     */
+    public void selectZoneIds(final Collection<ZoneId> zoneIds) {
+        update(currentState -> currentState.withSelectedZoneIds(getZoneIdSortKeys(currentState.getMainDateTime())
+                .sortedCopy(zoneIds)));
     }
 
     public void sortSelectedZoneIds() {
-        FXCollections.sort(selectedZoneIds.getValue(), selectedZoneIdOrdering);
+        selectZoneIds(getSelectedZoneIds());
+    }
+
+    /**
+     * Discards everything derived from the previous zone rules, re-sorts the selected zones by the current ones and
+     * publishes the change as {@link ApplicationState.Aspect#ZONE_RULES}. To be called once the zone rules provider
+     * has switched to a different tz database.
+     */
+    public void reloadZoneRules() {
+        zoneIdSortKeys = null;
+        zoneOffsetGrouping = null;
+        batch(() -> {
+            sortSelectedZoneIds();
+            update(ApplicationState::withNextZoneRulesGeneration);
+        });
+    }
+
+    public ZoneIdSortKeys getZoneIdSortKeys() {
+        return getZoneIdSortKeys(getMainDateTime());
+    }
+
+    /**
+     * @return the grouping of all zones by their offset at the main date and time, created on first use and moved
+     * along with the main date and time afterwards
+     */
+    public ZoneOffsetGrouping getZoneOffsetGrouping() {
+        final Instant mainInstant = getMainDateTime().toInstant();
+        if (zoneOffsetGrouping == null) {
+            zoneOffsetGrouping = ZoneOffsetGrouping.at(mainInstant);
+        } else {
+            zoneOffsetGrouping.moveTo(mainInstant);
+        }
+        return zoneOffsetGrouping;
+    }
+
+    private ZoneIdSortKeys getZoneIdSortKeys(final ZonedDateTime referenceDateTime) {
+        final Instant referenceInstant = referenceDateTime.toInstant();
+        if (zoneIdSortKeys == null || !referenceInstant.equals(zoneIdSortKeys.getReferenceInstant())) {
+            zoneIdSortKeys = ZoneIdSortKeys.at(referenceInstant);
+        }
+        return zoneIdSortKeys;
     }
 }
@@ -0,0 +1,143 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.model;
+
+import de.rkl.tools.tzconv.engine.ZoneSelection;
+
+import java.io.File;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of everything the user can change in the {@link ApplicationModel}. Modifying methods return a
+ * new snapshot sharing all unchanged parts with this one, which allows {@link #changedAspects(ApplicationState)} to
+ * compare by reference first.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class ApplicationState {
+    private final ZonedDateTime mainDateTime;
+    private final ZoneSelection selectedZoneIds;
+    private final File templateFile;
+    /**
+     * Name of the configured output format to render with, {@code null} for the default one.
+     */
+    private final String outputFormatName;
+    /**
+     * Counts the switches to a different tz database, so results computed from the previous zone rules can be told
+     * apart.
+     */
+    private final int zoneRulesGeneration;
+
+    public ApplicationState(final ZonedDateTime mainDateTime, final Collection<ZoneId> selectedZoneIds,
+                            final File templateFile, final String outputFormatName) {
+        this(mainDateTime, selectedZoneIds, templateFile, outputFormatName, 0);
+    }
+
+    private ApplicationState(final ZonedDateTime mainDateTime, final Collection<ZoneId> selectedZoneIds,
+                             final File templateFile, final String outputFormatName, final int zoneRulesGeneration) {
+        this.mainDateTime = mainDateTime;
+        this.selectedZoneIds = ZoneSelection.of(selectedZoneIds);
+        this.templateFile = templateFile;
+        this.outputFormatName = outputFormatName;
+        this.zoneRulesGeneration = zoneRulesGeneration;
+    }
+
+    public ZonedDateTime getMainDateTime() {
+        return mainDateTime;
+    }
+
+    public ZoneSelection getSelectedZoneIds() {
+        return selectedZoneIds;
+    }
+
+    public File getTemplateFile() {
+        return templateFile;
+    }
+
+    public String getOutputFormatName() {
+        return outputFormatName;
+    }
+
+    public int getZoneRulesGeneration() {
+        return zoneRulesGeneration;
+    }
+
+    public ApplicationState withMainDateTime(final ZonedDateTime newMainDateTime) {
+        return Objects.equals(mainDateTime, newMainDateTime) ? this : new ApplicationState(newMainDateTime,
+                selectedZoneIds, templateFile, outputFormatName, zoneRulesGeneration);
+    }
+
+    public ApplicationState withSelectedZoneIds(final Collection<ZoneId> newSelectedZoneIds) {
+        final ZoneSelection newSelection = ZoneSelection.of(newSelectedZoneIds);
+        return selectedZoneIds.equals(newSelection) ? this : new ApplicationState(mainDateTime, newSelection,
+                templateFile, outputFormatName, zoneRulesGeneration);
+    }
+
+    public ApplicationState withTemplateFile(final File newTemplateFile) {
+        return Objects.equals(templateFile, newTemplateFile) ? this : new ApplicationState(mainDateTime,
+                selectedZoneIds, newTemplateFile, outputFormatName, zoneRulesGeneration);
+    }
+
+    public ApplicationState withOutputFormatName(final String newOutputFormatName) {
+        return Objects.equals(outputFormatName, newOutputFormatName) ? this : new ApplicationState(mainDateTime,
+                selectedZoneIds, templateFile, newOutputFormatName, zoneRulesGeneration);
+    }
+
+    /**
+     * @return a snapshot marking that the zone rules have changed, with everything else unchanged
+     */
+    public ApplicationState withNextZoneRulesGeneration() {
+        return new ApplicationState(mainDateTime, selectedZoneIds, templateFile, outputFormatName,
+                zoneRulesGeneration + 1);
+    }
+
+    /**
+     * @return the aspects in which this snapshot differs from the given previous one; all aspects if there is none
+     */
+    public Set<Aspect> changedAspects(final ApplicationState previousState) {
+        if (previousState == null) {
+            return EnumSet.allOf(Aspect.class);
+        }
+        final Set<Aspect> changedAspects = EnumSet.noneOf(Aspect.class);
+        if (!Objects.equals(mainDateTime, previousState.mainDateTime)) {
+            changedAspects.add(Aspect.MAIN_DATE_TIME);
+        }
+        if (selectedZoneIds != previousState.selectedZoneIds && !selectedZoneIds.equals(previousState
+                .selectedZoneIds)) {
+            changedAspects.add(Aspect.SELECTED_ZONE_IDS);
+        }
+        if (!Objects.equals(templateFile, previousState.templateFile)) {
+            changedAspects.add(Aspect.TEMPLATE_FILE);
+        }
+        if (!Objects.equals(outputFormatName, previousState.outputFormatName)) {
+            changedAspects.add(Aspect.OUTPUT_FORMAT);
+        }
+        if (zoneRulesGeneration != previousState.zoneRulesGeneration) {
+            changedAspects.add(Aspect.ZONE_RULES);
+        }
+        return changedAspects;
+    }
+
+    public enum Aspect {
+        MAIN_DATE_TIME, SELECTED_ZONE_IDS, TEMPLATE_FILE, OUTPUT_FORMAT, ZONE_RULES
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.model;
+
+import com.google.common.collect.ImmutableList;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Grouping of all zones of the {@link ZoneOffsetIndex} by their actual offset at a movable instant. Every zone
+ * remembers the span its current offset is valid for; moving the instant only re-buckets the zones whose span it
+ * leaves, so following a date across a DST change touches just the zones that changed.
+ * <p>
+ * Not thread-safe; meant to be used from the JavaFX application thread.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class ZoneOffsetGrouping {
+    private final List<ZoneId> zoneIds;
+    private final ZoneRules[] zoneRules;
+    private final int[] offsetSeconds;
+    /**
+     * Each zone's current offset applies from {@code validFromEpochSeconds} (inclusive) until
+     * {@code validUntilEpochSeconds} (exclusive).
+     */
+    private final long[] validFromEpochSeconds;
+    private final long[] validUntilEpochSeconds;
+    /**
+     * Zone ordinals by offset seconds, in ascending offset order.
+     */
+    private final TreeMap<Integer, BitSet> ordinalsByOffsetSeconds;
+    private Instant instant;
+    private List<ZoneId> zoneIdsInOffsetOrder;
+
+    private ZoneOffsetGrouping(final List<ZoneId> zoneIds) {
+        this.zoneIds = zoneIds;
+        final int zoneCount = zoneIds.size();
+        zoneRules = new ZoneRules[zoneCount];
+        offsetSeconds = new int[zoneCount];
+        validFromEpochSeconds = new long[zoneCount];
+        validUntilEpochSeconds = new long[zoneCount];
+        ordinalsByOffsetSeconds = new TreeMap<>();
+        for (int ordinal = 0; ordinal < zoneCount; ordinal++) {
+            zoneRules[ordinal] = zoneIds.get(ordinal).getRules();
+        }
+    }
+
+    public static ZoneOffsetGrouping at(final Instant instant) {
+        final ZoneOffsetGrouping grouping = new ZoneOffsetGrouping(ZoneOffsetIndex.getZoneIds());
+        grouping.instant = instant;
+        final long epochSecond = instant.getEpochSecond();
+        for (int ordinal = 0; ordinal < grouping.zoneIds.size(); ordinal++) {
+            grouping.assignOffset(ordinal, epochSecond);
+        }
+        return grouping;
+    }
+
+    /**
+     * Moves the grouping to the given instant.
+     *
+     * @return the number of zones whose offset changed
+     */
+    public int moveTo(final Instant newInstant) {
+        if (newInstant.equals(instant)) {
+            return 0;
+        }
+        instant = newInstant;
+        final long epochSecond = newInstant.getEpochSecond();
+        int movedZoneCount = 0;
+        for (int ordinal = 0; ordinal < zoneIds.size(); ordinal++) {
+            if (epochSecond < validFromEpochSeconds[ordinal] || epochSecond >= validUntilEpochSeconds[ordinal]) {
+                final int previousOffsetSeconds = offsetSeconds[ordinal];
+                removeFromGroup(ordinal, previousOffsetSeconds);
+                assignOffset(ordinal, epochSecond);
+                if (offsetSeconds[ordinal] != previousOffsetSeconds) {
+                    movedZoneCount++;
+                }
+            }
+        }
+        if (movedZoneCount > 0) {
+            zoneIdsInOffsetOrder = null;
+        }
+        return movedZoneCount;
+    }
+
+    public Instant getInstant() {
+        return instant;
+    }
+
+    /**
+     * @return the zone's offset at the current instant; zones outside the index are looked up in their rules
+     */
+    public ZoneOffset getOffset(final ZoneId zoneId) {
+        final int ordinal = ZoneOffsetIndex.indexOf(zoneId);
+        return ordinal < 0 ? zoneId.getRules().getOffset(instant) : ZoneOffset.ofTotalSeconds(offsetSeconds[ordinal]);
+    }
+
+    /**
+     * @return all zones ordered by their offset at the current instant, and within an offset by their index order
+     */
+    public List<ZoneId> getZoneIdsInOffsetOrder() {
+        if (zoneIdsInOffsetOrder == null) {
+            final ImmutableList.Builder<ZoneId> zoneIdsBuilder = ImmutableList.builder();
+            for (final BitSet ordinals : ordinalsByOffsetSeconds.values()) {
+                ordinals.stream().forEach(ordinal -> zoneIdsBuilder.add(zoneIds.get(ordinal)));
+            }
+            zoneIdsInOffsetOrder = zoneIdsBuilder.build();
+        }
+        return zoneIdsInOffsetOrder;
+    }
+
+    private void assignOffset(final int ordinal, final long epochSecond) {
+        final ZoneRules rules = zoneRules[ordinal];
+        final Instant assignedInstant = Instant.ofEpochSecond(epochSecond);
+        offsetSeconds[ordinal] = rules.getOffset(assignedInstant).getTotalSeconds();
+        // The previous transition is the last one at or before the instant, hence the probe one second later
+        final ZoneOffsetTransition previousTransition = rules.previousTransition(assignedInstant.plusSeconds(1));
+        final ZoneOffsetTransition nextTransition = rules.nextTransition(assignedInstant);
+        validFromEpochSeconds[ordinal] = previousTransition == null ? Long.MIN_VALUE : previousTransition
+                .toEpochSecond();
+        validUntilEpochSeconds[ordinal] = nextTransition == null ? Long.MAX_VALUE : nextTransition.toEpochSecond();
+        ordinalsByOffsetSeconds.computeIfAbsent(offsetSeconds[ordinal], offset -> new BitSet()).set(ordinal);
+    }
+
+    private void removeFromGroup(final int ordinal, final int groupOffsetSeconds) {
+        final BitSet ordinals = ordinalsByOffsetSeconds.get(groupOffsetSeconds);
+        ordinals.clear(ordinal);
+        if (ordinals.isEmpty()) {
+            ordinalsByOffsetSeconds.remove(groupOffsetSeconds);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.model;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.SortedSetMultimap;
+import com.google.common.collect.TreeMultimap;
+import de.rkl.tools.tzconv.engine.ZoneSelection;
+import de.rkl.tools.tzconv.engine.ZoneTable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRulesProvider;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Grouping of all available zones by their standard offset, ordered by offset and name. The grouping is generated at
+ * build time by {@link ZoneOffsetIndexGenerator} and loaded on first access. If the generated resource is missing or
+ * was produced from a different tz database than the one in effect, it is computed from the zone rules instead.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class ZoneOffsetIndex {
+    static final String INDEX_RESOURCE_NAME = "/zoneOffsetIndex.txt";
+    private static final String VERSION_PREFIX = "# tzdb ";
+    private static final String ZONE_COUNT_PREFIX = "# zones ";
+    private static final char FIELD_DELIMITER = ' ';
+    private static final String VERSION_REFERENCE_ZONE_ID = "UTC";
+
+    private static volatile Snapshot snapshot;
+
+    private ZoneOffsetIndex() {
+    }
+
+    public static SetMultimap<ZoneOffset, ZoneId> getZoneOffsets2ZoneIds() {
+        return getSnapshot().zoneOffsets2ZoneIds;
+    }
+
+    /**
+     * @return all zones in index order, i.e. by offset and name
+     */
+    public static ZoneSelection getZoneIds() {
+        return getSnapshot().zoneIds;
+    }
+
+    /**
+     * @return the zone's position in {@link #getZoneIds()}, or {@code -1} if the zone is not part of the index
+     */
+    public static int indexOf(final ZoneId zoneId) {
+        final int[] positionsByOrdinal = getSnapshot().positionsByOrdinal;
+        final int ordinal = ZoneTable.getInstance().getOrdinal(zoneId);
+        return ordinal >= 0 && ordinal < positionsByOrdinal.length ? positionsByOrdinal[ordinal] : -1;
+    }
+
+    /**
+     * Discards the grouping, so it is loaded again on next access. To be called once the zone rules provider has
+     * switched to a different tz database.
+     */
+    public static synchronized void invalidate() {
+        snapshot = null;
+    }
+
+    private static Snapshot getSnapshot() {
+        final Snapshot currentSnapshot = snapshot;
+        return currentSnapshot != null ? currentSnapshot : loadSnapshot();
+    }
+
+    private static synchronized Snapshot loadSnapshot() {
+        if (snapshot == null) {
+            snapshot = new Snapshot(loadZoneOffsets2ZoneIds());
+        }
+        return snapshot;
+    }
+
+    static String getTzdbVersion() {
+        return ZoneRulesProvider.getVersions(VERSION_REFERENCE_ZONE_ID).lastKey();
+    }
+
+    static SetMultimap<ZoneOffset, ZoneId> computeZoneOffsets2ZoneIds(final Instant referenceInstant) {
+        final SortedSetMultimap<ZoneOffset, ZoneId> zoneIdMap = TreeMultimap.create(Ordering.natural().reverse(),
+                Ordering.natural().onResultOf(ZoneId::getId));
+        ZoneId.getAvailableZoneIds().forEach(zoneId -> {
+            final ZoneId zoneIdObject = ZoneId.of(zoneId);
+            zoneIdMap.put(zoneIdObject.getRules().getStandardOffset(referenceInstant), zoneIdObject);
+        });
+        return ImmutableSetMultimap.copyOf(zoneIdMap);
+    }
+
+    static void write(final SetMultimap<ZoneOffset, ZoneId> zoneOffsets2ZoneIds, final Writer writer) throws
+            IOException {
+        writer.append(VERSION_PREFIX).append(getTzdbVersion()).append('\n');
+        writer.append(ZONE_COUNT_PREFIX).append(String.valueOf(zoneOffsets2ZoneIds.size())).append('\n');
+        for (final Map.Entry<ZoneOffset, Collection<ZoneId>> offsetEntry : zoneOffsets2ZoneIds.asMap().entrySet()) {
+            writer.append(String.valueOf(offsetEntry.getKey().getTotalSeconds()));
+            for (final ZoneId zoneId : offsetEntry.getValue()) {
+                writer.append(FIELD_DELIMITER).append(zoneId.getId());
+            }
+            writer.append('\n');
+        }
+    }
+
+    /**
+     * @return the generated grouping, or {@code null} if the index does not match the running JVM's tz database
+     */
+    static SetMultimap<ZoneOffset, ZoneId> read(final BufferedReader reader) throws IOException {
+        final String versionLine = reader.readLine();
+        final String zoneCountLine = reader.readLine();
+        if (versionLine == null || zoneCountLine == null || !versionLine.equals(VERSION_PREFIX + getTzdbVersion())
+                || !zoneCountLine.equals(ZONE_COUNT_PREFIX + ZoneId.getAvailableZoneIds().size())) {
+            return null;
+        }
+        final ImmutableSetMultimap.Builder<ZoneOffset, ZoneId> zoneIdMapBuilder = ImmutableSetMultimap.builder();
+        String offsetLine;
+        while ((offsetLine = reader.readLine()) != null) {
+            int fieldStart = offsetLine.indexOf(FIELD_DELIMITER);
+            final ZoneOffset offset = ZoneOffset.ofTotalSeconds(Integer.parseInt(offsetLine.substring(0,
+                    fieldStart)));
+            while (fieldStart >= 0) {
+                final int fieldEnd = offsetLine.indexOf(FIELD_DELIMITER, fieldStart + 1);
+                zoneIdMapBuilder.put(offset, ZoneId.of(offsetLine.substring(fieldStart + 1, fieldEnd < 0 ?
+                        offsetLine.length() : fieldEnd)));
+                fieldStart = fieldEnd;
+            }
+        }
+        return zoneIdMapBuilder.build();
+    }
+
+    private static SetMultimap<ZoneOffset, ZoneId> loadZoneOffsets2ZoneIds() {
+        try (final InputStream indexStream = ZoneOffsetIndex.class.getResourceAsStream(INDEX_RESOURCE_NAME)) {
+            if (indexStream != null) {
+                final SetMultimap<ZoneOffset, ZoneId> generatedIndex = read(new BufferedReader(new
+                        InputStreamReader(indexStream, UTF_8)));
+                if (generatedIndex != null) {
+                    return generatedIndex;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return computeZoneOffsets2ZoneIds(Instant.now());
+    }
+
+    /**
+     * @return each zone's position in the given selection, indexed by its {@link ZoneTable} ordinal; {@code -1} for
+     * zones not selected
+     */
+    private static int[] assignPositions(final ZoneSelection zoneIds) {
+        final int[] positionsByOrdinal = new int[ZoneTable.getInstance().size()];
+        Arrays.fill(positionsByOrdinal, -1);
+        for (int position = 0; position < zoneIds.size(); position++) {
+            final int ordinal = zoneIds.getOrdinal(position);
+            if (ordinal < positionsByOrdinal.length) {
+                positionsByOrdinal[ordinal] = position;
+            }
+        }
+        return positionsByOrdinal;
+    }
+
+    private static final class Snapshot {
+        private final SetMultimap<ZoneOffset, ZoneId> zoneOffsets2ZoneIds;
+        private final ZoneSelection zoneIds;
+        private final int[] positionsByOrdinal;
+
+        private Snapshot(final SetMultimap<ZoneOffset, ZoneId> zoneOffsets2ZoneIds) {
+            this.zoneOffsets2ZoneIds = zoneOffsets2ZoneIds;
+            zoneIds = ZoneSelection.of(zoneOffsets2ZoneIds.values());
+            positionsByOrdinal = assignPositions(zoneIds);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes the resource read by {@link ZoneOffsetIndex}. Invoked by the build with the class output directory as its
+ * only argument.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class ZoneOffsetIndexGenerator {
+    private ZoneOffsetIndexGenerator() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final Path indexFile = Paths.get(args[0], ZoneOffsetIndex.INDEX_RESOURCE_NAME.substring(1));
+        Files.createDirectories(indexFile.getParent());
+        try (final Writer writer = Files.newBufferedWriter(indexFile, UTF_8)) {
+            ZoneOffsetIndex.write(ZoneOffsetIndex.computeZoneOffsets2ZoneIds(Instant.now()), writer);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.model;
+
+import de.rkl.tools.tzconv.engine.ZoneOffsetTables;
+import de.rkl.tools.tzconv.tzdb.SwitchableZoneRulesProvider;
+import de.rkl.tools.tzconv.tzdb.TzdbFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.zone.ZoneRulesProvider;
+
+/**
+ * Switches the application to a different tz database file and invalidates everything computed from the previous
+ * zone rules: the offset tables, the zone indexes and the model's sort keys and offset grouping. Requires
+ * {@link SwitchableZoneRulesProvider} to be installed.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@Component
+public class ZoneRulesSwitcher {
+    @SuppressWarnings("unused")
+    @Autowired
+    private ApplicationModel applicationModel;
+    @SuppressWarnings("unused")
+    @Autowired
+    private ZoneOffsetTables zoneOffsetTables;
+
+    public boolean isSwitchable() {
+        return SwitchableZoneRulesProvider.getInstance() != null;
+    }
+
+    /**
+     * @return the version of the tz database in effect
+     */
+    public String getTzdbVersion() {
+        return ZoneOffsetIndex.getTzdbVersion();
+    }
+
+    /**
+     * Must be called on the JavaFX application thread, as it notifies the model's listeners.
+     *
+     * @return the newly active file
+     * @throws IllegalStateException if {@link SwitchableZoneRulesProvider} is not installed
+     */
+    public TzdbFile switchTo(final Path tzdbPath) throws IOException {
+        final SwitchableZoneRulesProvider zoneRulesProvider = SwitchableZoneRulesProvider.getInstance();
+        if (zoneRulesProvider == null) {
+            throw new IllegalStateException("Zone rules can only be switched with " + SwitchableZoneRulesProvider
+                    .class.getSimpleName() + " installed");
+        }
+        final TzdbFile tzdbFile = zoneRulesProvider.switchTo(tzdbPath);
+        ZoneRulesProvider.refresh();
+        zoneOffsetTables.invalidateAll();
+        ZoneOffsetIndex.invalidate();
+        ZoneSearchIndex.invalidate();
+        applicationModel.reloadZoneRules();
+        return tzdbFile;
+    }
+}
@@ -0,0 +1,369 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.model;
+
+import com.google.common.collect.ImmutableList;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * Type-ahead search over the zones of the {@link ZoneOffsetIndex}. Every zone is indexed under its ID, the segments
+ * and words of its ID (i.e. region and city), its common abbreviations and its standard and daylight saving offsets;
+ * additionally, the trigrams of its ID allow matches in the middle of it. Terms and trigrams map to sorted arrays of
+ * zone ordinals, so a query is answered by binary searches and merges over primitive arrays without looking at the
+ * zones themselves. Scores are only kept for the zones a query hits, in arrays reused by the querying thread, so a
+ * keystroke neither allocates nor scans per zone of the index.
+ * <p>
+ * Immutable and thread-safe.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class ZoneSearchIndex {
+    private static final int WEIGHT_SUBSTRING = 1;
+    private static final int WEIGHT_WORD = 2;
+    private static final int WEIGHT_OFFSET = 2;
+    private static final int WEIGHT_NAME = 3;
+    private static final int WEIGHT_ABBREVIATION = 4;
+    private static final int EXACT_MATCH_BONUS = 4;
+    private static final int MAX_SCORE = WEIGHT_ABBREVIATION + EXACT_MATCH_BONUS;
+    private static final int GRAM_LENGTH = 3;
+    private static final int RANK_SCORE_SHIFT = 40;
+    private static final int RANK_LENGTH_SHIFT = 20;
+    private static final int RANK_ORDINAL_MASK = (1 << RANK_LENGTH_SHIFT) - 1;
+    private static final int SECONDS_PER_HOUR = 3_600;
+    private static final int SECONDS_PER_MINUTE = 60;
+
+    private static volatile ZoneSearchIndex instance;
+
+    private final List<ZoneId> zoneIds;
+    private final String[] normalizedZoneIds;
+    /**
+     * Sorted, so all terms starting with a prefix form a contiguous range.
+     */
+    private final String[] terms;
+    private final byte[] termWeights;
+    private final int[][] termPostings;
+    /**
+     * Trigrams packed into longs, sorted.
+     */
+    private final long[] grams;
+    private final int[][] gramPostings;
+    private final ThreadLocal<ScoreAccumulator> scoreAccumulators;
+
+    private ZoneSearchIndex(final List<ZoneId> zoneIds, final Instant referenceInstant) {
+        this.zoneIds = zoneIds;
+        normalizedZoneIds = new String[zoneIds.size()];
+        final Map<String, BitSet> termOrdinals = new TreeMap<>();
+        final Map<String, Integer> termWeightsByTerm = new TreeMap<>();
+        final Map<Long, BitSet> gramOrdinals = new TreeMap<>();
+        for (int ordinal = 0; ordinal < zoneIds.size(); ordinal++) {
+            final ZoneId zoneId = zoneIds.get(ordinal);
+            final String normalizedZoneId = normalize(zoneId.getId());
+            normalizedZoneIds[ordinal] = normalizedZoneId;
+            addTerm(termOrdinals, termWeightsByTerm, normalizedZoneId, WEIGHT_NAME, ordinal);
+            for (final String segment : normalizedZoneId.split("/")) {
+                addTerm(termOrdinals, termWeightsByTerm, segment, WEIGHT_NAME, ordinal);
+                for (final String word : segment.split("[ -]")) {
+                    addTerm(termOrdinals, termWeightsByTerm, word, WEIGHT_WORD, ordinal);
+                }
+            }
+            addAbbreviations(termOrdinals, termWeightsByTerm, zoneId, ordinal);
+            addOffsets(termOrdinals, termWeightsByTerm, zoneId.getRules(), referenceInstant, ordinal);
+            for (int gramStart = 0; gramStart + GRAM_LENGTH <= normalizedZoneId.length(); gramStart++) {
+                gramOrdinals.computeIfAbsent(packGram(normalizedZoneId, gramStart), gram -> new BitSet()).set
+                        (ordinal);
+            }
+        }
+        terms = termOrdinals.keySet().toArray(new String[0]);
+        termWeights = new byte[terms.length];
+        termPostings = new int[terms.length][];
+        for (int termIndex = 0; termIndex < terms.length; termIndex++) {
+            termWeights[termIndex] = termWeightsByTerm.get(terms[termIndex]).byteValue();
+            termPostings[termIndex] = termOrdinals.get(terms[termIndex]).stream().toArray();
+        }
+        grams = new long[gramOrdinals.size()];
+        gramPostings = new int[grams.length][];
+        int gramIndex = 0;
+        for (final Map.Entry<Long, BitSet> gramEntry : gramOrdinals.entrySet()) {
+            grams[gramIndex] = gramEntry.getKey();
+            gramPostings[gramIndex++] = gramEntry.getValue().stream().toArray();
+        }
+        scoreAccumulators = ThreadLocal.withInitial(() -> new ScoreAccumulator(zoneIds.size()));
+    }
+
+    public static ZoneSearchIndex getInstance() {
+        final ZoneSearchIndex currentInstance = instance;
+        return currentInstance != null ? currentInstance : createInstance();
+    }
+
+    /**
+     * Never blocks, so it can be called on the JavaFX application thread.
+     *
+     * @return the shared index, or {@code null} if it has not been built since it was last invalidated
+     */
+    public static ZoneSearchIndex getBuiltInstance() {
+        return instance;
+    }
+
+    /**
+     * Discards the shared index, so it is built again from {@link ZoneOffsetIndex} on next access.
+     */
+    public static synchronized void invalidate() {
+        instance = null;
+    }
+
+    private static synchronized ZoneSearchIndex createInstance() {
+        if (instance == null) {
+            instance = create(ZoneOffsetIndex.getZoneIds(), Instant.now());
+        }
+        return instance;
+    }
+
+    /**
+     * @param referenceInstant the instant whose standard and daylight saving offsets are indexed
+     */
+    public static ZoneSearchIndex create(final List<ZoneId> zoneIds, final Instant referenceInstant) {
+        return new ZoneSearchIndex(ImmutableList.copyOf(zoneIds), referenceInstant);
+    }
+
+    private static void addTerm(final Map<String, BitSet> termOrdinals, final Map<String, Integer> termWeightsByTerm,
+                                final String term, final int weight, final int ordinal) {
+        if (term.isEmpty()) {
+            return;
+        }
+        termOrdinals.computeIfAbsent(term, newTerm -> new BitSet()).set(ordinal);
+        termWeightsByTerm.merge(term, weight, Math::max);
+    }
+
+    private static void addAbbreviations(final Map<String, BitSet> termOrdinals,
+                                         final Map<String, Integer> termWeightsByTerm, final ZoneId zoneId,
+                                         final int ordinal) {
+        final TimeZone timeZone = TimeZone.getTimeZone(zoneId);
+        for (final boolean daylight : new boolean[]{false, true}) {
+            final String abbreviation = timeZone.getDisplayName(daylight, TimeZone.SHORT, Locale.ENGLISH);
+            // Zones without an abbreviation are shown as GMT+hh:mm, which the offsets already cover
+            if (!abbreviation.startsWith("GMT+") && !abbreviation.startsWith("GMT-")) {
+                addTerm(termOrdinals, termWeightsByTerm, normalize(abbreviation), WEIGHT_ABBREVIATION, ordinal);
+            }
+        }
+    }
+
+    private static void addOffsets(final Map<String, BitSet> termOrdinals, final Map<String, Integer> termWeightsByTerm,
+                                   final ZoneRules zoneRules, final Instant referenceInstant, final int ordinal) {
+        addTerm(termOrdinals, termWeightsByTerm, formatOffset(zoneRules.getStandardOffset(referenceInstant)),
+                WEIGHT_OFFSET, ordinal);
+        addTerm(termOrdinals, termWeightsByTerm, formatOffset(zoneRules.getOffset(referenceInstant)), WEIGHT_OFFSET,
+                ordinal);
+        final ZoneOffsetTransition nextTransition = zoneRules.nextTransition(referenceInstant);
+        if (nextTransition != null) {
+            addTerm(termOrdinals, termWeightsByTerm, formatOffset(nextTransition.getOffsetAfter()), WEIGHT_OFFSET,
+                    ordinal);
+        }
+    }
+
+    /**
+     * @return the offset as {@code +hh:mm}, also for UTC
+     */
+    private static String formatOffset(final ZoneOffset offset) {
+        return offset.equals(ZoneOffset.UTC) ? "+00:00" : offset.getId().substring(0, 6);
+    }
+
+    private static String normalize(final String text) {
+        return text.trim().toLowerCase(Locale.ROOT).replace('_', ' ');
+    }
+
+    /**
+     * Normalizes the query like the indexed terms. Offsets may be given as {@code +5}, {@code +0530},
+     * {@code UTC+5:30} and similar and are rewritten to the indexed {@code +hh:mm} form, or a prefix of it.
+     */
+    static String normalizeQuery(final String query) {
+        final String normalizedQuery = normalize(query);
+        final String offsetQuery = normalizedQuery.startsWith("utc") || normalizedQuery.startsWith("gmt") ?
+                normalizedQuery.substring(3).trim() : normalizedQuery;
+        if (offsetQuery.length() < 2 || offsetQuery.charAt(0) != '+' && offsetQuery.charAt(0) != '-') {
+            return normalizedQuery;
+        }
+        final int colon = offsetQuery.indexOf(':');
+        final String digits = colon < 0 ? offsetQuery.substring(1) : offsetQuery.substring(1, colon) + offsetQuery
+                .substring(colon + 1);
+        final int hourDigits = colon >= 0 ? colon - 1 : digits.length() <= 2 ? digits.length() : digits.length() - 2;
+        if (digits.isEmpty() || digits.length() > 4 || hourDigits < 1 || hourDigits > 2 || !digits.chars().allMatch
+                (Character::isDigit)) {
+            return normalizedQuery;
+        }
+        final StringBuilder offsetTerm = new StringBuilder(6).append(offsetQuery.charAt(0));
+        if (hourDigits == 1) {
+            offsetTerm.append('0');
+        }
+        offsetTerm.append(digits, 0, hourDigits);
+        if (digits.length() > hourDigits || colon >= 0) {
+            offsetTerm.append(':').append(digits, hourDigits, digits.length());
+        }
+        return offsetTerm.toString();
+    }
+
+    private static long packGram(final CharSequence text, final int gramStart) {
+        long gram = 0;
+        for (int index = gramStart; index < gramStart + GRAM_LENGTH; index++) {
+            gram = gram << Character.SIZE | text.charAt(index);
+        }
+        return gram;
+    }
+
+    /**
+     * @return up to {@code maxResults} zones matching the query, best matches first
+     */
+    public List<ZoneId> search(final String query, final int maxResults) {
+        final int[] ordinals = searchOrdinals(query, maxResults);
+        final ImmutableList.Builder<ZoneId> resultBuilder = ImmutableList.builderWithExpectedSize(ordinals.length);
+        for (final int ordinal : ordinals) {
+            resultBuilder.add(zoneIds.get(ordinal));
+        }
+        return resultBuilder.build();
+    }
+
+    /**
+     * Ranks exact matches of a term above prefix matches, abbreviations above names above single words and offsets,
+     * and all of those above matches inside a zone's ID. Equally ranked zones are ordered by the length of their ID
+     * and then by their ordinal.
+     *
+     * @return the ordinals of up to {@code maxResults} zones matching the query, best matches first
+     */
+    public int[] searchOrdinals(final String query, final int maxResults) {
+        final String normalizedQuery = normalizeQuery(query);
+        if (normalizedQuery.isEmpty()) {
+            return new int[0];
+        }
+        final ScoreAccumulator scoreAccumulator = scoreAccumulators.get();
+        scoreAccumulator.clear();
+        for (int termIndex = lowerBound(normalizedQuery); termIndex < terms.length && terms[termIndex].startsWith
+                (normalizedQuery); termIndex++) {
+            final int score = termWeights[termIndex] + (terms[termIndex].length() == normalizedQuery.length() ?
+                    EXACT_MATCH_BONUS : 0);
+            for (final int ordinal : termPostings[termIndex]) {
+                scoreAccumulator.addScore(ordinal, score);
+            }
+        }
+        if (normalizedQuery.length() >= GRAM_LENGTH) {
+            addSubstringMatches(normalizedQuery, scoreAccumulator);
+        }
+        return rank(scoreAccumulator, maxResults);
+    }
+
+    private int lowerBound(final String prefix) {
+        final int searchResult = Arrays.binarySearch(terms, prefix);
+        return searchResult >= 0 ? searchResult : -searchResult - 1;
+    }
+
+    /**
+     * Zones containing every trigram of the query are candidates, which are then checked for the whole query.
+     */
+    private void addSubstringMatches(final String normalizedQuery, final ScoreAccumulator scoreAccumulator) {
+        final int gramCount = normalizedQuery.length() - GRAM_LENGTH + 1;
+        for (int gramStart = 0; gramStart < gramCount; gramStart++) {
+            final int gramIndex = Arrays.binarySearch(grams, packGram(normalizedQuery, gramStart));
+            if (gramIndex < 0) {
+                return;
+            }
+            for (final int ordinal : gramPostings[gramIndex]) {
+                // Repeated trigrams of the query are counted once per occurrence, but so is every candidate
+                scoreAccumulator.addGram(ordinal);
+            }
+        }
+        for (int hitIndex = 0; hitIndex < scoreAccumulator.hitCount; hitIndex++) {
+            final int ordinal = scoreAccumulator.hitOrdinals[hitIndex];
+            if (scoreAccumulator.gramCounts[ordinal] == gramCount && scoreAccumulator.scores[ordinal] <
+                    WEIGHT_SUBSTRING && normalizedZoneIds[ordinal].contains(normalizedQuery)) {
+                scoreAccumulator.scores[ordinal] = WEIGHT_SUBSTRING;
+            }
+        }
+    }
+
+    private int[] rank(final ScoreAccumulator scoreAccumulator, final int maxResults) {
+        final long[] rankKeys = new long[scoreAccumulator.hitCount];
+        int matchCount = 0;
+        for (int hitIndex = 0; hitIndex < scoreAccumulator.hitCount; hitIndex++) {
+            final int ordinal = scoreAccumulator.hitOrdinals[hitIndex];
+            final int score = scoreAccumulator.scores[ordinal];
+            if (score > 0) {
+                rankKeys[matchCount++] = (long) (MAX_SCORE - score) << RANK_SCORE_SHIFT | (long)
+                        normalizedZoneIds[ordinal].length() << RANK_LENGTH_SHIFT | ordinal;
+            }
+        }
+        Arrays.sort(rankKeys, 0, matchCount);
+        final int[] rankedOrdinals = new int[Math.min(matchCount, maxResults)];
+        for (int rank = 0; rank < rankedOrdinals.length; rank++) {
+            rankedOrdinals[rank] = (int) (rankKeys[rank] & RANK_ORDINAL_MASK);
+        }
+        return rankedOrdinals;
+    }
+
+    /**
+     * The scores and trigram counts of one query, indexed by ordinal, together with the ordinals hit so far. Clearing
+     * only resets the hit ordinals, so reusing it costs time in proportion to the previous query's hits.
+     */
+    private static final class ScoreAccumulator {
+        private final int[] scores;
+        private final int[] gramCounts;
+        private final int[] hitOrdinals;
+        private int hitCount;
+
+        private ScoreAccumulator(final int zoneCount) {
+            scores = new int[zoneCount];
+            gramCounts = new int[zoneCount];
+            hitOrdinals = new int[zoneCount];
+        }
+
+        private void clear() {
+            for (int hitIndex = 0; hitIndex < hitCount; hitIndex++) {
+                scores[hitOrdinals[hitIndex]] = 0;
+                gramCounts[hitOrdinals[hitIndex]] = 0;
+            }
+            hitCount = 0;
+        }
+
+        private void addScore(final int ordinal, final int score) {
+            addHit(ordinal);
+            scores[ordinal] = Math.max(scores[ordinal], score);
+        }
+
+        private void addGram(final int ordinal) {
+            addHit(ordinal);
+            gramCounts[ordinal]++;
+        }
+
+        /**
+         * Scores and counts only ever grow from zero, so an ordinal with neither has not been hit yet.
+         */
+        private void addHit(final int ordinal) {
+            if (scores[ordinal] == 0 && gramCounts[ordinal] == 0) {
+                hitOrdinals[hitCount++] = ordinal;
+            }
+        }
+    }
+}
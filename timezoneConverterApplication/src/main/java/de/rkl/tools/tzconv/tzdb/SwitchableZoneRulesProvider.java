@@ -0,0 +1,146 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.tzdb;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.zone.ZoneRules;
+import java.time.zone.ZoneRulesException;
+import java.time.zone.ZoneRulesProvider;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Replaces the JVM's tz database by a {@link TzdbFile} which can be switched at runtime. Installed as the JVM's
+ * default provider with
+ * <p>
+ * {@code -Djava.time.zone.DefaultZoneRulesProvider=de.rkl.tools.tzconv.tzdb.SwitchableZoneRulesProvider}
+ * <p>
+ * it starts with the file named by {@value #PROPERTY_TZDB_FILE}, or with the JVM's own tz database without it. The
+ * provider keeps {@link java.time.ZoneId}s from caching its rules, so after {@link #switchTo(Path)} every rule lookup
+ * sees the new file. The set of zone IDs is fixed when the JVM registers the provider; zones missing from a later
+ * file keep the rules of the initial one. {@link java.util.TimeZone} reads the JVM's tz database itself and is not
+ * affected.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class SwitchableZoneRulesProvider extends ZoneRulesProvider {
+    public static final String PROPERTY_TZDB_FILE = "timezoneConverter.tzdbFile";
+
+    private static volatile SwitchableZoneRulesProvider instance;
+
+    private final TzdbFile initialTzdbFile;
+    private final AtomicBoolean refreshPending;
+    private volatile TzdbFile tzdbFile;
+
+    /**
+     * Invoked by {@link ZoneRulesProvider} while it initializes; must not use any zone rules itself.
+     */
+    public SwitchableZoneRulesProvider() {
+        initialTzdbFile = openInitialTzdbFile();
+        tzdbFile = initialTzdbFile;
+        refreshPending = new AtomicBoolean();
+        instance = this;
+    }
+
+    /**
+     * @return the installed provider, or {@code null} if the JVM runs with its default one
+     */
+    public static SwitchableZoneRulesProvider getInstance() {
+        // Registering the default provider happens on first use of any zone rules
+        ZoneRulesProvider.getAvailableZoneIds();
+        return instance;
+    }
+
+    private static TzdbFile openInitialTzdbFile() {
+        final String configuredTzdbFile = System.getProperty(PROPERTY_TZDB_FILE);
+        if (configuredTzdbFile != null) {
+            try {
+                return TzdbFile.open(Paths.get(configuredTzdbFile));
+            } catch (IOException | ZoneRulesException e) {
+                System.err.printf("tz database %s could not be read, using the JVM's: %s%n", configuredTzdbFile, e);
+            }
+        }
+        try {
+            return TzdbFile.open(TzdbFile.getJvmTzdbPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public TzdbFile getTzdbFile() {
+        return tzdbFile;
+    }
+
+    /**
+     * Makes the given file the source of all zone rules from now on.
+     *
+     * @return the newly active file
+     */
+    public TzdbFile switchTo(final Path path) throws IOException {
+        final TzdbFile newTzdbFile = TzdbFile.open(path);
+        tzdbFile = newTzdbFile;
+        refreshPending.set(true);
+        return newTzdbFile;
+    }
+
+    @Override
+    protected Set<String> provideZoneIds() {
+        return initialTzdbFile.getZoneIds();
+    }
+
+    /**
+     * Returns {@code null} when asked for rules to be cached, so zone IDs always come back for the current ones.
+     */
+    @Override
+    protected ZoneRules provideRules(final String zoneId, final boolean forCaching) {
+        if (forCaching) {
+            return null;
+        }
+        final ZoneRules rules = tzdbFile.getRules(zoneId);
+        if (rules != null) {
+            return rules;
+        }
+        final ZoneRules initialRules = initialTzdbFile.getRules(zoneId);
+        if (initialRules == null) {
+            throw new ZoneRulesException("Unknown time-zone ID: " + zoneId);
+        }
+        return initialRules;
+    }
+
+    @Override
+    protected NavigableMap<String, ZoneRules> provideVersions(final String zoneId) {
+        final TreeMap<String, ZoneRules> versions = new TreeMap<>();
+        final TzdbFile currentTzdbFile = tzdbFile;
+        final ZoneRules rules = currentTzdbFile.getRules(zoneId);
+        if (rules != null) {
+            versions.put(currentTzdbFile.getVersion(), rules);
+        } else {
+            versions.put(initialTzdbFile.getVersion(), provideRules(zoneId, false));
+        }
+        return versions;
+    }
+
+    @Override
+    protected boolean provideRefresh() {
+        return refreshPending.getAndSet(false);
+    }
+}
@@ -0,0 +1,472 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.tzdb;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransitionRule.TimeDefinition;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.temporal.TemporalAdjusters.nextOrSame;
+import static java.time.temporal.TemporalAdjusters.previousOrSame;
+
+/**
+ * Compiles IANA tz database source files ({@code africa}, {@code europe}, {@code backward}, ...) into a file
+ * {@link TzdbFile} can load. {@code Rule}, {@code Zone} and {@code Link} lines are understood as described in zic(8),
+ * with the JDK's restrictions: a rule given as {@code Sun<=25} becomes {@code Sun>=19}, and lines which are not
+ * needed to compute offsets, such as {@code Leap}, are ignored. The abbreviated form of {@code tzdata.zi} is accepted
+ * as well.
+ * <p>
+ * Usage: {@code TzdataCompiler --version=2024b outputFile sourceFile...}
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class TzdataCompiler {
+    private static final String OPTION_VERSION = "--version=";
+    private static final String COMMENT_START = "#";
+    private static final String FIELD_SEPARATOR = "\\s+";
+    private static final String NONE = "-";
+    private static final String YEAR_ONLY = "only";
+    private static final String YEAR_MAXIMUM = "maximum";
+    private static final String YEAR_MINIMUM = "minimum";
+    private static final String DAY_LAST = "last";
+    private static final String DAY_ON_OR_AFTER = ">=";
+    private static final String DAY_ON_OR_BEFORE = "<=";
+    private static final int SECONDS_PER_MINUTE = 60;
+    private static final int SECONDS_PER_HOUR = 3_600;
+    private static final int DAYS_PER_WEEK = 7;
+    /**
+     * Field counts of the entries, excluding the optional UNTIL fields of a zone line.
+     */
+    private static final int RULE_FIELD_COUNT = 10;
+    private static final int ZONE_FIELD_COUNT = 5;
+    private static final int CONTINUATION_FIELD_COUNT = 3;
+    private static final int LINK_FIELD_COUNT = 3;
+
+    private final Map<String, List<RuleLine>> rulesByName;
+    private final Map<String, List<ZoneLine>> zoneLinesById;
+    /**
+     * Maps each link name to its target.
+     */
+    private final Map<String, String> links;
+
+    public TzdataCompiler() {
+        rulesByName = new HashMap<>();
+        zoneLinesById = new LinkedHashMap<>();
+        links = new HashMap<>();
+    }
+
+    public static void main(final String[] args) throws IOException {
+        String version = null;
+        final List<String> paths = new ArrayList<>();
+        for (final String argument : args) {
+            if (argument.startsWith(OPTION_VERSION)) {
+                version = argument.substring(OPTION_VERSION.length());
+            } else {
+                paths.add(argument);
+            }
+        }
+        if (version == null || paths.size() < 2) {
+            System.err.println("Usage: TzdataCompiler --version=2024b outputFile sourceFile...");
+            System.exit(1);
+        }
+        final TzdataCompiler compiler = new TzdataCompiler();
+        for (final String sourceFile : paths.subList(1, paths.size())) {
+            compiler.parse(Paths.get(sourceFile));
+        }
+        final SortedMap<String, TzdbFormat.ZoneRulesData> zones = compiler.compile();
+        final Path outputFile = Paths.get(paths.get(0));
+        try (final OutputStream output = Files.newOutputStream(outputFile)) {
+            TzdbFormat.write(version, zones, output);
+        }
+        System.err.printf("Compiled %d zones of tz database %s into %s (%d bytes)%n", zones.size(), version,
+                outputFile, Files.size(outputFile));
+    }
+
+    public void parse(final Path sourceFile) throws IOException {
+        parse(Files.readAllLines(sourceFile, UTF_8), sourceFile.getFileName().toString());
+    }
+
+    /**
+     * @param sourceName names the source in error messages
+     * @throws IllegalArgumentException if a line cannot be parsed
+     */
+    public void parse(final List<String> lines, final String sourceName) {
+        List<ZoneLine> openZone = null;
+        for (int index = 0; index < lines.size(); index++) {
+            final String line = stripComment(lines.get(index));
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            final String[] fields = line.trim().split(FIELD_SEPARATOR);
+            try {
+                // As in zic, the line after a zone line with an UNTIL continues the zone, indented or not
+                if (openZone != null) {
+                    openZone = parseZoneLine(fields, 0, CONTINUATION_FIELD_COUNT, openZone);
+                } else if (isKeyword(fields[0], "Rule")) {
+                    parseRuleLine(fields);
+                    openZone = null;
+                } else if (isKeyword(fields[0], "Zone")) {
+                    checkFieldCount(fields, ZONE_FIELD_COUNT);
+                    final List<ZoneLine> zoneLines = new ArrayList<>();
+                    if (zoneLinesById.put(fields[1], zoneLines) != null) {
+                        throw new IllegalArgumentException("Duplicate zone " + fields[1]);
+                    }
+                    openZone = parseZoneLine(fields, 2, ZONE_FIELD_COUNT, zoneLines);
+                } else if (isKeyword(fields[0], "Link")) {
+                    checkFieldCount(fields, LINK_FIELD_COUNT);
+                    links.put(fields[2], fields[1]);
+                    openZone = null;
+                } else {
+                    openZone = null;
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(sourceName + ":" + (index + 1) + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * @return the rules of all zones and links parsed so far, by ID
+     * @throws IllegalArgumentException if a zone refers to a missing rule or a link to a missing zone
+     */
+    SortedMap<String, TzdbFormat.ZoneRulesData> compile() {
+        final SortedMap<String, TzdbFormat.ZoneRulesData> zones = new TreeMap<>();
+        for (final Map.Entry<String, List<ZoneLine>> zoneEntry : zoneLinesById.entrySet()) {
+            try {
+                zones.put(zoneEntry.getKey(), compileZone(zoneEntry.getValue()));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Zone " + zoneEntry.getKey() + ": " + e.getMessage(), e);
+            }
+        }
+        for (final String linkName : links.keySet()) {
+            String target = links.get(linkName);
+            // Links may point to other links; give up on cycles
+            for (int depth = 0; target != null && !zones.containsKey(target) && depth < links.size(); depth++) {
+                target = links.get(target);
+            }
+            if (target == null || !zones.containsKey(target)) {
+                throw new IllegalArgumentException("Link " + linkName + " to unknown zone " + links.get(linkName));
+            }
+            if (!zoneLinesById.containsKey(linkName)) {
+                zones.put(linkName, zones.get(target));
+            }
+        }
+        return zones;
+    }
+
+    /**
+     * The tz database gives some zones negative savings, e.g. Europe/Dublin with Irish Standard Time in summer and
+     * savings of -1:00 in winter. Like the JDK's compiler, each line moves its most negative saving into the standard
+     * offset, so that savings are never negative and daylight saving time is where the JDK has it. Only the rules
+     * in the years of the line count, as Africa/Casablanca used positive savings before it took negative ones.
+     */
+    private TzdbFormat.ZoneRulesData compileZone(final List<ZoneLine> zoneLines) {
+        final ZoneRulesBuilder builder = new ZoneRulesBuilder();
+        int lineStartYear = Year.MIN_VALUE;
+        for (final ZoneLine zoneLine : zoneLines) {
+            final int lineEndYear = zoneLine.untilYear == null ? Year.MAX_VALUE : zoneLine.untilYear;
+            final List<RuleLine> ruleLines = zoneLine.rulesName == null ? null : rulesByName.get(zoneLine
+                    .rulesName);
+            if (zoneLine.rulesName != null && ruleLines == null) {
+                throw new IllegalArgumentException("Unknown rule " + zoneLine.rulesName);
+            }
+            final int savingsShift = ruleLines == null ? Math.min(0, zoneLine.fixedSavingSeconds) :
+                    getMinimumSavings(ruleLines, lineStartYear, lineEndYear);
+            final ZoneOffset standardOffset = ZoneOffset.ofTotalSeconds(zoneLine.standardOffset.getTotalSeconds()
+                    + savingsShift);
+            if (zoneLine.untilYear == null) {
+                builder.addWindowForever(standardOffset);
+            } else {
+                builder.addWindow(standardOffset, zoneLine.getUntilDateTime().plusSeconds(toShiftedStandardTime
+                        (zoneLine.untilDefinition, savingsShift)), zoneLine.untilDefinition);
+            }
+            if (ruleLines == null) {
+                builder.setFixedSavingsToWindow(zoneLine.fixedSavingSeconds - savingsShift);
+            } else {
+                builder.setInitialSavingsToWindow(-savingsShift);
+                for (final RuleLine ruleLine : ruleLines) {
+                    builder.addRuleToWindow(ruleLine.startYear, ruleLine.endYear, ruleLine.day.month,
+                            ruleLine.day.dayOfMonthIndicator, ruleLine.day.dayOfWeek, ruleLine.secondOfDay +
+                                    toShiftedStandardTime(ruleLine.timeDefinition, savingsShift),
+                            ruleLine.timeDefinition, ruleLine.savingSeconds - savingsShift);
+                }
+            }
+            lineStartYear = lineEndYear;
+        }
+        return builder.toRulesData();
+    }
+
+    /**
+     * @return the most negative saving of the rules in effect from {@code startYear} to {@code endYear}, or zero if
+     * none is negative
+     */
+    private static int getMinimumSavings(final List<RuleLine> ruleLines, final int startYear, final int endYear) {
+        int minimumSavings = 0;
+        for (final RuleLine ruleLine : ruleLines) {
+            if (ruleLine.startYear <= endYear && ruleLine.endYear >= startYear) {
+                minimumSavings = Math.min(minimumSavings, ruleLine.savingSeconds);
+            }
+        }
+        return minimumSavings;
+    }
+
+    /**
+     * @return the seconds to add to a time given in the original standard time to express it in the shifted one
+     */
+    private static int toShiftedStandardTime(final TimeDefinition timeDefinition, final int savingsShift) {
+        return timeDefinition == TimeDefinition.STANDARD ? savingsShift : 0;
+    }
+
+    private static String stripComment(final String line) {
+        final int commentStart = line.indexOf(COMMENT_START);
+        return commentStart < 0 ? line : line.substring(0, commentStart);
+    }
+
+    /**
+     * zic accepts any unambiguous abbreviation of a keyword.
+     */
+    private static boolean isKeyword(final String field, final String keyword) {
+        return keyword.regionMatches(true, 0, field, 0, field.length()) && field.length() <= keyword.length();
+    }
+
+    private static void checkFieldCount(final String[] fields, final int minimumCount) {
+        if (fields.length < minimumCount) {
+            throw new IllegalArgumentException("Expected at least " + minimumCount + " fields but got " + fields
+                    .length);
+        }
+    }
+
+    private void parseRuleLine(final String[] fields) {
+        checkFieldCount(fields, RULE_FIELD_COUNT);
+        final RuleLine ruleLine = new RuleLine();
+        ruleLine.startYear = parseYear(fields[2], Year.MIN_VALUE);
+        ruleLine.endYear = isKeyword(fields[3], YEAR_ONLY) ? ruleLine.startYear : parseYear(fields[3],
+                ruleLine.startYear);
+        ruleLine.day = new DaySpecification(parseMonth(fields[5]), fields[6]);
+        ruleLine.timeDefinition = parseTimeDefinition(fields[7]);
+        ruleLine.secondOfDay = parseSeconds(stripTimeDefinition(fields[7]));
+        ruleLine.savingSeconds = parseSeconds(stripSavingsSuffix(fields[8]));
+        rulesByName.computeIfAbsent(fields[1], name -> new ArrayList<>()).add(ruleLine);
+    }
+
+    /**
+     * @return the zone's lines if the parsed line has an UNTIL, i.e. is followed by a continuation line, else null
+     */
+    private static List<ZoneLine> parseZoneLine(final String[] fields, final int offset, final int fieldCount,
+                                                final List<ZoneLine> zoneLines) {
+        checkFieldCount(fields, fieldCount);
+        final ZoneLine zoneLine = new ZoneLine();
+        zoneLine.standardOffset = ZoneOffset.ofTotalSeconds(parseSeconds(fields[offset]));
+        final String rules = fields[offset + 1];
+        if (rules.equals(NONE)) {
+            zoneLine.fixedSavingSeconds = 0;
+        } else if (Character.isDigit(rules.charAt(0)) || rules.startsWith("-")) {
+            zoneLine.fixedSavingSeconds = parseSeconds(stripSavingsSuffix(rules));
+        } else {
+            zoneLine.rulesName = rules;
+        }
+        final int untilStart = offset + CONTINUATION_FIELD_COUNT;
+        if (fields.length > untilStart) {
+            zoneLine.untilYear = Integer.parseInt(fields[untilStart]);
+            zoneLine.untilDay = new DaySpecification(fields.length > untilStart + 1 ? parseMonth(fields[untilStart
+                    + 1]) : Month.JANUARY, fields.length > untilStart + 2 ? fields[untilStart + 2] : "1");
+            final String untilTime = fields.length > untilStart + 3 ? fields[untilStart + 3] : "0";
+            zoneLine.untilDefinition = parseTimeDefinition(untilTime);
+            zoneLine.untilSecondOfDay = parseSeconds(stripTimeDefinition(untilTime));
+        }
+        zoneLines.add(zoneLine);
+        return zoneLine.untilYear == null ? null : zoneLines;
+    }
+
+    private static int parseYear(final String field, final int defaultYear) {
+        if (matchesName(field, YEAR_MAXIMUM)) {
+            return Year.MAX_VALUE;
+        }
+        return matchesName(field, YEAR_MINIMUM) ? defaultYear : Integer.parseInt(field);
+    }
+
+    private static Month parseMonth(final String field) {
+        return parseName(field, Month.values(), "month");
+    }
+
+    private static DayOfWeek parseDayOfWeek(final String field) {
+        return parseName(field, DayOfWeek.values(), "day of week");
+    }
+
+    /**
+     * Months and days of the week may be abbreviated down to one letter as long as the abbreviation is unambiguous,
+     * as in the {@code tzdata.zi} distributed with the tz database.
+     */
+    private static <T extends Enum<T>> T parseName(final String field, final T[] values, final String kind) {
+        T match = null;
+        for (final T value : values) {
+            if (!field.isEmpty() && isKeyword(field, value.name())) {
+                if (match != null) {
+                    throw new IllegalArgumentException("Ambiguous " + kind + " " + field);
+                }
+                match = value;
+            }
+        }
+        if (match == null) {
+            throw new IllegalArgumentException("Unknown " + kind + " " + field);
+        }
+        return match;
+    }
+
+    private static boolean matchesName(final String field, final String name) {
+        return field.length() >= 2 && name.regionMatches(true, 0, field, 0, field.length());
+    }
+
+    private static TimeDefinition parseTimeDefinition(final String time) {
+        switch (Character.toLowerCase(time.charAt(time.length() - 1))) {
+            case 's':
+                return TimeDefinition.STANDARD;
+            case 'u':
+            case 'g':
+            case 'z':
+                return TimeDefinition.UTC;
+            default:
+                return TimeDefinition.WALL;
+        }
+    }
+
+    private static String stripTimeDefinition(final String time) {
+        return Character.isLetter(time.charAt(time.length() - 1)) ? time.substring(0, time.length() - 1) : time;
+    }
+
+    /**
+     * Savings may be marked as standard ({@code s}) or daylight ({@code d}) time, which makes no difference here.
+     */
+    private static String stripSavingsSuffix(final String savings) {
+        return stripTimeDefinition(savings);
+    }
+
+    /**
+     * Parses {@code [-]hh[:mm[:ss[.fraction]]]}, where {@code -} alone stands for zero. Fractions of a second are
+     * rounded.
+     */
+    private static int parseSeconds(final String time) {
+        if (time.equals(NONE)) {
+            return 0;
+        }
+        final boolean negative = time.startsWith("-");
+        final String[] parts = (negative ? time.substring(1) : time).split(":");
+        if (parts.length > 3) {
+            throw new IllegalArgumentException("Invalid time " + time);
+        }
+        int seconds = Integer.parseInt(parts[0]) * SECONDS_PER_HOUR;
+        if (parts.length > 1) {
+            seconds += Integer.parseInt(parts[1]) * SECONDS_PER_MINUTE;
+        }
+        if (parts.length > 2) {
+            seconds += (int) Math.round(Double.parseDouble(parts[2]));
+        }
+        return negative ? -seconds : seconds;
+    }
+
+    /**
+     * The ON field of a rule or the day of a zone's UNTIL: a day of the month, {@code lastSun} or {@code Sun>=8}.
+     */
+    private static final class DaySpecification {
+        private final Month month;
+        /**
+         * Negative to count from the end of the month.
+         */
+        private final int dayOfMonthIndicator;
+        private final DayOfWeek dayOfWeek;
+
+        private DaySpecification(final Month month, final String field) {
+            if (field.regionMatches(true, 0, DAY_LAST, 0, DAY_LAST.length())) {
+                this.month = month;
+                dayOfMonthIndicator = -1;
+                dayOfWeek = parseDayOfWeek(field.substring(DAY_LAST.length()));
+            } else if (field.contains(DAY_ON_OR_AFTER)) {
+                final int separator = field.indexOf(DAY_ON_OR_AFTER);
+                this.month = month;
+                dayOfMonthIndicator = Integer.parseInt(field.substring(separator + DAY_ON_OR_AFTER.length()));
+                dayOfWeek = parseDayOfWeek(field.substring(0, separator));
+            } else if (field.contains(DAY_ON_OR_BEFORE)) {
+                // Expressed as the weekday on or after the day six days earlier, which may lie in the month before
+                final int separator = field.indexOf(DAY_ON_OR_BEFORE);
+                final LocalDate firstCandidate = LocalDate.of(2004, month, Integer.parseInt(field.substring
+                        (separator + DAY_ON_OR_BEFORE.length()))).minusDays(DAYS_PER_WEEK - 1);
+                this.month = firstCandidate.getMonth();
+                dayOfMonthIndicator = firstCandidate.getDayOfMonth();
+                dayOfWeek = parseDayOfWeek(field.substring(0, separator));
+            } else {
+                this.month = month;
+                dayOfMonthIndicator = Integer.parseInt(field);
+                dayOfWeek = null;
+            }
+        }
+
+        private LocalDate toLocalDate(final int year) {
+            if (dayOfMonthIndicator < 0) {
+                return LocalDate.of(year, month, month.length(Year.isLeap(year))).with(previousOrSame(dayOfWeek));
+            }
+            final LocalDate date = LocalDate.of(year, month, dayOfMonthIndicator);
+            return dayOfWeek == null ? date : date.with(nextOrSame(dayOfWeek));
+        }
+    }
+
+    private static final class RuleLine {
+        private int startYear;
+        private int endYear;
+        private DaySpecification day;
+        private int secondOfDay;
+        private TimeDefinition timeDefinition;
+        private int savingSeconds;
+    }
+
+    private static final class ZoneLine {
+        private ZoneOffset standardOffset;
+        /**
+         * Null for a line with fixed savings.
+         */
+        private String rulesName;
+        private int fixedSavingSeconds;
+        /**
+         * Null for the last line, lasting forever.
+         */
+        private Integer untilYear;
+        private DaySpecification untilDay;
+        private int untilSecondOfDay;
+        private TimeDefinition untilDefinition;
+
+        private LocalDateTime getUntilDateTime() {
+            return untilDay.toLocalDate(untilYear).atStartOfDay().plusSeconds(untilSecondOfDay);
+        }
+    }
+}
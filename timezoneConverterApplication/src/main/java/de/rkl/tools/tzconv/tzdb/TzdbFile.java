@@ -0,0 +1,147 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.tzdb;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.zone.ZoneRules;
+import java.time.zone.ZoneRulesException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A tz database file in the layout of the JDK's {@code lib/tzdb.dat}, see {@link TzdbFormat}. The file is
+ * memory-mapped and only its header is read up front; each zone's rules are decoded on first request and cached.
+ * <p>
+ * Thread-safe.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class TzdbFile {
+    private final Path path;
+    private final String version;
+    private final MappedByteBuffer mappedFile;
+    /**
+     * Position of each zone's rules blob in the mapped file.
+     */
+    private final ImmutableMap<String, Integer> blobPositions;
+    private final ConcurrentMap<String, ZoneRules> decodedRules;
+
+    private TzdbFile(final Path path, final String version, final MappedByteBuffer mappedFile,
+                     final ImmutableMap<String, Integer> blobPositions) {
+        this.path = path;
+        this.version = version;
+        this.mappedFile = mappedFile;
+        this.blobPositions = blobPositions;
+        decodedRules = new ConcurrentHashMap<>();
+    }
+
+    public static TzdbFile open(final Path path) throws IOException {
+        final MappedByteBuffer mappedFile;
+        try (final FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            mappedFile = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+        }
+        final ByteBuffer header = mappedFile.duplicate();
+        try {
+            if (header.get() != TzdbFormat.FILE_FORMAT_VERSION || !TzdbFormat.GROUP_ID.equals(TzdbFormat.readString
+                    (header))) {
+                throw new ZoneRulesException("Not a tz database file: " + path);
+            }
+            final int versionCount = header.getShort() & 0xffff;
+            String version = null;
+            for (int versionIndex = 0; versionIndex < versionCount; versionIndex++) {
+                version = TzdbFormat.readString(header);
+            }
+            final String[] zoneIds = new String[header.getShort() & 0xffff];
+            for (int zoneIndex = 0; zoneIndex < zoneIds.length; zoneIndex++) {
+                zoneIds[zoneIndex] = TzdbFormat.readString(header);
+            }
+            final int[] blobPositions = new int[header.getShort() & 0xffff];
+            for (int blobIndex = 0; blobIndex < blobPositions.length; blobIndex++) {
+                final int blobLength = header.getShort() & 0xffff;
+                blobPositions[blobIndex] = header.position();
+                header.position(header.position() + blobLength);
+            }
+            final Map<String, Integer> zoneBlobPositions = new HashMap<>();
+            // Every version has its own links from zones to rules; only the last version's are kept, as by the JDK's
+            // provider
+            for (int versionIndex = 0; versionIndex < versionCount; versionIndex++) {
+                zoneBlobPositions.clear();
+                for (int linkCount = header.getShort() & 0xffff; linkCount > 0; linkCount--) {
+                    final String zoneId = zoneIds[header.getShort() & 0xffff];
+                    zoneBlobPositions.put(zoneId, blobPositions[header.getShort() & 0xffff]);
+                }
+            }
+            return new TzdbFile(path, version, mappedFile, ImmutableMap.copyOf(zoneBlobPositions));
+        } catch (RuntimeException e) {
+            throw new ZoneRulesException("Corrupt tz database file: " + path, e);
+        }
+    }
+
+    /**
+     * @return the tz database of the running JVM
+     */
+    public static Path getJvmTzdbPath() {
+        return Paths.get(System.getProperty("java.home"), "lib", "tzdb.dat");
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the tz database version, e.g. {@code 2024a}
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    public Set<String> getZoneIds() {
+        return blobPositions.keySet();
+    }
+
+    /**
+     * @return the zone's rules, or {@code null} if the file does not contain the zone
+     */
+    public ZoneRules getRules(final String zoneId) {
+        final ZoneRules rules = decodedRules.get(zoneId);
+        if (rules != null || !blobPositions.containsKey(zoneId)) {
+            return rules;
+        }
+        return decodedRules.computeIfAbsent(zoneId, this::decodeRules);
+    }
+
+    private ZoneRules decodeRules(final String zoneId) {
+        final ByteBuffer blob = mappedFile.duplicate();
+        blob.position(blobPositions.get(zoneId));
+        try {
+            return TzdbFormat.readRules(blob);
+        } catch (RuntimeException e) {
+            throw new ZoneRulesException("Corrupt rules for " + zoneId + " in " + path, e);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.tzdb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneOffsetTransitionRule;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+
+/**
+ * The layout of the JDK's {@code lib/tzdb.dat}: a header with the tz database version and the zone IDs, followed by
+ * one blob per distinct set of zone rules in the documented serialized form of {@link ZoneRules} and a table linking
+ * each zone ID to its blob. Zones sharing their rules, such as links, share one blob.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+final class TzdbFormat {
+    static final byte FILE_FORMAT_VERSION = 1;
+    static final String GROUP_ID = "TZDB";
+    private static final byte ZONE_RULES_TYPE = 1;
+    /**
+     * Epoch seconds on a quarter hour between 1825 and 2300 are stored in three bytes.
+     */
+    private static final long COMPACT_EPOCH_SECONDS_START = -4_575_744_000L;
+    private static final long COMPACT_EPOCH_SECONDS_END = 10_413_792_000L;
+    private static final int QUARTER_HOUR_SECONDS = 900;
+    private static final int HALF_HOUR_SECONDS = 1_800;
+    private static final int HOUR_SECONDS = 3_600;
+    private static final int DAY_SECONDS = 86_400;
+    private static final int LONG_EPOCH_SECONDS_MARKER = 255;
+    private static final int LONG_OFFSET_MARKER = 127;
+    private static final int LONG_TIME_MARKER = 31;
+    private static final int LONG_STANDARD_OFFSET_MARKER = 255;
+    private static final int LONG_SAVINGS_MARKER = 3;
+
+    private TzdbFormat() {
+    }
+
+    /**
+     * Writes a tz database containing the given zones, keyed by zone ID.
+     */
+    static void write(final String version, final SortedMap<String, ZoneRulesData> zones,
+                      final OutputStream outputStream) throws IOException {
+        final Map<ZoneRulesData, Integer> blobIndices = new LinkedHashMap<>();
+        zones.values().forEach(zone -> blobIndices.putIfAbsent(zone, blobIndices.size()));
+        final DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeByte(FILE_FORMAT_VERSION);
+        output.writeUTF(GROUP_ID);
+        output.writeShort(1);
+        output.writeUTF(version);
+        output.writeShort(zones.size());
+        for (final String zoneId : zones.keySet()) {
+            output.writeUTF(zoneId);
+        }
+        output.writeShort(blobIndices.size());
+        for (final ZoneRulesData zone : blobIndices.keySet()) {
+            final byte[] blob = toBlob(zone);
+            output.writeShort(blob.length);
+            output.write(blob);
+        }
+        output.writeShort(zones.size());
+        int regionIndex = 0;
+        for (final ZoneRulesData zone : zones.values()) {
+            output.writeShort(regionIndex++);
+            output.writeShort(blobIndices.get(zone));
+        }
+        // No legacy aliases
+        output.writeShort(0);
+        output.flush();
+    }
+
+    private static byte[] toBlob(final ZoneRulesData zone) throws IOException {
+        final ByteArrayOutputStream blobStream = new ByteArrayOutputStream();
+        final DataOutputStream blobOutput = new DataOutputStream(blobStream);
+        blobOutput.writeByte(ZONE_RULES_TYPE);
+        writeTransitions(zone.baseStandardOffset, zone.standardTransitions, blobOutput);
+        writeTransitions(zone.baseWallOffset, zone.wallTransitions, blobOutput);
+        blobOutput.writeByte(zone.lastRules.size());
+        for (final ZoneOffsetTransitionRule lastRule : zone.lastRules) {
+            writeTransitionRule(lastRule, blobOutput);
+        }
+        blobOutput.flush();
+        return blobStream.toByteArray();
+    }
+
+    private static void writeTransitions(final ZoneOffset baseOffset, final List<ZoneOffsetTransition> transitions,
+                                         final DataOutput output) throws IOException {
+        output.writeInt(transitions.size());
+        for (final ZoneOffsetTransition transition : transitions) {
+            writeEpochSecond(transition.toEpochSecond(), output);
+        }
+        writeOffset(baseOffset, output);
+        for (final ZoneOffsetTransition transition : transitions) {
+            writeOffset(transition.getOffsetAfter(), output);
+        }
+    }
+
+    private static void writeEpochSecond(final long epochSecond, final DataOutput output) throws IOException {
+        if (epochSecond >= COMPACT_EPOCH_SECONDS_START && epochSecond < COMPACT_EPOCH_SECONDS_END && epochSecond %
+                QUARTER_HOUR_SECONDS == 0) {
+            final int quarterHours = (int) ((epochSecond - COMPACT_EPOCH_SECONDS_START) / QUARTER_HOUR_SECONDS);
+            output.writeByte(quarterHours >>> 16 & 0xff);
+            output.writeByte(quarterHours >>> 8 & 0xff);
+            output.writeByte(quarterHours & 0xff);
+        } else {
+            output.writeByte(LONG_EPOCH_SECONDS_MARKER);
+            output.writeLong(epochSecond);
+        }
+    }
+
+    private static void writeOffset(final ZoneOffset offset, final DataOutput output) throws IOException {
+        final int offsetSeconds = offset.getTotalSeconds();
+        if (offsetSeconds % QUARTER_HOUR_SECONDS == 0) {
+            output.writeByte(offsetSeconds / QUARTER_HOUR_SECONDS);
+        } else {
+            output.writeByte(LONG_OFFSET_MARKER);
+            output.writeInt(offsetSeconds);
+        }
+    }
+
+    private static void writeTransitionRule(final ZoneOffsetTransitionRule rule, final DataOutput output) throws
+            IOException {
+        final int timeSeconds = rule.isMidnightEndOfDay() ? DAY_SECONDS : rule.getLocalTime().toSecondOfDay();
+        final int standardOffsetSeconds = rule.getStandardOffset().getTotalSeconds();
+        final int savingsBefore = rule.getOffsetBefore().getTotalSeconds() - standardOffsetSeconds;
+        final int savingsAfter = rule.getOffsetAfter().getTotalSeconds() - standardOffsetSeconds;
+        final int timeField = timeSeconds % HOUR_SECONDS == 0 ? timeSeconds / HOUR_SECONDS : LONG_TIME_MARKER;
+        final int standardOffsetField = standardOffsetSeconds % QUARTER_HOUR_SECONDS == 0 ? standardOffsetSeconds /
+                QUARTER_HOUR_SECONDS + 128 : LONG_STANDARD_OFFSET_MARKER;
+        final int savingsBeforeField = toSavingsField(savingsBefore);
+        final int savingsAfterField = toSavingsField(savingsAfter);
+        final int dayOfWeekField = rule.getDayOfWeek() == null ? 0 : rule.getDayOfWeek().getValue();
+        output.writeInt(rule.getMonth().getValue() << 28 | rule.getDayOfMonthIndicator() + 32 << 22 |
+                dayOfWeekField << 19 | timeField << 14 | rule.getTimeDefinition().ordinal() << 12 |
+                standardOffsetField << 4 | savingsBeforeField << 2 | savingsAfterField);
+        if (timeField == LONG_TIME_MARKER) {
+            output.writeInt(timeSeconds);
+        }
+        if (standardOffsetField == LONG_STANDARD_OFFSET_MARKER) {
+            output.writeInt(standardOffsetSeconds);
+        }
+        if (savingsBeforeField == LONG_SAVINGS_MARKER) {
+            output.writeInt(rule.getOffsetBefore().getTotalSeconds());
+        }
+        if (savingsAfterField == LONG_SAVINGS_MARKER) {
+            output.writeInt(rule.getOffsetAfter().getTotalSeconds());
+        }
+    }
+
+    private static int toSavingsField(final int savingsSeconds) {
+        return savingsSeconds == 0 || savingsSeconds == HALF_HOUR_SECONDS || savingsSeconds == HOUR_SECONDS ?
+                savingsSeconds / HALF_HOUR_SECONDS : LONG_SAVINGS_MARKER;
+    }
+
+    /**
+     * Decodes the blob starting at the buffer's position.
+     */
+    static ZoneRules readRules(final ByteBuffer blob) {
+        if (blob.get() != ZONE_RULES_TYPE) {
+            throw new IllegalArgumentException("Not a zone rules blob at position " + (blob.position() - 1));
+        }
+        final List<ZoneOffsetTransition> standardTransitions = new ArrayList<>();
+        final ZoneOffset baseStandardOffset = readTransitions(blob, standardTransitions);
+        final List<ZoneOffsetTransition> wallTransitions = new ArrayList<>();
+        final ZoneOffset baseWallOffset = readTransitions(blob, wallTransitions);
+        final int lastRuleCount = blob.get();
+        final ZoneOffsetTransitionRule[] lastRules = new ZoneOffsetTransitionRule[lastRuleCount];
+        for (int ruleIndex = 0; ruleIndex < lastRuleCount; ruleIndex++) {
+            lastRules[ruleIndex] = readTransitionRule(blob);
+        }
+        return ZoneRules.of(baseStandardOffset, baseWallOffset, standardTransitions, wallTransitions, Arrays.asList
+                (lastRules));
+    }
+
+    /**
+     * @return the offset before the first transition
+     */
+    private static ZoneOffset readTransitions(final ByteBuffer blob, final List<ZoneOffsetTransition> transitions) {
+        final long[] epochSeconds = new long[blob.getInt()];
+        for (int index = 0; index < epochSeconds.length; index++) {
+            epochSeconds[index] = readEpochSecond(blob);
+        }
+        final ZoneOffset baseOffset = readOffset(blob);
+        ZoneOffset offsetBefore = baseOffset;
+        for (final long epochSecond : epochSeconds) {
+            final ZoneOffset offsetAfter = readOffset(blob);
+            transitions.add(ZoneOffsetTransition.of(LocalDateTime.ofEpochSecond(epochSecond, 0, offsetBefore),
+                    offsetBefore, offsetAfter));
+            offsetBefore = offsetAfter;
+        }
+        return baseOffset;
+    }
+
+    private static long readEpochSecond(final ByteBuffer blob) {
+        final int highByte = blob.get() & 0xff;
+        if (highByte == LONG_EPOCH_SECONDS_MARKER) {
+            return blob.getLong();
+        }
+        final int quarterHours = highByte << 16 | (blob.get() & 0xff) << 8 | blob.get() & 0xff;
+        return (long) quarterHours * QUARTER_HOUR_SECONDS + COMPACT_EPOCH_SECONDS_START;
+    }
+
+    private static ZoneOffset readOffset(final ByteBuffer blob) {
+        final int offsetField = blob.get();
+        return ZoneOffset.ofTotalSeconds(offsetField == LONG_OFFSET_MARKER ? blob.getInt() : offsetField *
+                QUARTER_HOUR_SECONDS);
+    }
+
+    private static ZoneOffsetTransitionRule readTransitionRule(final ByteBuffer blob) {
+        final int fields = blob.getInt();
+        final Month month = Month.of(fields >>> 28);
+        final int dayOfMonthIndicator = (fields >>> 22 & 0x3f) - 32;
+        final int dayOfWeekField = fields >>> 19 & 0x7;
+        final int timeField = fields >>> 14 & 0x1f;
+        final ZoneOffsetTransitionRule.TimeDefinition timeDefinition = ZoneOffsetTransitionRule.TimeDefinition
+                .values()[fields >>> 12 & 0x3];
+        final int standardOffsetField = fields >>> 4 & 0xff;
+        final int savingsBeforeField = fields >>> 2 & 0x3;
+        final int savingsAfterField = fields & 0x3;
+        final int timeSeconds = timeField == LONG_TIME_MARKER ? blob.getInt() : timeField * HOUR_SECONDS;
+        final ZoneOffset standardOffset = ZoneOffset.ofTotalSeconds(standardOffsetField ==
+                LONG_STANDARD_OFFSET_MARKER ? blob.getInt() : (standardOffsetField - 128) * QUARTER_HOUR_SECONDS);
+        final ZoneOffset offsetBefore = ZoneOffset.ofTotalSeconds(savingsBeforeField == LONG_SAVINGS_MARKER ? blob
+                .getInt() : standardOffset.getTotalSeconds() + savingsBeforeField * HALF_HOUR_SECONDS);
+        final ZoneOffset offsetAfter = ZoneOffset.ofTotalSeconds(savingsAfterField == LONG_SAVINGS_MARKER ? blob
+                .getInt() : standardOffset.getTotalSeconds() + savingsAfterField * HALF_HOUR_SECONDS);
+        final boolean midnightEndOfDay = timeSeconds == DAY_SECONDS;
+        return ZoneOffsetTransitionRule.of(month, dayOfMonthIndicator, dayOfWeekField == 0 ? null : DayOfWeek.of
+                        (dayOfWeekField), midnightEndOfDay ? LocalTime.MIDNIGHT : LocalTime.ofSecondOfDay(timeSeconds),
+                midnightEndOfDay, timeDefinition, standardOffset, offsetBefore, offsetAfter);
+    }
+
+    /**
+     * Reads a string written by {@link DataOutput#writeUTF(String)}. Zone IDs and versions are plain ASCII, for which
+     * the modified UTF-8 of {@code writeUTF} and UTF-8 coincide.
+     */
+    static String readString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The rules of one zone in the form they are stored in.
+     */
+    static final class ZoneRulesData {
+        private final ZoneOffset baseStandardOffset;
+        private final ZoneOffset baseWallOffset;
+        private final List<ZoneOffsetTransition> standardTransitions;
+        private final List<ZoneOffsetTransition> wallTransitions;
+        private final List<ZoneOffsetTransitionRule> lastRules;
+
+        ZoneRulesData(final ZoneOffset baseStandardOffset, final ZoneOffset baseWallOffset,
+                      final List<ZoneOffsetTransition> standardTransitions,
+                      final List<ZoneOffsetTransition> wallTransitions,
+                      final List<ZoneOffsetTransitionRule> lastRules) {
+            this.baseStandardOffset = baseStandardOffset;
+            this.baseWallOffset = baseWallOffset;
+            this.standardTransitions = Collections.unmodifiableList(new ArrayList<>(standardTransitions));
+            this.wallTransitions = Collections.unmodifiableList(new ArrayList<>(wallTransitions));
+            this.lastRules = Collections.unmodifiableList(new ArrayList<>(lastRules));
+        }
+
+        ZoneRules toZoneRules() {
+            return ZoneRules.of(baseStandardOffset, baseWallOffset, standardTransitions, wallTransitions, lastRules);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof ZoneRulesData)) {
+                return false;
+            }
+            final ZoneRulesData otherData = (ZoneRulesData) other;
+            return baseStandardOffset.equals(otherData.baseStandardOffset) && baseWallOffset.equals(otherData
+                    .baseWallOffset) && standardTransitions.equals(otherData.standardTransitions) && wallTransitions
+                    .equals(otherData.wallTransitions) && lastRules.equals(otherData.lastRules);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(baseStandardOffset, baseWallOffset, standardTransitions, wallTransitions,
+                    lastRules);
+        }
+    }
+}
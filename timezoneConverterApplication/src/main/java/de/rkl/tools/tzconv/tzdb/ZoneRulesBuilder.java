@@ -0,0 +1,379 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.tzdb;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.time.chrono.IsoChronology;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneOffsetTransitionRule;
+import java.time.zone.ZoneOffsetTransitionRule.TimeDefinition;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.time.temporal.TemporalAdjusters.nextOrSame;
+import static java.time.temporal.TemporalAdjusters.previousOrSame;
+
+/**
+ * Builds the rules of one zone from the lines of its {@code Zone} entry, each of which is a window with its own
+ * standard offset and daylight saving rules. The transitions are derived the way the JDK derives its own tz database,
+ * so a zone compiled from the same source ends up with the same rules.
+ * <p>
+ * Times of day are given in seconds and may lie outside of the day, e.g. {@code 24:00} or {@code 25:00}.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+final class ZoneRulesBuilder {
+    private static final int SECONDS_PER_DAY = 86_400;
+    /**
+     * The number of yearly rules a single window may expand to.
+     */
+    private static final int MAX_RULES_PER_WINDOW = 2_000;
+    private static final int DAYS_PER_WEEK = 7;
+
+    private final List<Window> windows;
+
+    ZoneRulesBuilder() {
+        windows = new ArrayList<>();
+    }
+
+    /**
+     * @param until the local date-time the window ends at, interpreted according to {@code untilDefinition}
+     */
+    ZoneRulesBuilder addWindow(final ZoneOffset standardOffset, final LocalDateTime until,
+                               final TimeDefinition untilDefinition) {
+        if (!windows.isEmpty() && windows.get(windows.size() - 1).windowEnd.equals(LocalDateTime.MAX)) {
+            throw new IllegalStateException("Window after one lasting forever");
+        }
+        windows.add(new Window(standardOffset, until, untilDefinition));
+        return this;
+    }
+
+    ZoneRulesBuilder addWindowForever(final ZoneOffset standardOffset) {
+        return addWindow(standardOffset, LocalDateTime.MAX, TimeDefinition.WALL);
+    }
+
+    ZoneRulesBuilder setFixedSavingsToWindow(final int savingSeconds) {
+        getLastWindow().setFixedSavings(savingSeconds);
+        return this;
+    }
+
+    /**
+     * Sets the savings in effect before the first of the window's rules, which are zero unless the rules' savings
+     * have been shifted to avoid negative ones.
+     */
+    ZoneRulesBuilder setInitialSavingsToWindow(final int savingSeconds) {
+        getLastWindow().initialSavingSeconds = savingSeconds;
+        return this;
+    }
+
+    /**
+     * Adds a rule repeating every year from {@code startYear} to {@code endYear}, which is {@link Year#MAX_VALUE} for
+     * a rule continuing forever. A negative {@code dayOfMonthIndicator} counts from the end of the month.
+     */
+    ZoneRulesBuilder addRuleToWindow(final int startYear, final int endYear, final Month month,
+                                     final int dayOfMonthIndicator, final DayOfWeek dayOfWeek,
+                                     final int secondOfDay, final TimeDefinition timeDefinition,
+                                     final int savingSeconds) {
+        getLastWindow().addRule(startYear, endYear, month, dayOfMonthIndicator, dayOfWeek, secondOfDay,
+                timeDefinition, savingSeconds);
+        return this;
+    }
+
+    private Window getLastWindow() {
+        if (windows.isEmpty()) {
+            throw new IllegalStateException("Rules must be added to a window");
+        }
+        return windows.get(windows.size() - 1);
+    }
+
+    TzdbFormat.ZoneRulesData toRulesData() {
+        if (windows.isEmpty()) {
+            throw new IllegalStateException("No windows have been added");
+        }
+        final List<ZoneOffsetTransition> standardTransitions = new ArrayList<>();
+        final List<ZoneOffsetTransition> wallTransitions = new ArrayList<>();
+        final List<ZoneOffsetTransitionRule> lastRules = new ArrayList<>();
+        final Window firstWindow = windows.get(0);
+        ZoneOffset loopStandardOffset = firstWindow.standardOffset;
+        int loopSavings = firstWindow.fixedSavingSeconds != null ? firstWindow.fixedSavingSeconds : firstWindow
+                .initialSavingSeconds;
+        final ZoneOffset firstWallOffset = ZoneOffset.ofTotalSeconds(loopStandardOffset.getTotalSeconds() +
+                loopSavings);
+        LocalDateTime loopWindowStart = LocalDateTime.of(Year.MIN_VALUE, 1, 1, 0, 0);
+        ZoneOffset loopWindowOffset = firstWallOffset;
+        for (final Window window : windows) {
+            window.tidy(loopWindowStart.getYear());
+            final long windowStartEpochSecond = loopWindowStart.toEpochSecond(loopWindowOffset);
+            Integer effectiveSavings = window.fixedSavingSeconds;
+            if (effectiveSavings == null) {
+                // The savings in effect at the start of the window are those of the last rule before it
+                effectiveSavings = window.initialSavingSeconds;
+                for (final Rule rule : window.rules) {
+                    if (rule.toEpochSecond(loopStandardOffset, loopSavings) > windowStartEpochSecond) {
+                        break;
+                    }
+                    effectiveSavings = rule.savingSeconds;
+                }
+            }
+            if (!loopStandardOffset.equals(window.standardOffset)) {
+                standardTransitions.add(ZoneOffsetTransition.of(LocalDateTime.ofEpochSecond(windowStartEpochSecond,
+                        0, loopStandardOffset), loopStandardOffset, window.standardOffset));
+                loopStandardOffset = window.standardOffset;
+            }
+            final ZoneOffset effectiveWallOffset = ZoneOffset.ofTotalSeconds(loopStandardOffset.getTotalSeconds() +
+                    effectiveSavings);
+            if (!loopWindowOffset.equals(effectiveWallOffset)) {
+                wallTransitions.add(ZoneOffsetTransition.of(loopWindowStart, loopWindowOffset, effectiveWallOffset));
+            }
+            loopSavings = effectiveSavings;
+            for (final Rule rule : window.rules) {
+                final long transitionEpochSecond = rule.toEpochSecond(loopStandardOffset, loopSavings);
+                if (transitionEpochSecond >= windowStartEpochSecond && transitionEpochSecond < window
+                        .getEndEpochSecond(loopSavings) && rule.savingSeconds != loopSavings) {
+                    wallTransitions.add(rule.toTransition(loopStandardOffset, loopSavings));
+                    loopSavings = rule.savingSeconds;
+                }
+            }
+            for (final Rule lastRule : window.lastRules) {
+                lastRules.add(lastRule.toTransitionRule(loopStandardOffset, loopSavings));
+                loopSavings = lastRule.savingSeconds;
+            }
+            if (window.windowEnd.equals(LocalDateTime.MAX)) {
+                break;
+            }
+            loopWindowOffset = window.createWallOffset(loopSavings);
+            loopWindowStart = LocalDateTime.ofEpochSecond(window.getEndEpochSecond(loopSavings), 0,
+                    loopWindowOffset);
+        }
+        return new TzdbFormat.ZoneRulesData(firstWindow.standardOffset, firstWallOffset, standardTransitions,
+                wallTransitions, lastRules);
+    }
+
+    private static final class Window {
+        private final ZoneOffset standardOffset;
+        private final LocalDateTime windowEnd;
+        private final TimeDefinition timeDefinition;
+        private final List<Rule> rules;
+        /**
+         * Rules continuing forever, one instance each; expanded into {@link #rules} as far as needed by
+         * {@link #tidy(int)}.
+         */
+        private final List<Rule> lastRules;
+        private Integer fixedSavingSeconds;
+        private int initialSavingSeconds;
+        private int maxLastRuleStartYear;
+
+        private Window(final ZoneOffset standardOffset, final LocalDateTime windowEnd,
+                       final TimeDefinition timeDefinition) {
+            this.standardOffset = standardOffset;
+            this.windowEnd = windowEnd;
+            this.timeDefinition = timeDefinition;
+            rules = new ArrayList<>();
+            lastRules = new ArrayList<>();
+            maxLastRuleStartYear = Year.MIN_VALUE;
+        }
+
+        private void setFixedSavings(final int savingSeconds) {
+            if (!rules.isEmpty() || !lastRules.isEmpty()) {
+                throw new IllegalStateException("Window has DST rules, so cannot have fixed savings");
+            }
+            fixedSavingSeconds = savingSeconds;
+        }
+
+        private void addRule(final int startYear, final int endYear, final Month month, final int dayOfMonthIndicator,
+                             final DayOfWeek dayOfWeek, final int secondOfDay, final TimeDefinition ruleDefinition,
+                             final int savingSeconds) {
+            if (fixedSavingSeconds != null) {
+                throw new IllegalStateException("Window has a fixed DST saving, so cannot have DST rules");
+            }
+            final boolean lastRule = endYear == Year.MAX_VALUE;
+            final int lastYear = lastRule ? startYear : endYear;
+            if (rules.size() + lastYear - startYear >= MAX_RULES_PER_WINDOW) {
+                throw new IllegalStateException("Window has reached the maximum number of allowed rules");
+            }
+            for (int year = startYear; year <= lastYear; year++) {
+                final Rule rule = new Rule(year, month, dayOfMonthIndicator, dayOfWeek, secondOfDay, ruleDefinition,
+                        savingSeconds);
+                if (lastRule) {
+                    lastRules.add(rule);
+                    maxLastRuleStartYear = Math.max(startYear, maxLastRuleStartYear);
+                } else {
+                    rules.add(rule);
+                }
+            }
+        }
+
+        /**
+         * Expands the rules continuing forever: up to the end of the window, or for a window lasting forever into
+         * one year past the latest rule start, which then carries on as the zone's last rules.
+         */
+        private void tidy(final int windowStartYear) {
+            if (lastRules.size() == 1) {
+                throw new IllegalStateException("Cannot have only one rule defined as being forever");
+            }
+            if (windowEnd.equals(LocalDateTime.MAX)) {
+                maxLastRuleStartYear = Math.max(maxLastRuleStartYear, windowStartYear) + 1;
+                for (final Rule lastRule : lastRules) {
+                    addRule(lastRule.year, maxLastRuleStartYear, lastRule.month, lastRule.dayOfMonthIndicator,
+                            lastRule.dayOfWeek, lastRule.secondOfDay, lastRule.timeDefinition,
+                            lastRule.savingSeconds);
+                    lastRule.year = maxLastRuleStartYear + 1;
+                }
+                if (maxLastRuleStartYear == Year.MAX_VALUE) {
+                    lastRules.clear();
+                } else {
+                    maxLastRuleStartYear++;
+                }
+            } else {
+                final int endYear = windowEnd.getYear();
+                for (final Rule lastRule : lastRules) {
+                    addRule(lastRule.year, endYear + 1, lastRule.month, lastRule.dayOfMonthIndicator,
+                            lastRule.dayOfWeek, lastRule.secondOfDay, lastRule.timeDefinition,
+                            lastRule.savingSeconds);
+                }
+                lastRules.clear();
+                maxLastRuleStartYear = Year.MAX_VALUE;
+            }
+            Collections.sort(rules);
+            Collections.sort(lastRules);
+            if (rules.isEmpty() && fixedSavingSeconds == null) {
+                fixedSavingSeconds = initialSavingSeconds;
+            }
+        }
+
+        private ZoneOffset createWallOffset(final int savingSeconds) {
+            return ZoneOffset.ofTotalSeconds(standardOffset.getTotalSeconds() + savingSeconds);
+        }
+
+        private long getEndEpochSecond(final int savingSeconds) {
+            if (windowEnd.equals(LocalDateTime.MAX)) {
+                return Long.MAX_VALUE;
+            }
+            final ZoneOffset wallOffset = createWallOffset(savingSeconds);
+            return timeDefinition.createDateTime(windowEnd, standardOffset, wallOffset).toEpochSecond(wallOffset);
+        }
+    }
+
+    private static final class Rule implements Comparable<Rule> {
+        private final Month month;
+        private final int dayOfMonthIndicator;
+        private final DayOfWeek dayOfWeek;
+        private final int secondOfDay;
+        private final TimeDefinition timeDefinition;
+        private final int savingSeconds;
+        private int year;
+
+        private Rule(final int year, final Month month, final int dayOfMonthIndicator, final DayOfWeek dayOfWeek,
+                     final int secondOfDay, final TimeDefinition timeDefinition, final int savingSeconds) {
+            this.year = year;
+            this.month = month;
+            this.dayOfMonthIndicator = dayOfMonthIndicator;
+            this.dayOfWeek = dayOfWeek;
+            this.secondOfDay = secondOfDay;
+            this.timeDefinition = timeDefinition;
+            this.savingSeconds = savingSeconds;
+        }
+
+        private LocalDate toLocalDate() {
+            if (dayOfMonthIndicator < 0) {
+                final int monthLength = month.length(IsoChronology.INSTANCE.isLeapYear(year));
+                final LocalDate date = LocalDate.of(year, month, monthLength + 1 + dayOfMonthIndicator);
+                return dayOfWeek == null ? date : date.with(previousOrSame(dayOfWeek));
+            }
+            final LocalDate date = LocalDate.of(year, month, dayOfMonthIndicator);
+            return dayOfWeek == null ? date : date.with(nextOrSame(dayOfWeek));
+        }
+
+        /**
+         * Unlike {@link #toTransition}, also defined for a rule which does not change the savings.
+         */
+        private long toEpochSecond(final ZoneOffset standardOffset, final int savingsBefore) {
+            final ZoneOffset wallOffset = ZoneOffset.ofTotalSeconds(standardOffset.getTotalSeconds() +
+                    savingsBefore);
+            return toTransitionDateTime(standardOffset, wallOffset).toEpochSecond(wallOffset);
+        }
+
+        /**
+         * @throws IllegalArgumentException if the rule does not change the savings
+         */
+        private ZoneOffsetTransition toTransition(final ZoneOffset standardOffset, final int savingsBefore) {
+            final ZoneOffset wallOffset = ZoneOffset.ofTotalSeconds(standardOffset.getTotalSeconds() +
+                    savingsBefore);
+            final ZoneOffset offsetAfter = ZoneOffset.ofTotalSeconds(standardOffset.getTotalSeconds() +
+                    savingSeconds);
+            return ZoneOffsetTransition.of(toTransitionDateTime(standardOffset, wallOffset), wallOffset,
+                    offsetAfter);
+        }
+
+        private LocalDateTime toTransitionDateTime(final ZoneOffset standardOffset, final ZoneOffset wallOffset) {
+            final LocalDateTime localDateTime = toLocalDate().atStartOfDay().plusSeconds(secondOfDay);
+            return timeDefinition.createDateTime(localDateTime, standardOffset, wallOffset);
+        }
+
+        /**
+         * Expresses the rule in the form {@link ZoneOffsetTransitionRule} supports: the last weekday of a month other
+         * than February as the weekday on or after a fixed day, and a time past midnight as a time on the next day.
+         */
+        private ZoneOffsetTransitionRule toTransitionRule(final ZoneOffset standardOffset, final int savingsBefore) {
+            Month ruleMonth = month;
+            int ruleDayOfMonthIndicator = dayOfMonthIndicator;
+            DayOfWeek ruleDayOfWeek = dayOfWeek;
+            if (ruleDayOfMonthIndicator < 0 && ruleMonth != Month.FEBRUARY) {
+                ruleDayOfMonthIndicator = ruleMonth.maxLength() - (DAYS_PER_WEEK - 1);
+            }
+            final boolean midnightEndOfDay;
+            final int dayShift = Math.floorDiv(secondOfDay, SECONDS_PER_DAY);
+            if (dayShift == 0) {
+                midnightEndOfDay = false;
+            } else if (dayShift == 1 && secondOfDay == SECONDS_PER_DAY && (ruleDayOfMonthIndicator < 0 ||
+                    ruleDayOfMonthIndicator == 28 && ruleMonth == Month.FEBRUARY)) {
+                midnightEndOfDay = true;
+            } else if (ruleDayOfMonthIndicator > 0) {
+                // 2004 was a leap year, so every valid day of the month exists
+                final LocalDate shiftedDate = LocalDate.of(2004, ruleMonth, ruleDayOfMonthIndicator).plusDays
+                        (dayShift);
+                ruleMonth = shiftedDate.getMonth();
+                ruleDayOfMonthIndicator = shiftedDate.getDayOfMonth();
+                ruleDayOfWeek = ruleDayOfWeek == null ? null : ruleDayOfWeek.plus(dayShift);
+                midnightEndOfDay = false;
+            } else {
+                throw new IllegalStateException("Rule in " + ruleMonth + " at second " + secondOfDay + " of the "
+                        + "last " + ruleDayOfWeek + " cannot continue forever");
+            }
+            return ZoneOffsetTransitionRule.of(ruleMonth, ruleDayOfMonthIndicator, ruleDayOfWeek, midnightEndOfDay ?
+                            LocalTime.MIDNIGHT : LocalTime.ofSecondOfDay(Math.floorMod(secondOfDay, SECONDS_PER_DAY)),
+                    midnightEndOfDay, timeDefinition, standardOffset, ZoneOffset.ofTotalSeconds(standardOffset
+                            .getTotalSeconds() + savingsBefore), ZoneOffset.ofTotalSeconds(standardOffset
+                            .getTotalSeconds() + savingSeconds));
+        }
+
+        @Override
+        public int compareTo(final Rule other) {
+            int comparison = Integer.compare(year, other.year);
+            comparison = comparison != 0 ? comparison : month.compareTo(other.month);
+            comparison = comparison != 0 ? comparison : toLocalDate().compareTo(other.toLocalDate());
+            return comparison != 0 ? comparison : Integer.compare(secondOfDay, other.secondOfDay);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.view;
+
+import de.rkl.tools.tzconv.model.ApplicationState;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.DataFormat;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Builds the clipboard content for a {@link RenderedOutput}: its text, an HTML table of the selected zones' local
+ * times and an iCalendar event at the main date and time. Everything is derived from the rendered output, so
+ * copying neither converts again nor needs any toolkit besides JavaFX's.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class ClipboardExport {
+    public static final DataFormat CALENDAR = lookupOrCreateDataFormat("text/calendar");
+
+    private static final DateTimeFormatter LOCAL_DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd " +
+            "HH:mm");
+    private static final DateTimeFormatter CALENDAR_DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern
+            ("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final String CALENDAR_LINE_BREAK = "\r\n";
+    /**
+     * Content lines longer than this many octets are folded, see RFC 5545, section 3.1.
+     */
+    private static final int CALENDAR_MAX_LINE_OCTETS = 75;
+
+    private ClipboardExport() {
+    }
+
+    private static DataFormat lookupOrCreateDataFormat(final String mimeType) {
+        final DataFormat existingDataFormat = DataFormat.lookupMimeType(mimeType);
+        return existingDataFormat != null ? existingDataFormat : new DataFormat(mimeType);
+    }
+
+    public static ClipboardContent createContent(final RenderedOutput renderedOutput) {
+        final ClipboardContent clipboardContent = new ClipboardContent();
+        clipboardContent.putString(renderedOutput.getText());
+        if (renderedOutput.getState() != null) {
+            clipboardContent.putHtml(toHtmlTable(renderedOutput));
+            clipboardContent.put(CALENDAR, toCalendar(renderedOutput, Instant.now()));
+        }
+        return clipboardContent;
+    }
+
+    /**
+     * Zone IDs, dates and offsets consist of characters which need no escaping in HTML.
+     */
+    static String toHtmlTable(final RenderedOutput renderedOutput) {
+        final ApplicationState state = renderedOutput.getState();
+        final List<ZoneId> zoneIds = state.getSelectedZoneIds();
+        final List<ZoneOffset> offsets = renderedOutput.getOffsets();
+        final long epochSecond = state.getMainDateTime().toEpochSecond();
+        final StringBuilder html = new StringBuilder("<table>\n<tr><th>Zone</th><th>Date and time</th>" +
+                "<th>UTC offset</th></tr>\n");
+        for (int index = 0; index < zoneIds.size(); index++) {
+            final ZoneOffset offset = offsets.get(index);
+            html.append("<tr><td>").append(zoneIds.get(index).getId()).append("</td><td>");
+            LOCAL_DATE_TIME_FORMATTER.formatTo(LocalDateTime.ofEpochSecond(epochSecond, 0, offset), html);
+            html.append("</td><td>").append(offset.equals(ZoneOffset.UTC) ? "+00:00" : offset.getId())
+                    .append("</td></tr>\n");
+        }
+        return html.append("</table>\n").toString();
+    }
+
+    /**
+     * Creates a calendar with a single event at the main date and time, described by the rendered text.
+     */
+    static String toCalendar(final RenderedOutput renderedOutput, final Instant timestamp) {
+        final Instant mainInstant = renderedOutput.getState().getMainDateTime().toInstant().truncatedTo(ChronoUnit
+                .SECONDS);
+        final StringBuilder calendar = new StringBuilder();
+        appendCalendarLine(calendar, "BEGIN:VCALENDAR");
+        appendCalendarLine(calendar, "VERSION:2.0");
+        appendCalendarLine(calendar, "PRODID:-//rkl//Timezone Converter//EN");
+        appendCalendarLine(calendar, "BEGIN:VEVENT");
+        appendCalendarLine(calendar, "UID:" + mainInstant.getEpochSecond() + "-" + renderedOutput.getText()
+                .hashCode() + "@timezoneConverter");
+        appendCalendarLine(calendar, "DTSTAMP:" + CALENDAR_DATE_TIME_FORMATTER.format(timestamp));
+        appendCalendarLine(calendar, "DTSTART:" + CALENDAR_DATE_TIME_FORMATTER.format(mainInstant));
+        appendCalendarLine(calendar, "SUMMARY:Converted times");
+        appendCalendarLine(calendar, "DESCRIPTION:" + escapeCalendarText(renderedOutput.getText()));
+        appendCalendarLine(calendar, "END:VEVENT");
+        appendCalendarLine(calendar, "END:VCALENDAR");
+        return calendar.toString();
+    }
+
+    private static String escapeCalendarText(final String text) {
+        final StringBuilder escapedText = new StringBuilder(text.length());
+        for (int index = 0; index < text.length(); index++) {
+            final char character = text.charAt(index);
+            switch (character) {
+                case '\\':
+                case ';':
+                case ',':
+                    escapedText.append('\\').append(character);
+                    break;
+                case '\n':
+                    escapedText.append("\\n");
+                    break;
+                case '\r':
+                    break;
+                default:
+                    escapedText.append(character);
+            }
+        }
+        return escapedText.toString();
+    }
+
+    /**
+     * Appends the given content line, folded into lines of at most {@value #CALENDAR_MAX_LINE_OCTETS} UTF-8 octets
+     * each without splitting a character.
+     */
+    private static void appendCalendarLine(final StringBuilder calendar, final String contentLine) {
+        int lineOctets = 0;
+        for (int index = 0; index < contentLine.length(); index++) {
+            final int codePoint = contentLine.codePointAt(index);
+            final int characterOctets = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (lineOctets + characterOctets > CALENDAR_MAX_LINE_OCTETS) {
+                // The continuation line's leading space counts towards its length
+                calendar.append(CALENDAR_LINE_BREAK).append(' ');
+                lineOctets = 1;
+            }
+            calendar.appendCodePoint(codePoint);
+            lineOctets += characterOctets;
+            index += Character.charCount(codePoint) - 1;
+        }
+        calendar.append(CALENDAR_LINE_BREAK);
+    }
+}
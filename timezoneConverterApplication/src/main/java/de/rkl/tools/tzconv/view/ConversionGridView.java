@@ -0,0 +1,236 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.view;
+
+import de.rkl.tools.tzconv.engine.ConversionEngine;
+import de.rkl.tools.tzconv.engine.ConversionGrid;
+import de.rkl.tools.tzconv.engine.WorkingHours;
+import de.rkl.tools.tzconv.model.ApplicationModel;
+import de.rkl.tools.tzconv.model.ApplicationState;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static de.rkl.tools.tzconv.model.ApplicationState.Aspect.MAIN_DATE_TIME;
+import static de.rkl.tools.tzconv.model.ApplicationState.Aspect.SELECTED_ZONE_IDS;
+import static de.rkl.tools.tzconv.model.ApplicationState.Aspect.ZONE_RULES;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static javafx.collections.FXCollections.observableArrayList;
+
+/**
+ * Shows every hour of the main date's day or week in all selected zones, one row per hour and one column per zone.
+ * Cells inside working hours on weekdays are highlighted, and cells on another day than the row's are greyed out. The
+ * table only holds row numbers; the cells read their text straight from the current {@link ConversionGrid}, so a
+ * new grid merely refreshes the visible cells.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public class ConversionGridView extends VBox {
+    private static final int DEFAULT_SPACING = 5;
+    private static final int DEFAULT_START_HOUR = 9;
+    private static final int DEFAULT_END_HOUR = 17;
+    private static final long SECONDS_PER_HOUR = 3_600;
+    private static final double CELL_HEIGHT = 24;
+    private static final double ZONE_COLUMN_WIDTH = 75;
+    private static final String WORKING_HOURS_STYLE = "-fx-background-color: #c8e6c9;";
+    private static final String OTHER_DAY_STYLE = "-fx-text-fill: #808080;";
+    private static final DateTimeFormatter ROW_LABEL_FORMATTER = DateTimeFormatter.ofPattern("EEE dd-MM HH:mm");
+
+    private final ApplicationModel applicationModel;
+    private final ConversionEngine conversionEngine;
+    private final Consumer<Exception> exportErrorHandler;
+    private final ComboBox<GridRange> rangeBox;
+    private final Spinner<Integer> startHourSpinner;
+    private final Spinner<Integer> endHourSpinner;
+    private final TableView<Integer> gridTable;
+    private ConversionGrid grid;
+
+    public ConversionGridView(final ApplicationModel applicationModel, final ConversionEngine conversionEngine,
+                              final Consumer<Exception> exportErrorHandler) {
+        super(DEFAULT_SPACING);
+        this.applicationModel = applicationModel;
+        this.conversionEngine = conversionEngine;
+        this.exportErrorHandler = exportErrorHandler;
+        rangeBox = new ComboBox<>(observableArrayList(GridRange.values()));
+        rangeBox.setValue(GridRange.DAY);
+        startHourSpinner = new Spinner<>(0, 23, DEFAULT_START_HOUR);
+        endHourSpinner = new Spinner<>(1, 24, DEFAULT_END_HOUR);
+        final Button exportButton = new Button("Save grid...");
+        exportButton.setOnAction(event -> exportGrid());
+        gridTable = new TableView<>();
+        gridTable.setFixedCellSize(CELL_HEIGHT);
+        VBox.setVgrow(gridTable, Priority.ALWAYS);
+        getChildren().addAll(new HBox(DEFAULT_SPACING, rangeBox, new Label("Working hours"), startHourSpinner,
+                endHourSpinner, exportButton), gridTable);
+        rangeBox.setOnAction(event -> updateGrid());
+        startHourSpinner.valueProperty().addListener((observable, oldValue, newValue) -> updateGrid());
+        endHourSpinner.valueProperty().addListener((observable, oldValue, newValue) -> updateGrid());
+        applicationModel.addStateListener(MAIN_DATE_TIME, this::updateGrid);
+        applicationModel.addStateListener(SELECTED_ZONE_IDS, this::updateGrid);
+        applicationModel.addStateListener(ZONE_RULES, this::updateGrid);
+        updateGrid();
+    }
+
+    private void updateGrid(@SuppressWarnings("UnusedParameters") final ApplicationState newState) {
+        updateGrid();
+    }
+
+    private void updateGrid() {
+        final int startHour = startHourSpinner.getValue();
+        final int endHour = endHourSpinner.getValue();
+        // An empty span flags no cell at all
+        final WorkingHours workingHours = startHour < endHour ? WorkingHours.onWeekdays(LocalTime.of(startHour, 0),
+                LocalTime.of(endHour % 24, 0)) : new WorkingHours(LocalTime.MIDNIGHT, LocalTime.MIDNIGHT, EnumSet
+                .noneOf(DayOfWeek.class));
+        final List<ZoneId> previousZoneIds = grid == null ? null : grid.getZoneIds();
+        final int previousRowCount = grid == null ? -1 : grid.getRowCount();
+        final ZonedDateTime mainDateTime = applicationModel.getMainDateTime();
+        final ZonedDateTime rangeStart = mainDateTime.toLocalDate().atStartOfDay(mainDateTime.getZone());
+        final ZonedDateTime rangeEnd = mainDateTime.toLocalDate().plusDays(rangeBox.getValue().getDays())
+                .atStartOfDay(mainDateTime.getZone());
+        // Days with a transition are shorter or longer than 24 hours; a row starting inside the range is kept
+        final long rangeSeconds = rangeEnd.toEpochSecond() - rangeStart.toEpochSecond();
+        grid = conversionEngine.createGrid(rangeStart, SECONDS_PER_HOUR, (int) ((rangeSeconds + SECONDS_PER_HOUR -
+                1) / SECONDS_PER_HOUR), applicationModel.getSelectedZoneIds(), workingHours);
+        if (!grid.getZoneIds().equals(previousZoneIds)) {
+            rebuildColumns();
+        }
+        if (grid.getRowCount() != previousRowCount) {
+            gridTable.getItems().setAll(IntStream.range(0, grid.getRowCount()).boxed().collect(toList()));
+        }
+        gridTable.refresh();
+    }
+
+    private void rebuildColumns() {
+        final TableColumn<Integer, Integer> referenceColumn = new TableColumn<>();
+        referenceColumn.setCellValueFactory(features -> new ReadOnlyObjectWrapper<>(features.getValue()));
+        referenceColumn.setCellFactory(column -> new ReferenceCell());
+        referenceColumn.setSortable(false);
+        gridTable.getColumns().clear();
+        gridTable.getColumns().add(referenceColumn);
+        for (int zoneIndex = 0; zoneIndex < grid.getZoneCount(); zoneIndex++) {
+            final int cellZoneIndex = zoneIndex;
+            final TableColumn<Integer, Integer> zoneColumn = new TableColumn<>(grid.getZoneIds().get(zoneIndex)
+                    .getId());
+            zoneColumn.setCellValueFactory(features -> new ReadOnlyObjectWrapper<>(features.getValue()));
+            zoneColumn.setCellFactory(column -> new ZoneCell(cellZoneIndex));
+            zoneColumn.setPrefWidth(ZONE_COLUMN_WIDTH);
+            zoneColumn.setSortable(false);
+            gridTable.getColumns().add(zoneColumn);
+        }
+    }
+
+    /**
+     * Saves the grid through the selected template and output format, or as tab-separated text without a template.
+     */
+    private void exportGrid() {
+        final FileChooser exportFileChooser = new FileChooser();
+        exportFileChooser.setTitle("Save grid");
+        final File exportFile = exportFileChooser.showSaveDialog(getScene().getWindow());
+        if (exportFile == null) {
+            return;
+        }
+        try (final Writer exportWriter = Files.newBufferedWriter(exportFile.toPath(), UTF_8)) {
+            conversionEngine.convert(grid, applicationModel.getTemplateFile(), conversionEngine.getOutputFormats().get
+                    (applicationModel.getState().getOutputFormatName()), exportWriter);
+        } catch (IOException | RuntimeException e) {
+            exportErrorHandler.accept(e);
+        }
+    }
+
+    private enum GridRange {
+        DAY("Day", 1),
+        WEEK("Week", 7);
+
+        private final String label;
+        private final int days;
+
+        GridRange(final String label, final int days) {
+            this.label = label;
+            this.days = days;
+        }
+
+        int getDays() {
+            return days;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final class ReferenceCell extends TableCell<Integer, Integer> {
+        @Override
+        protected void updateItem(final Integer row, final boolean empty) {
+            super.updateItem(row, empty);
+            setText(empty || row == null || row >= grid.getRowCount() ? null : grid.getReferenceDateTime(row).format
+                    (ROW_LABEL_FORMATTER));
+        }
+    }
+
+    private final class ZoneCell extends TableCell<Integer, Integer> {
+        private final int zoneIndex;
+        private final StringBuilder cellText;
+
+        private ZoneCell(final int zoneIndex) {
+            this.zoneIndex = zoneIndex;
+            cellText = new StringBuilder();
+        }
+
+        @Override
+        protected void updateItem(final Integer row, final boolean empty) {
+            super.updateItem(row, empty);
+            if (empty || row == null || row >= grid.getRowCount() || zoneIndex >= grid.getZoneCount()) {
+                setText(null);
+                setStyle(null);
+                return;
+            }
+            cellText.setLength(0);
+            grid.appendCell(row, zoneIndex, cellText);
+            setText(cellText.toString());
+            final boolean working = grid.isWorking(row, zoneIndex);
+            final boolean otherDay = grid.getDayShift(row, zoneIndex) != 0;
+            setStyle(working ? otherDay ? WORKING_HOURS_STYLE + OTHER_DAY_STYLE : WORKING_HOURS_STYLE : otherDay ?
+                    OTHER_DAY_STYLE : null);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.view;
+
+import javafx.collections.ModifiableObservableListBase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Observable line model behind the output view. {@link #update(List)} diffs the new lines against the current ones
+ * and reports only the lines which actually differ, as a single change, so a virtualized list re-renders just
+ * those cells.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public class OutputLines extends ModifiableObservableListBase<String> {
+    private final List<String> lines = new ArrayList<>();
+
+    /**
+     * Replaces the current lines by the given ones. Lines shared at the start and end are left alone; in between,
+     * lines are set in place where both versions have one and added or removed for the difference in length.
+     *
+     * @return the number of lines set, added or removed
+     */
+    public int update(final List<String> newLines) {
+        final int oldSize = lines.size();
+        final int newSize = newLines.size();
+        int prefixLength = 0;
+        while (prefixLength < oldSize && prefixLength < newSize && lines.get(prefixLength).equals(newLines.get
+                (prefixLength))) {
+            prefixLength++;
+        }
+        int suffixLength = 0;
+        while (suffixLength < oldSize - prefixLength && suffixLength < newSize - prefixLength && lines.get(oldSize -
+                1 - suffixLength).equals(newLines.get(newSize - 1 - suffixLength))) {
+            suffixLength++;
+        }
+        final int oldMiddleEnd = oldSize - suffixLength;
+        final int newMiddleEnd = newSize - suffixLength;
+        final int sharedMiddleEnd = Math.min(oldMiddleEnd, newMiddleEnd);
+        int changedLineCount = 0;
+        beginChange();
+        try {
+            for (int index = prefixLength; index < sharedMiddleEnd; index++) {
+                final String newLine = newLines.get(index);
+                if (!lines.get(index).equals(newLine)) {
+                    set(index, newLine);
+                    changedLineCount++;
+                }
+            }
+            if (newMiddleEnd > oldMiddleEnd) {
+                addAll(oldMiddleEnd, newLines.subList(oldMiddleEnd, newMiddleEnd));
+            } else if (oldMiddleEnd > newMiddleEnd) {
+                removeRange(newMiddleEnd, oldMiddleEnd);
+            }
+        } finally {
+            endChange();
+        }
+        return changedLineCount + Math.abs(newMiddleEnd - oldMiddleEnd);
+    }
+
+    @Override
+    public String get(final int index) {
+        return lines.get(index);
+    }
+
+    @Override
+    public int size() {
+        return lines.size();
+    }
+
+    @Override
+    protected void doAdd(final int index, final String element) {
+        lines.add(index, element);
+    }
+
+    @Override
+    protected String doSet(final int index, final String element) {
+        return lines.set(index, element);
+    }
+
+    @Override
+    protected String doRemove(final int index) {
+        return lines.remove(index);
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.view;
+
+import de.rkl.tools.tzconv.engine.ConversionEngine;
+import de.rkl.tools.tzconv.metrics.MetricsRegistry;
+import de.rkl.tools.tzconv.metrics.Operation;
+import de.rkl.tools.tzconv.metrics.OperationTimer;
+import de.rkl.tools.tzconv.model.ApplicationState;
+import javafx.application.Platform;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Renders conversions on a background executor and publishes the results on the JavaFX application thread. The FX
+ * thread only hands over the immutable {@link ApplicationState}; requests arriving while a render is running are
+ * coalesced so that only the latest one is rendered next, and results which have been superseded in the meantime are
+ * dropped.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public class RenderScheduler {
+    private final ConversionEngine conversionEngine;
+    private final Executor renderExecutor;
+    private final Consumer<RenderedOutput> resultConsumer;
+    private final Consumer<Exception> errorConsumer;
+    private final MetricsRegistry metricsRegistry;
+    private final AtomicReference<RenderRequest> pendingRequest;
+    private final AtomicLong latestGeneration;
+
+    public RenderScheduler(final ConversionEngine conversionEngine, final Executor renderExecutor,
+                           final Consumer<RenderedOutput> resultConsumer, final Consumer<Exception> errorConsumer,
+                           final MetricsRegistry metricsRegistry) {
+        this.conversionEngine = conversionEngine;
+        this.renderExecutor = renderExecutor;
+        this.resultConsumer = resultConsumer;
+        this.errorConsumer = errorConsumer;
+        this.metricsRegistry = metricsRegistry;
+        pendingRequest = new AtomicReference<>();
+        latestGeneration = new AtomicLong();
+    }
+
+    /**
+     * Must be called on the JavaFX application thread.
+     */
+    public void requestRender(final ApplicationState state) {
+        final OperationTimer fxUpdateTimer = OperationTimer.start(Operation.FX_UPDATE);
+        final RenderRequest renderRequest = new RenderRequest(latestGeneration.incrementAndGet(), state);
+        if (pendingRequest.getAndSet(renderRequest) == null) {
+            renderExecutor.execute(this::renderPendingRequest);
+        } else {
+            metricsRegistry.increment(MetricsRegistry.COUNTER_RENDERS_SUPERSEDED);
+        }
+        fxUpdateTimer.stop(metricsRegistry);
+    }
+
+    private void renderPendingRequest() {
+        final RenderRequest renderRequest = pendingRequest.getAndSet(null);
+        if (renderRequest == null || isSuperseded(renderRequest)) {
+            return;
+        }
+        final OperationTimer renderTimer = OperationTimer.start(Operation.RENDER);
+        try {
+            final ApplicationState state = renderRequest.state;
+            final RenderedOutput result = new RenderedOutput(state, conversionEngine.convert(state.getMainDateTime(),
+                    state.getSelectedZoneIds(), state.getTemplateFile(), conversionEngine.getOutputFormats().get(state
+                    .getOutputFormatName())), conversionEngine.getOffsets(state.getMainDateTime(), state
+                    .getSelectedZoneIds()));
+            renderTimer.stop(metricsRegistry, state.getSelectedZoneIds().size() + " zones");
+            publish(renderRequest, () -> resultConsumer.accept(result));
+        } catch (Exception e) {
+            metricsRegistry.increment(MetricsRegistry.COUNTER_RENDER_FAILURES);
+            publish(renderRequest, () -> errorConsumer.accept(e));
+        }
+    }
+
+    private void publish(final RenderRequest renderRequest, final Runnable publication) {
+        if (isSuperseded(renderRequest)) {
+            metricsRegistry.increment(MetricsRegistry.COUNTER_RENDERS_SUPERSEDED);
+            return;
+        }
+        Platform.runLater(() -> {
+            if (isSuperseded(renderRequest)) {
+                metricsRegistry.increment(MetricsRegistry.COUNTER_RENDERS_SUPERSEDED);
+            } else {
+                final OperationTimer fxUpdateTimer = OperationTimer.start(Operation.FX_UPDATE);
+                publication.run();
+                fxUpdateTimer.stop(metricsRegistry);
+            }
+        });
+    }
+
+    private boolean isSuperseded(final RenderRequest renderRequest) {
+        return renderRequest.generation != latestGeneration.get();
+    }
+
+    private static final class RenderRequest {
+        private final long generation;
+        private final ApplicationState state;
+
+        private RenderRequest(final long generation, final ApplicationState state) {
+            this.generation = generation;
+            this.state = state;
+        }
+    }
+}
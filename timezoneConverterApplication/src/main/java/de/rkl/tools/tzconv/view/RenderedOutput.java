@@ -0,0 +1,81 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.view;
+
+import com.google.common.collect.ImmutableList;
+import de.rkl.tools.tzconv.model.ApplicationState;
+
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Result of rendering one {@link ApplicationState}: the full text, its lines and the offset of every selected zone.
+ * Created once per change on the render thread and shared by all consumers, e.g. the output view and the clipboard
+ * export.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class RenderedOutput {
+    public static final RenderedOutput EMPTY = new RenderedOutput(null, "", ImmutableList.of());
+
+    private final ApplicationState state;
+    private final String text;
+    private final List<String> lines;
+    private final List<ZoneOffset> offsets;
+
+    /**
+     * @param offsets the offsets at the main date and time, in the order of the state's selected zones
+     */
+    public RenderedOutput(final ApplicationState state, final String text, final List<ZoneOffset> offsets) {
+        this.state = state;
+        this.text = text;
+        lines = splitLines(text);
+        this.offsets = ImmutableList.copyOf(offsets);
+    }
+
+    private static List<String> splitLines(final String text) {
+        final ImmutableList.Builder<String> linesBuilder = ImmutableList.builder();
+        int lineStart = 0;
+        for (int lineEnd = text.indexOf('\n'); lineEnd >= 0; lineEnd = text.indexOf('\n', lineStart)) {
+            linesBuilder.add(text.substring(lineStart, lineEnd));
+            lineStart = lineEnd + 1;
+        }
+        if (lineStart < text.length()) {
+            linesBuilder.add(text.substring(lineStart));
+        }
+        return linesBuilder.build();
+    }
+
+    /**
+     * @return the state this output was rendered from, {@code null} for {@link #EMPTY}
+     */
+    public ApplicationState getState() {
+        return state;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<String> getLines() {
+        return lines;
+    }
+
+    public List<ZoneOffset> getOffsets() {
+        return offsets;
+    }
+}
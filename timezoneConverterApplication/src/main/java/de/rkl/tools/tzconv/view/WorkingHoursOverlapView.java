@@ -0,0 +1,301 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.view;
+
+import de.rkl.tools.tzconv.engine.WorkingHours;
+import de.rkl.tools.tzconv.engine.WorkingHoursOverlap;
+import de.rkl.tools.tzconv.engine.WorkingHoursOverlapFinder;
+import de.rkl.tools.tzconv.model.ApplicationModel;
+import de.rkl.tools.tzconv.model.ApplicationState;
+import javafx.application.Platform;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.SpinnerValueFactory;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.rkl.tools.tzconv.model.ApplicationState.Aspect.MAIN_DATE_TIME;
+import static de.rkl.tools.tzconv.model.ApplicationState.Aspect.SELECTED_ZONE_IDS;
+import static de.rkl.tools.tzconv.model.ApplicationState.Aspect.ZONE_RULES;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Lists the spans of a date range in which a quorum of the selected zones are inside their working hours, shown in the
+ * zone of the main date and time. Every zone has its own working hours, edited one zone at a time, which default to
+ * 09:00-17:00 on weekdays. The overlaps are found on the render executor; like the {@link RenderScheduler}, the view
+ * drops results which have been superseded by a later change before they are shown.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public class WorkingHoursOverlapView extends VBox {
+    private static final int DEFAULT_SPACING = 5;
+    private static final int DEFAULT_RANGE_DAYS = 6;
+    private static final WorkingHours DEFAULT_WORKING_HOURS = WorkingHours.onWeekdays(LocalTime.of(9, 0), LocalTime
+            .of(17, 0));
+    private static final int HOURS_PER_DAY = 24;
+    private static final DateTimeFormatter START_FORMATTER = DateTimeFormatter.ofPattern("EEE dd-MM-yyyy HH:mm");
+    private static final DateTimeFormatter END_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter END_ON_OTHER_DAY_FORMATTER = DateTimeFormatter.ofPattern("EEE dd-MM " +
+            "HH:mm");
+
+    private final ApplicationModel applicationModel;
+    private final WorkingHoursOverlapFinder workingHoursOverlapFinder;
+    private final Executor renderExecutor;
+    private final AtomicLong latestGeneration;
+    private final DatePicker firstDatePicker;
+    private final DatePicker lastDatePicker;
+    private final ComboBox<ZoneId> zoneIdBox;
+    private final Spinner<Integer> startHourSpinner;
+    private final Spinner<Integer> startMinuteSpinner;
+    private final Spinner<Integer> endHourSpinner;
+    private final Spinner<Integer> endMinuteSpinner;
+    private final Map<DayOfWeek, CheckBox> workingDayCheckBoxes;
+    private final Spinner<Integer> quorumSpinner;
+    private final ListView<String> overlapList;
+    /**
+     * The working hours set for each zone, kept for deselected zones in case they are selected again; only accessed
+     * on the JavaFX application thread.
+     */
+    private final Map<ZoneId, WorkingHours> workingHoursByZoneId;
+    /**
+     * The zone the current overlaps are shown in; only accessed on the JavaFX application thread.
+     */
+    private ZoneId displayZoneId;
+    /**
+     * Set while the editors are loaded with the working hours of another zone, so that does not count as an edit.
+     */
+    private boolean loadingWorkingHours;
+
+    public WorkingHoursOverlapView(final ApplicationModel applicationModel,
+                                   final WorkingHoursOverlapFinder workingHoursOverlapFinder,
+                                   final Executor renderExecutor) {
+        super(DEFAULT_SPACING);
+        this.applicationModel = applicationModel;
+        this.workingHoursOverlapFinder = workingHoursOverlapFinder;
+        this.renderExecutor = renderExecutor;
+        latestGeneration = new AtomicLong();
+        final LocalDate mainDate = applicationModel.getMainDateTime().toLocalDate();
+        firstDatePicker = new DatePicker(mainDate);
+        lastDatePicker = new DatePicker(mainDate.plusDays(DEFAULT_RANGE_DAYS));
+        workingHoursByZoneId = new HashMap<>();
+        zoneIdBox = new ComboBox<>();
+        zoneIdBox.getItems().setAll(applicationModel.getSelectedZoneIds());
+        startHourSpinner = new Spinner<>(0, HOURS_PER_DAY - 1, DEFAULT_WORKING_HOURS.getStart().getHour());
+        startMinuteSpinner = new Spinner<>(0, 59, DEFAULT_WORKING_HOURS.getStart().getMinute());
+        endHourSpinner = new Spinner<>(0, HOURS_PER_DAY, DEFAULT_WORKING_HOURS.getEnd().getHour());
+        endMinuteSpinner = new Spinner<>(0, 59, DEFAULT_WORKING_HOURS.getEnd().getMinute());
+        final HBox workingDaysBox = new HBox(DEFAULT_SPACING);
+        workingDayCheckBoxes = new EnumMap<>(DayOfWeek.class);
+        for (final DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            final CheckBox workingDayCheckBox = new CheckBox(dayOfWeek.getDisplayName(TextStyle.SHORT, Locale
+                    .getDefault()));
+            workingDayCheckBox.setSelected(DEFAULT_WORKING_HOURS.isWorkingDay(dayOfWeek));
+            workingDayCheckBox.selectedProperty().addListener((observable, oldValue, newValue) ->
+                    editWorkingHours());
+            workingDayCheckBoxes.put(dayOfWeek, workingDayCheckBox);
+            workingDaysBox.getChildren().add(workingDayCheckBox);
+        }
+        final Button applyToAllZonesButton = new Button("Apply to all zones");
+        applyToAllZonesButton.setOnAction(event -> applyToAllZones());
+        final int zoneCount = applicationModel.getSelectedZoneIds().size();
+        quorumSpinner = new Spinner<>(1, Math.max(1, zoneCount), zoneCount);
+        overlapList = new ListView<>();
+        VBox.setVgrow(overlapList, Priority.ALWAYS);
+        getChildren().addAll(new HBox(DEFAULT_SPACING, new Label("From"), firstDatePicker, new Label("to"),
+                        lastDatePicker, new Label("Quorum"), quorumSpinner), new HBox(DEFAULT_SPACING, new Label
+                        ("Working hours of"), zoneIdBox, startHourSpinner, new Label(":"), startMinuteSpinner, new
+                        Label("to"), endHourSpinner, new Label(":"), endMinuteSpinner), new HBox(DEFAULT_SPACING,
+                        workingDaysBox, applyToAllZonesButton), overlapList);
+        firstDatePicker.valueProperty().addListener((observable, oldValue, newValue) -> updateOverlaps());
+        lastDatePicker.valueProperty().addListener((observable, oldValue, newValue) -> updateOverlaps());
+        zoneIdBox.valueProperty().addListener((observable, oldValue, newValue) -> loadWorkingHours(newValue));
+        for (final Spinner<Integer> timeSpinner : Arrays.asList(startHourSpinner, startMinuteSpinner, endHourSpinner,
+                endMinuteSpinner)) {
+            timeSpinner.valueProperty().addListener((observable, oldValue, newValue) -> editWorkingHours());
+        }
+        quorumSpinner.valueProperty().addListener((observable, oldValue, newValue) -> updateOverlaps());
+        zoneIdBox.getSelectionModel().selectFirst();
+        applicationModel.addStateListener(SELECTED_ZONE_IDS, this::followSelectedZones);
+        applicationModel.addStateListener(MAIN_DATE_TIME, this::followMainZone);
+        applicationModel.addStateListener(ZONE_RULES, newState -> updateOverlaps());
+        updateOverlaps();
+    }
+
+    /**
+     * Offers the newly selected zones for editing, keeping the edited zone if it is still selected, and keeps the
+     * quorum within the number of selected zones, following it along while it requires all of them.
+     */
+    private void followSelectedZones(final ApplicationState newState) {
+        final ZoneId editedZoneId = zoneIdBox.getValue();
+        zoneIdBox.getItems().setAll(newState.getSelectedZoneIds());
+        if (editedZoneId != null && newState.getSelectedZoneIds().contains(editedZoneId)) {
+            zoneIdBox.setValue(editedZoneId);
+        } else {
+            zoneIdBox.getSelectionModel().selectFirst();
+        }
+        final SpinnerValueFactory.IntegerSpinnerValueFactory quorumValueFactory =
+                (SpinnerValueFactory.IntegerSpinnerValueFactory) quorumSpinner.getValueFactory();
+        final boolean requiresAllZones = quorumValueFactory.getValue() == quorumValueFactory.getMax();
+        final int zoneCount = Math.max(1, newState.getSelectedZoneIds().size());
+        quorumValueFactory.setMax(zoneCount);
+        if (requiresAllZones || quorumValueFactory.getValue() > zoneCount) {
+            quorumValueFactory.setValue(zoneCount);
+        }
+        updateOverlaps();
+    }
+
+    private void loadWorkingHours(final ZoneId zoneId) {
+        final WorkingHours workingHours = zoneId == null ? DEFAULT_WORKING_HOURS : getWorkingHours(zoneId);
+        loadingWorkingHours = true;
+        try {
+            startHourSpinner.getValueFactory().setValue(workingHours.getStart().getHour());
+            startMinuteSpinner.getValueFactory().setValue(workingHours.getStart().getMinute());
+            endHourSpinner.getValueFactory().setValue(workingHours.getEnd().equals(LocalTime.MIDNIGHT) ? HOURS_PER_DAY
+                    : workingHours.getEnd().getHour());
+            endMinuteSpinner.getValueFactory().setValue(workingHours.getEnd().getMinute());
+            workingDayCheckBoxes.forEach((dayOfWeek, workingDayCheckBox) -> workingDayCheckBox.setSelected
+                    (workingHours.isWorkingDay(dayOfWeek)));
+        } finally {
+            loadingWorkingHours = false;
+        }
+    }
+
+    private WorkingHours getWorkingHours(final ZoneId zoneId) {
+        return workingHoursByZoneId.getOrDefault(zoneId, DEFAULT_WORKING_HOURS);
+    }
+
+    /**
+     * Stores the edited working hours for the zone being edited. Hours ending before they start, or after 24:00,
+     * are not stored, and no overlaps are shown until they are corrected.
+     */
+    private void editWorkingHours() {
+        final ZoneId zoneId = zoneIdBox.getValue();
+        if (loadingWorkingHours || zoneId == null) {
+            return;
+        }
+        final WorkingHours workingHours = readWorkingHours();
+        if (workingHours != null) {
+            workingHoursByZoneId.put(zoneId, workingHours);
+        }
+        updateOverlaps();
+    }
+
+    /**
+     * @return the working hours in the editors, or {@code null} if they are not valid
+     */
+    private WorkingHours readWorkingHours() {
+        final int endHour = endHourSpinner.getValue();
+        final int endMinute = endMinuteSpinner.getValue();
+        if (endHour == HOURS_PER_DAY && endMinute > 0) {
+            return null;
+        }
+        final LocalTime start = LocalTime.of(startHourSpinner.getValue(), startMinuteSpinner.getValue());
+        final LocalTime end = endHour == HOURS_PER_DAY ? LocalTime.MIDNIGHT : LocalTime.of(endHour, endMinute);
+        if (!start.isBefore(end) && !end.equals(LocalTime.MIDNIGHT)) {
+            return null;
+        }
+        final Set<DayOfWeek> workingDays = EnumSet.noneOf(DayOfWeek.class);
+        workingDayCheckBoxes.forEach((dayOfWeek, workingDayCheckBox) -> {
+            if (workingDayCheckBox.isSelected()) {
+                workingDays.add(dayOfWeek);
+            }
+        });
+        return new WorkingHours(start, end, workingDays);
+    }
+
+    private void applyToAllZones() {
+        final WorkingHours workingHours = readWorkingHours();
+        if (workingHours != null) {
+            zoneIdBox.getItems().forEach(zoneId -> workingHoursByZoneId.put(zoneId, workingHours));
+            updateOverlaps();
+        }
+    }
+
+    /**
+     * The overlaps only depend on the zone of the main date and time, not on the date and time itself.
+     */
+    private void followMainZone(final ApplicationState newState) {
+        if (!newState.getMainDateTime().getZone().equals(displayZoneId)) {
+            updateOverlaps();
+        }
+    }
+
+    private void updateOverlaps() {
+        final long generation = latestGeneration.incrementAndGet();
+        final ApplicationState state = applicationModel.getState();
+        displayZoneId = state.getMainDateTime().getZone();
+        final LocalDate firstDate = firstDatePicker.getValue();
+        final LocalDate lastDate = lastDatePicker.getValue();
+        if (firstDate == null || lastDate == null || readWorkingHours() == null) {
+            overlapList.getItems().clear();
+            return;
+        }
+        final ZoneId rangeZoneId = displayZoneId;
+        final Map<ZoneId, WorkingHours> selectedWorkingHours = new LinkedHashMap<>();
+        state.getSelectedZoneIds().forEach(zoneId -> selectedWorkingHours.put(zoneId, getWorkingHours(zoneId)));
+        final int quorum = quorumSpinner.getValue();
+        renderExecutor.execute(() -> {
+            if (generation != latestGeneration.get()) {
+                return;
+            }
+            final List<WorkingHoursOverlap> overlaps = workingHoursOverlapFinder.findOverlaps(firstDate, lastDate,
+                    rangeZoneId, selectedWorkingHours, quorum);
+            final List<String> overlapLines = overlaps.stream().map(overlap -> formatOverlap(overlap, rangeZoneId))
+                    .collect(toList());
+            Platform.runLater(() -> {
+                if (generation == latestGeneration.get()) {
+                    overlapList.getItems().setAll(overlapLines);
+                }
+            });
+        });
+    }
+
+    private static String formatOverlap(final WorkingHoursOverlap overlap, final ZoneId displayZoneId) {
+        final ZonedDateTime start = overlap.getStart().atZone(displayZoneId);
+        final ZonedDateTime end = overlap.getEnd().atZone(displayZoneId);
+        final DateTimeFormatter endFormatter = start.toLocalDate().equals(end.toLocalDate()) ? END_FORMATTER :
+                END_ON_OTHER_DAY_FORMATTER;
+        final String zoneCount = overlap.getMinimumZoneCount() == overlap.getMaximumZoneCount() ? String.valueOf
+                (overlap.getMinimumZoneCount()) : overlap.getMinimumZoneCount() + "-" + overlap.getMaximumZoneCount();
+        return start.format(START_FORMATTER) + " - " + end.format(endFormatter) + " (" + zoneCount + " zones)";
+    }
+}
@@ -16,82 +16,163 @@
  */
 package de.rkl.tools.tzconv.view;
 
+import de.rkl.tools.tzconv.engine.ZoneSelection;
+import de.rkl.tools.tzconv.engine.ZoneTable;
+import de.rkl.tools.tzconv.metrics.MetricsRegistry;
+import de.rkl.tools.tzconv.metrics.Operation;
+import de.rkl.tools.tzconv.metrics.OperationTimer;
 import de.rkl.tools.tzconv.model.ApplicationModel;
-import javafx.beans.property.SetProperty;
-import javafx.beans.property.SimpleSetProperty;
-import javafx.scene.Node;
+import de.rkl.tools.tzconv.model.ZoneOffsetIndex;
+import de.rkl.tools.tzconv.model.ZoneSearchIndex;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ContentDisplay;
 import javafx.scene.control.Dialog;
 import javafx.scene.control.DialogEvent;
-import javafx.scene.layout.HBox;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
 import javafx.scene.layout.VBox;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import java.time.ZoneId;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
 
-import static com.google.common.collect.Lists.newArrayList;
-import static com.google.common.collect.Lists.partition;
-import static javafx.collections.FXCollections.observableSet;
+import static javafx.collections.FXCollections.observableList;
 
 /**
  * @author Raimund Klein <raimund.klein@gmx.de>
  */
 @Component
+@Lazy
 public class ZoneIdSelectionDialog extends Dialog<Collection<ZoneId>> {
-    private final SetProperty<ZoneId> pendingSelectedZoneIds;
-    private final List<CheckBox> zoneIdCheckboxes;
+    private static final double ZONE_ID_LIST_WIDTH = 350;
+    private static final double ZONE_ID_LIST_HEIGHT = 600;
+    private static final double CONTENT_SPACING = 5;
+    private final ZoneTable zoneTable;
+    /**
+     * Pending selection, keyed by the zones' {@link ZoneTable} ordinals. Selected zones which are not part of the
+     * index cannot be shown and are kept as they are.
+     */
+    private final BitSet pendingSelectedOrdinals;
+    private ListView<ZoneId> zoneIdListView;
+    private TextField zoneSearchField;
+    /**
+     * Runs from the dialog being requested until it is shown, i.e. covers building and laying out its content.
+     */
+    private OperationTimer openTimer;
     @SuppressWarnings("unused")
     @Autowired
     private ApplicationModel applicationModel;
+    @SuppressWarnings("unused")
+    @Autowired
+    private MetricsRegistry metricsRegistry;
 
     @SuppressWarnings("unused")
     public ZoneIdSelectionDialog() {
-        zoneIdCheckboxes = newArrayList();
-        pendingSelectedZoneIds = new SimpleSetProperty<>();
+        zoneTable = ZoneTable.getInstance();
+        pendingSelectedOrdinals = new BitSet();
     }
 
     @SuppressWarnings("unused")
     @PostConstruct
     public void initContent() {
         setOnShowing(this::resetFromModel);
-        getDialogPane().setContent(createZoneIdSelectionBox());
+        setOnShown(this::recordOpened);
         getDialogPane().getButtonTypes().add(ButtonType.OK);
         getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
-        setResultConverter(buttonType -> buttonType == ButtonType.OK ? newArrayList(pendingSelectedZoneIds.getValue()) :
-                null);
+        setResultConverter(buttonType -> buttonType == ButtonType.OK ? collectPendingSelectedZoneIds() : null);
     }
 
     private void resetFromModel(@SuppressWarnings("UnusedParameters") final DialogEvent dialogEvent) {
-        pendingSelectedZoneIds.setValue(observableSet(applicationModel.selectedZoneIds.toArray(new
-                ZoneId[applicationModel.selectedZoneIds.size()])));
-        zoneIdCheckboxes.stream().forEach(zoneIdCheckBox -> zoneIdCheckBox.setSelected(pendingSelectedZoneIds
-                .contains(ZoneId.of(zoneIdCheckBox.getText()))));
+        openTimer = OperationTimer.start(Operation.ZONE_DIALOG_OPEN);
+        if (zoneIdListView == null) {
+            zoneIdListView = createZoneIdListView();
+            zoneSearchField = createZoneSearchField();
+            getDialogPane().setContent(new VBox(CONTENT_SPACING, zoneSearchField, zoneIdListView));
+        }
+        zoneSearchField.clear();
+        pendingSelectedOrdinals.clear();
+        pendingSelectedOrdinals.or(applicationModel.getSelectedZoneIds().toBitSet());
+        // The index is rebuilt after switching to a different tz database, so always show its current order
+        zoneIdListView.setItems(observableList(ZoneOffsetIndex.getZoneIds()));
+    }
+
+    private void recordOpened(@SuppressWarnings("UnusedParameters") final DialogEvent dialogEvent) {
+        if (openTimer != null) {
+            openTimer.stop(metricsRegistry);
+            openTimer = null;
+        }
+    }
+
+    private Collection<ZoneId> collectPendingSelectedZoneIds() {
+        return ZoneSelection.ofOrdinals(pendingSelectedOrdinals);
+    }
+
+    private ListView<ZoneId> createZoneIdListView() {
+        final ListView<ZoneId> listView = new ListView<>(observableList(ZoneOffsetIndex.getZoneIds()));
+        listView.setCellFactory(view -> new ZoneIdCheckBoxCell());
+        listView.setPrefSize(ZONE_ID_LIST_WIDTH, ZONE_ID_LIST_HEIGHT);
+        return listView;
+    }
+
+    /**
+     * Filters the list down to the zones matching the search; the pending selection of hidden zones is kept.
+     */
+    private TextField createZoneSearchField() {
+        final TextField searchField = new TextField();
+        searchField.setPromptText("Search zones");
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> zoneIdListView.setItems
+                (observableList(newValue.trim().isEmpty() ? ZoneOffsetIndex.getZoneIds() : searchZoneIds(newValue))));
+        return searchField;
     }
 
-    private Node createZoneIdSelectionBox() {
-        final HBox mainListBox = new HBox(5);
-        partition(newArrayList(ApplicationModel.ZONE_OFFSETS_2_ZONE_IDS.values()), 40).forEach(zoneIds -> {
-            final VBox columnBox = new VBox(5);
-            zoneIds.forEach(zoneId -> {
-                final CheckBox zoneIdCheckbox = new CheckBox(zoneId.toString());
-                zoneIdCheckbox.setSelected(applicationModel.selectedZoneIds.contains(zoneId));
-                zoneIdCheckbox.selectedProperty().addListener((observable, oldValue, newValue) -> {
-                    if (newValue) {
-                        pendingSelectedZoneIds.add(zoneId);
-                    } else {
-                        pendingSelectedZoneIds.remove(zoneId);
-                    }
-                });
-                columnBox.getChildren().add(zoneIdCheckbox);
-                zoneIdCheckboxes.add(zoneIdCheckbox);
-            });
-            mainListBox.getChildren().add(columnBox);
-        });
-        return mainListBox;
+    /**
+     * The application builds the {@link ZoneSearchIndex} in the background at startup; until it is there, zones are
+     * matched by their ID alone rather than waiting for it on the FX thread.
+     */
+    private static List<ZoneId> searchZoneIds(final String query) {
+        final List<ZoneId> zoneIds = ZoneOffsetIndex.getZoneIds();
+        final ZoneSearchIndex zoneSearchIndex = ZoneSearchIndex.getBuiltInstance();
+        if (zoneSearchIndex != null) {
+            return zoneSearchIndex.search(query, zoneIds.size());
+        }
+        final String normalizedQuery = query.trim().toLowerCase(Locale.ROOT).replace(' ', '_');
+        return zoneIds.stream().filter(zoneId -> zoneId.getId().toLowerCase(Locale.ROOT).contains(normalizedQuery))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Cells are recycled while scrolling, so only the visible rows ever own a {@link CheckBox}.
+     */
+    private final class ZoneIdCheckBoxCell extends ListCell<ZoneId> {
+        private final CheckBox zoneIdCheckBox;
+        private int ordinal;
+
+        private ZoneIdCheckBoxCell() {
+            zoneIdCheckBox = new CheckBox();
+            zoneIdCheckBox.setOnAction(event -> pendingSelectedOrdinals.set(ordinal, zoneIdCheckBox.isSelected()));
+            setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+        }
+
+        @Override
+        protected void updateItem(final ZoneId zoneId, final boolean empty) {
+            super.updateItem(zoneId, empty);
+            if (empty || zoneId == null) {
+                setGraphic(null);
+            } else {
+                ordinal = zoneTable.intern(zoneId);
+                zoneIdCheckBox.setText(zoneId.getId());
+                zoneIdCheckBox.setSelected(pendingSelectedOrdinals.get(ordinal));
+                setGraphic(zoneIdCheckBox);
+            }
+        }
     }
 }
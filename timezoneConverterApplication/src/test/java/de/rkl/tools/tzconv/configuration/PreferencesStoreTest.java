@@ -0,0 +1,126 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.configuration;
+
+import de.rkl.tools.tzconv.model.ApplicationState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Round trips of the binary preferences store and its handling of missing and damaged files and unknown zones.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+class PreferencesStoreTest {
+    private static final ZonedDateTime MAIN_DATE_TIME = ZonedDateTime.of(2024, 3, 10, 12, 0, 0, 0, ZoneId.of
+            ("Australia/Sydney"));
+    private static final List<ZoneId> SELECTED_ZONE_IDS = Arrays.asList(ZoneId.of("Europe/London"), ZoneId.of
+            ("Asia/Tokyo"), ZoneId.of("America/New_York"), ZoneId.of("UTC+05:30"));
+
+    @TempDir
+    Path storeDirectory;
+
+    @Test
+    void readReturnsWrittenState() throws IOException {
+        final Path storeFile = storeDirectory.resolve("preferences.bin");
+        final File templateFile = new File(storeDirectory.toFile(), "template.vm");
+        PreferencesStore.write(storeFile, new ApplicationState(MAIN_DATE_TIME, SELECTED_ZONE_IDS, templateFile,
+                null));
+        final PreferencesStore.Snapshot snapshot = PreferencesStore.read(storeFile);
+        assertEquals(MAIN_DATE_TIME.getZone(), snapshot.getReferenceZoneId());
+        assertEquals(templateFile.getAbsoluteFile(), snapshot.getTemplateFile());
+        assertEquals(SELECTED_ZONE_IDS, snapshot.getSelectedZoneIds());
+    }
+
+    @Test
+    void writeReplacesPreviousState() throws IOException {
+        final Path storeFile = storeDirectory.resolve("preferences.bin");
+        PreferencesStore.write(storeFile, new ApplicationState(MAIN_DATE_TIME, SELECTED_ZONE_IDS, null, null));
+        PreferencesStore.write(storeFile, new ApplicationState(MAIN_DATE_TIME, Collections.emptyList(), null,
+                null));
+        final PreferencesStore.Snapshot snapshot = PreferencesStore.read(storeFile);
+        assertNull(snapshot.getTemplateFile());
+        assertEquals(Collections.emptyList(), snapshot.getSelectedZoneIds());
+        try (final Stream<Path> storeFiles = Files.list(storeDirectory)) {
+            assertEquals(Collections.singletonList(storeFile), storeFiles.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void missingFileHasNoSnapshot() {
+        assertNull(PreferencesStore.read(storeDirectory.resolve("missing.bin")));
+    }
+
+    @Test
+    void damagedFileHasEmptySnapshot() throws IOException {
+        final Path storeFile = storeDirectory.resolve("preferences.bin");
+        PreferencesStore.write(storeFile, new ApplicationState(MAIN_DATE_TIME, SELECTED_ZONE_IDS, null, null));
+        final byte[] storedBytes = Files.readAllBytes(storeFile);
+        Files.write(storeFile, Arrays.copyOf(storedBytes, storedBytes.length - 3));
+        assertEmpty(PreferencesStore.read(storeFile));
+        storedBytes[0]++;
+        Files.write(storeFile, storedBytes);
+        assertEmpty(PreferencesStore.read(storeFile));
+    }
+
+    @Test
+    void unknownZonesAreSkipped() throws IOException {
+        final Path storeFile = storeDirectory.resolve("preferences.bin");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(PreferencesStore.MAGIC);
+            output.writeByte(PreferencesStore.FORMAT_VERSION);
+            output.writeUTF("Mars/Olympus_Mons");
+            output.writeUTF("");
+            output.writeInt(4);
+            output.writeUTF("Europe/London");
+            output.writeUTF("Mars/Olympus_Mons");
+            output.writeUTF("Asia/Tokyo");
+            output.writeUTF("UTC+05:30");
+        }
+        Files.write(storeFile, bytes.toByteArray());
+        final PreferencesStore.Snapshot snapshot = PreferencesStore.read(storeFile);
+        assertNull(snapshot.getReferenceZoneId());
+        assertEquals(Arrays.asList(ZoneId.of("Europe/London"), ZoneId.of("Asia/Tokyo"), ZoneId.of("UTC+05:30")),
+                snapshot.getSelectedZoneIds());
+    }
+
+    private static void assertEmpty(final PreferencesStore.Snapshot snapshot) {
+        assertNotNull(snapshot);
+        assertNull(snapshot.getReferenceZoneId());
+        assertNull(snapshot.getTemplateFile());
+        assertEquals(Collections.emptyList(), snapshot.getSelectedZoneIds());
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Compares the allocation-free formatting of the default pattern with {@link DateTimeFormatter}.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+class ConvertedDateTimeFormatterTest {
+    private static final DateTimeFormatter DEFAULT_FORMATTER = DateTimeFormatter.ofPattern
+            (ConvertedDateTimeFormatter.DEFAULT_PATTERN);
+    /**
+     * Offsets with minutes and seconds, on both sides of UTC, and zones with a date line change.
+     */
+    private static final List<ZoneId> ZONE_IDS = Arrays.asList(ZoneId.of("UTC"), ZoneId.of("Europe/London"),
+            ZoneId.of("Europe/Amsterdam"), ZoneId.of("Africa/Monrovia"), ZoneId.of("Asia/Kolkata"), ZoneId.of
+                    ("Australia/Eucla"), ZoneId.of("Pacific/Chatham"), ZoneId.of("America/St_Johns"), ZoneId.of
+                    ("Pacific/Apia"), ZoneId.of("Pacific/Kiritimati"), ZoneId.of("Pacific/Niue"), ZoneOffset
+                    .ofHours(-18), ZoneOffset.ofHours(18));
+    private static final int RANDOM_PROBES_PER_ZONE = 20_000;
+
+    @Test
+    void defaultPatternIsFormattedByTheSpecializedFormatter() {
+        assertNotEquals(ConvertedDateTimeFormatter.of(DEFAULT_FORMATTER).getClass(), ConvertedDateTimeFormatter.of
+                (DateTimeFormatter.ISO_OFFSET_DATE_TIME).getClass());
+    }
+
+    @Test
+    void defaultPatternMatchesDateTimeFormatter() {
+        final ConvertedDateTimeFormatter formatter = ConvertedDateTimeFormatter.of(DEFAULT_FORMATTER);
+        final long firstEpochSecond = LocalDate.of(-1, 1, 1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        final long lastEpochSecond = LocalDate.of(10_001, 1, 1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        final Random random = new Random(20240310L);
+        for (final ZoneId zoneId : ZONE_IDS) {
+            final ZoneOffsetTable offsetTable = ZoneOffsetTable.create(zoneId.getRules(), 1970, 2100);
+            for (int probe = 0; probe < RANDOM_PROBES_PER_ZONE; probe++) {
+                assertFormatted(formatter, offsetTable, zoneId, firstEpochSecond + (long) (random.nextDouble() *
+                        (lastEpochSecond - firstEpochSecond)));
+            }
+        }
+    }
+
+    @Test
+    void boundariesMatchDateTimeFormatter() {
+        final ConvertedDateTimeFormatter formatter = ConvertedDateTimeFormatter.of(DEFAULT_FORMATTER);
+        for (final ZoneId zoneId : ZONE_IDS) {
+            final ZoneOffsetTable offsetTable = ZoneOffsetTable.create(zoneId.getRules(), 1970, 2100);
+            for (final LocalDate date : Arrays.asList(LocalDate.of(0, 12, 31), LocalDate.of(1, 1, 1), LocalDate.of
+                    (1600, 2, 29), LocalDate.of(1900, 3, 1), LocalDate.of(1969, 12, 31), LocalDate.of(1970, 1, 1),
+                    LocalDate.of(2000, 2, 29), LocalDate.of(2100, 3, 1), LocalDate.of(9999, 12, 31), LocalDate.of
+                            (10_000, 1, 1))) {
+                final long epochSecond = date.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+                for (long second = epochSecond - 86_400; second <= epochSecond + 86_400; second += 1_799) {
+                    assertFormatted(formatter, offsetTable, zoneId, second);
+                }
+            }
+        }
+    }
+
+    private static void assertFormatted(final ConvertedDateTimeFormatter formatter,
+                                        final ZoneOffsetTable offsetTable, final ZoneId zoneId,
+                                        final long epochSecond) {
+        final StringBuilder formatted = new StringBuilder();
+        formatter.formatTo(epochSecond, 0, offsetTable, zoneId, formatted);
+        final ZonedDateTime dateTime = Instant.ofEpochSecond(epochSecond).atZone(zoneId);
+        assertEquals(DEFAULT_FORMATTER.format(dateTime), formatted.toString(), () -> "Formatting " + dateTime);
+    }
+}
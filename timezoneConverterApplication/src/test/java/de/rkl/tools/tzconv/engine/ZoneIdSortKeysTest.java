@@ -0,0 +1,71 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ordering of zones by their standard offset at a reference instant and then by name.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+class ZoneIdSortKeysTest {
+    /**
+     * Caracas was half an hour behind Anguilla from 2007 to 2016.
+     */
+    private static final Instant CARACAS_BEHIND = Instant.parse("2010-06-01T12:00:00Z");
+    private static final Instant CARACAS_ALIGNED = Instant.parse("2020-06-01T12:00:00Z");
+    private static final ZoneId ANGUILLA = ZoneId.of("America/Anguilla");
+    private static final ZoneId CARACAS = ZoneId.of("America/Caracas");
+
+    @Test
+    void orderFollowsTheReferenceInstant() {
+        final List<ZoneId> zoneIds = Arrays.asList(ANGUILLA, CARACAS);
+        assertEquals(Arrays.asList(CARACAS, ANGUILLA), ZoneIdSortKeys.at(CARACAS_BEHIND).sortedCopy(zoneIds));
+        assertEquals(Arrays.asList(ANGUILLA, CARACAS), ZoneIdSortKeys.at(CARACAS_ALIGNED).sortedCopy(zoneIds));
+        assertTrue(ZoneIdSortKeys.isSorted(Arrays.asList(CARACAS, ANGUILLA), CARACAS_BEHIND));
+        assertFalse(ZoneIdSortKeys.isSorted(Arrays.asList(CARACAS, ANGUILLA), CARACAS_ALIGNED));
+    }
+
+    @Test
+    void sortedCopyMatchesComparator() {
+        final List<ZoneId> zoneIds = new ArrayList<>();
+        ZoneId.getAvailableZoneIds().forEach(zoneId -> zoneIds.add(ZoneId.of(zoneId)));
+        zoneIds.addAll(Arrays.asList(ZoneId.of("UTC+01:00"), ZoneId.of("GMT-05:30"), ZoneId.of("+03:00")));
+        Collections.shuffle(zoneIds, new Random(42));
+        for (final Instant referenceInstant : Arrays.asList(CARACAS_BEHIND, CARACAS_ALIGNED)) {
+            final ZoneIdSortKeys sortKeys = ZoneIdSortKeys.at(referenceInstant);
+            final List<ZoneId> expected = new ArrayList<>(zoneIds);
+            expected.sort(sortKeys::compare);
+            final List<ZoneId> sortedZoneIds = sortKeys.sortedCopy(zoneIds);
+            assertEquals(expected, sortedZoneIds);
+            assertTrue(ZoneIdSortKeys.isSorted(sortedZoneIds, referenceInstant));
+        }
+    }
+}
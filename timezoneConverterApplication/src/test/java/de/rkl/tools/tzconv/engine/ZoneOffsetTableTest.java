@@ -0,0 +1,134 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the offset tables of every available zone with {@link ZoneRules}, inside and outside the table's window.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+class ZoneOffsetTableTest {
+    private static final int FIRST_YEAR = 1970;
+    private static final int LAST_YEAR = 2100;
+    private static final long PROBE_START_EPOCH_SECOND = toEpochSecond(1900);
+    private static final long PROBE_END_EPOCH_SECOND = toEpochSecond(2200);
+    private static final int RANDOM_PROBES_PER_ZONE = 500;
+    private static final int SECONDS_PER_HOUR = 3_600;
+
+    private static long toEpochSecond(final int year) {
+        return LocalDate.of(year, 1, 1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    @Test
+    void offsetsMatchZoneRulesAroundEveryTransition() {
+        for (final String zoneId : ZoneId.getAvailableZoneIds()) {
+            final ZoneRules zoneRules = ZoneId.of(zoneId).getRules();
+            final ZoneOffsetTable offsetTable = ZoneOffsetTable.create(zoneRules, FIRST_YEAR, LAST_YEAR);
+            for (ZoneOffsetTransition transition = zoneRules.nextTransition(Instant.ofEpochSecond
+                    (PROBE_START_EPOCH_SECOND)); transition != null && transition.toEpochSecond() <
+                    PROBE_END_EPOCH_SECOND; transition = zoneRules.nextTransition(transition.getInstant())) {
+                for (long epochSecond = transition.toEpochSecond() - 1; epochSecond <= transition.toEpochSecond() +
+                        1; epochSecond++) {
+                    assertOffset(zoneId, zoneRules, offsetTable, epochSecond);
+                }
+            }
+        }
+    }
+
+    @Test
+    void offsetsMatchZoneRulesAtRandomInstants() {
+        final Random random = new Random(20240310L);
+        for (final String zoneId : ZoneId.getAvailableZoneIds()) {
+            final ZoneRules zoneRules = ZoneId.of(zoneId).getRules();
+            final ZoneOffsetTable offsetTable = ZoneOffsetTable.create(zoneRules, FIRST_YEAR, LAST_YEAR);
+            final long[] epochSeconds = new long[RANDOM_PROBES_PER_ZONE];
+            for (int index = 0; index < epochSeconds.length; index++) {
+                epochSeconds[index] = PROBE_START_EPOCH_SECOND + (long) (random.nextDouble() *
+                        (PROBE_END_EPOCH_SECOND - PROBE_START_EPOCH_SECOND));
+                assertOffset(zoneId, zoneRules, offsetTable, epochSeconds[index]);
+            }
+            assertBatchOffsets(zoneId, zoneRules, offsetTable, epochSeconds);
+            Arrays.sort(epochSeconds);
+            assertBatchOffsets(zoneId, zoneRules, offsetTable, epochSeconds);
+        }
+    }
+
+    @Test
+    void localDateTimesResolveLikeZonedDateTime() {
+        final Random random = new Random(20240331L);
+        for (final String zoneId : ZoneId.getAvailableZoneIds()) {
+            final ZoneId zone = ZoneId.of(zoneId);
+            final ZoneRules zoneRules = zone.getRules();
+            final ZoneOffsetTable offsetTable = ZoneOffsetTable.create(zoneRules, FIRST_YEAR, LAST_YEAR);
+            for (ZoneOffsetTransition transition = zoneRules.nextTransition(Instant.ofEpochSecond(toEpochSecond
+                    (FIRST_YEAR))); transition != null && transition.toEpochSecond() < toEpochSecond(LAST_YEAR + 1);
+                 transition = zoneRules.nextTransition(transition.getInstant())) {
+                // Covers the gap or overlap itself and an hour on either side of it
+                final LocalDateTime first = transition.getDateTimeBefore().isBefore(transition.getDateTimeAfter()) ?
+                        transition.getDateTimeBefore() : transition.getDateTimeAfter();
+                final long gapOrOverlapSeconds = Math.abs(transition.getDuration().getSeconds());
+                for (long second = -SECONDS_PER_HOUR; second <= gapOrOverlapSeconds + SECONDS_PER_HOUR; second +=
+                        60) {
+                    assertLocalDateTime(zone, offsetTable, first.plusSeconds(second));
+                }
+            }
+            for (int probe = 0; probe < RANDOM_PROBES_PER_ZONE; probe++) {
+                assertLocalDateTime(zone, offsetTable, LocalDateTime.ofEpochSecond(PROBE_START_EPOCH_SECOND + (long)
+                        (random.nextDouble() * (PROBE_END_EPOCH_SECOND - PROBE_START_EPOCH_SECOND)), 0, ZoneOffset
+                        .UTC));
+            }
+        }
+    }
+
+    private static void assertOffset(final String zoneId, final ZoneRules zoneRules,
+                                     final ZoneOffsetTable offsetTable, final long epochSecond) {
+        assertEquals(zoneRules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds(), offsetTable
+                .getOffsetSeconds(epochSecond), () -> zoneId + " at " + Instant.ofEpochSecond(epochSecond));
+    }
+
+    private static void assertBatchOffsets(final String zoneId, final ZoneRules zoneRules,
+                                           final ZoneOffsetTable offsetTable, final long[] epochSeconds) {
+        final int[] offsetSeconds = new int[epochSeconds.length + 1];
+        offsetTable.getOffsetSeconds(epochSeconds, offsetSeconds, 1);
+        for (int index = 0; index < epochSeconds.length; index++) {
+            final Instant instant = Instant.ofEpochSecond(epochSeconds[index]);
+            assertEquals(zoneRules.getOffset(instant).getTotalSeconds(), offsetSeconds[index + 1], () -> zoneId +
+                    " at " + instant + " in a batch");
+        }
+    }
+
+    private static void assertLocalDateTime(final ZoneId zone, final ZoneOffsetTable offsetTable,
+                                            final LocalDateTime localDateTime) {
+        assertEquals(ZonedDateTime.ofLocal(localDateTime, zone, null).toEpochSecond(), offsetTable.toEpochSecond
+                (localDateTime.toEpochSecond(ZoneOffset.UTC)), () -> zone + " at local " + localDateTime);
+    }
+}
@@ -0,0 +1,245 @@
+/**
+ * This file is part of timezoneConverterApplication.
+ * <p>
+ * timezoneConverterApplication is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterApplication is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterApplication.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.tzdb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Compiles tz database sources and compares the resulting rules with the JDK's.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+class TzdataCompilerTest {
+    private static final String EXCERPT = "tzdata-excerpt.zi";
+    /**
+     * The zones of the excerpt have been left alone by every tz database release since then, so any JDK agrees.
+     */
+    private static final long COMPARISON_START_EPOCH_SECOND = toEpochSecond(1970);
+    private static final long COMPARISON_END_EPOCH_SECOND = toEpochSecond(2040);
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    @TempDir
+    Path outputDirectory;
+
+    private static long toEpochSecond(final int year) {
+        return LocalDate.of(year, 1, 1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static SortedMap<String, TzdbFormat.ZoneRulesData> compileExcerpt() throws IOException {
+        final TzdataCompiler compiler = new TzdataCompiler();
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(TzdataCompilerTest.class
+                .getResourceAsStream(EXCERPT), UTF_8))) {
+            compiler.parse(reader.lines().collect(Collectors.toList()), EXCERPT);
+        }
+        return compiler.compile();
+    }
+
+    /**
+     * Compares the offsets around every transition of either rules, and the split into standard offset and savings
+     * there as well as on the first of every month, which also covers changes of the standard offset alone.
+     */
+    private static void assertSameRules(final ZoneRules expected, final ZoneRules actual, final String zoneId) {
+        for (final ZoneRules transitionSource : Arrays.asList(expected, actual)) {
+            for (ZoneOffsetTransition transition = transitionSource.nextTransition(Instant.ofEpochSecond
+                    (COMPARISON_START_EPOCH_SECOND)); transition != null && transition.toEpochSecond() <
+                    COMPARISON_END_EPOCH_SECOND; transition = transitionSource.nextTransition(transition
+                    .getInstant())) {
+                for (long epochSecond = transition.toEpochSecond() - 1; epochSecond <= transition.toEpochSecond();
+                     epochSecond++) {
+                    assertSameRulesAt(expected, actual, Instant.ofEpochSecond(epochSecond), zoneId);
+                }
+            }
+        }
+        for (LocalDate date = LocalDate.ofEpochDay(COMPARISON_START_EPOCH_SECOND / SECONDS_PER_DAY); date
+                .isBefore(LocalDate.ofEpochDay(COMPARISON_END_EPOCH_SECOND / SECONDS_PER_DAY)); date = date
+                .plusMonths(1)) {
+            assertSameRulesAt(expected, actual, date.atStartOfDay().toInstant(ZoneOffset.UTC), zoneId);
+        }
+    }
+
+    private static void assertSameRulesAt(final ZoneRules expected, final ZoneRules actual, final Instant instant,
+                                          final String zoneId) {
+        assertEquals(expected.getOffset(instant), actual.getOffset(instant), () -> zoneId + " at " + instant);
+        assertEquals(expected.getStandardOffset(instant), actual.getStandardOffset(instant), () -> zoneId +
+                " standard offset at " + instant);
+        assertEquals(expected.isDaylightSavings(instant), actual.isDaylightSavings(instant), () -> zoneId +
+                " daylight savings at " + instant);
+    }
+
+    @Test
+    void excerptMatchesJdkRules() throws IOException {
+        final SortedMap<String, TzdbFormat.ZoneRulesData> zones = compileExcerpt();
+        assertEquals(Arrays.asList("America/New_York", "Asia/Tokyo", "Australia/NSW", "Australia/Sydney", "Eire",
+                "Europe/Berlin", "Europe/Dublin", "US/Eastern"), zones.keySet().stream().collect(Collectors.toList()));
+        for (final String zoneId : zones.keySet()) {
+            assertSameRules(ZoneId.of(zoneId).getRules(), zones.get(zoneId).toZoneRules(), zoneId);
+        }
+        assertEquals(zones.get("Australia/Sydney"), zones.get("Australia/NSW"));
+    }
+
+    @Test
+    void writtenDatabaseLoadsSameRules() throws IOException {
+        final SortedMap<String, TzdbFormat.ZoneRulesData> zones = compileExcerpt();
+        final Path tzdbPath = outputDirectory.resolve("tzdb.dat");
+        try (final OutputStream output = Files.newOutputStream(tzdbPath)) {
+            TzdbFormat.write("2025b", zones, output);
+        }
+        final TzdbFile tzdbFile = TzdbFile.open(tzdbPath);
+        assertEquals("2025b", tzdbFile.getVersion());
+        assertEquals(zones.keySet(), tzdbFile.getZoneIds());
+        for (final String zoneId : zones.keySet()) {
+            assertEquals(zones.get(zoneId).toZoneRules(), tzdbFile.getRules(zoneId), zoneId);
+        }
+    }
+
+    /**
+     * Writes the rules blob of a zone with the fixed offset.
+     */
+    private static void writeFixedOffsetBlob(final ZoneOffset offset, final DataOutputStream output) throws
+            IOException {
+        final ByteArrayOutputStream blobStream = new ByteArrayOutputStream();
+        final DataOutputStream blobOutput = new DataOutputStream(blobStream);
+        blobOutput.writeByte(1);
+        for (int transitionsKind = 0; transitionsKind < 2; transitionsKind++) {
+            blobOutput.writeInt(0);
+            blobOutput.writeByte(offset.getTotalSeconds() / 900);
+        }
+        blobOutput.writeByte(0);
+        output.writeShort(blobStream.size());
+        blobStream.writeTo(output);
+    }
+
+    @Test
+    void databaseWithSeveralVersionsLoadsTheLastOne() throws IOException {
+        final Path tzdbPath = outputDirectory.resolve("tzdb.dat");
+        try (final DataOutputStream output = new DataOutputStream(Files.newOutputStream(tzdbPath))) {
+            output.writeByte(TzdbFormat.FILE_FORMAT_VERSION);
+            output.writeUTF(TzdbFormat.GROUP_ID);
+            output.writeShort(2);
+            output.writeUTF("2024a");
+            output.writeUTF("2024b");
+            output.writeShort(2);
+            output.writeUTF("Etc/Old");
+            output.writeUTF("Etc/New");
+            output.writeShort(2);
+            writeFixedOffsetBlob(ZoneOffset.ofHours(1), output);
+            writeFixedOffsetBlob(ZoneOffset.ofHours(2), output);
+            // 2024a links both zones to the first rules, 2024b only the second zone to the second rules
+            output.writeShort(2);
+            output.writeShort(0);
+            output.writeShort(0);
+            output.writeShort(1);
+            output.writeShort(0);
+            output.writeShort(1);
+            output.writeShort(1);
+            output.writeShort(1);
+            output.writeShort(0);
+        }
+        final TzdbFile tzdbFile = TzdbFile.open(tzdbPath);
+        assertEquals("2024b", tzdbFile.getVersion());
+        assertEquals(Collections.singleton("Etc/New"), tzdbFile.getZoneIds());
+        assertEquals(ZoneOffset.ofHours(2).getRules(), tzdbFile.getRules("Etc/New"));
+    }
+
+    @Test
+    void fullKeywordsAndIndentedContinuationLinesAreAccepted() {
+        final TzdataCompiler compiler = new TzdataCompiler();
+        compiler.parse(Arrays.asList(
+                "Rule\tTest\t2000\tmax\t-\tMarch\tlastSunday\t2:00\t1:00\tS # Comment",
+                "Rule\tTest\t2000\tmaximum\t-\tOctober\tlastSun\t3:00\t0\t-",
+                "Zone\tTest/Zone\t1:00\t-\tCET\t2000",
+                "\t\t\t1:00\tTest\tCE%sT",
+                "Link\tTest/Zone\tTest/Link"), "test");
+        final ZoneRules rules = compiler.compile().get("Test/Link").toZoneRules();
+        assertEquals(ZoneOffset.ofHours(2), rules.getOffset(LocalDateTime.of(2030, 7, 1, 0, 0)));
+        assertEquals(ZoneOffset.ofHours(1), rules.getOffset(LocalDateTime.of(2030, 12, 1, 0, 0)));
+    }
+
+    @Test
+    void onOrBeforeRulesApplyOnTheRightDay() {
+        final TzdataCompiler compiler = new TzdataCompiler();
+        compiler.parse(Arrays.asList(
+                "R T 2000 ma - Mar Sun<=25 2 1 S",
+                "R T 2000 ma - O Sa<=2 2 0 -",
+                "Z Test/Zone 1 T CE%sT"), "test");
+        final ZoneRules rules = compiler.compile().get("Test/Zone").toZoneRules();
+        for (int year = 2001; year < 2040; year++) {
+            final LocalDate springDate = LocalDate.of(year, 3, 25).with(TemporalAdjusters.previousOrSame(DayOfWeek
+                    .SUNDAY));
+            final LocalDate autumnDate = LocalDate.of(year, 10, 2).with(TemporalAdjusters.previousOrSame(DayOfWeek
+                    .SATURDAY));
+            final List<ZoneOffsetTransition> transitions = Arrays.asList(rules.nextTransition(LocalDate.of(year, 1,
+                    1).atStartOfDay().toInstant(ZoneOffset.UTC)), rules.nextTransition(LocalDate.of(year, 7, 1)
+                    .atStartOfDay().toInstant(ZoneOffset.UTC)));
+            assertEquals(springDate.atTime(2, 0), transitions.get(0).getDateTimeBefore());
+            assertEquals(autumnDate.atTime(2, 0), transitions.get(1).getDateTimeBefore());
+        }
+    }
+
+    @Test
+    void rulesKeepingTheSavingsAddNoTransition() {
+        final TzdataCompiler compiler = new TzdataCompiler();
+        compiler.parse(Arrays.asList(
+                "R K 1990 o - Ja 1 0 0 -",
+                "R K 1990 o - Ap 1 0 1 D",
+                "R K 1990 o - O 1 0 0 S",
+                "Z Test/Zone -6 K C%sT"), "test");
+        final ZoneRules rules = compiler.compile().get("Test/Zone").toZoneRules();
+        assertEquals(2, rules.getTransitions().size());
+    }
+
+    @Test
+    void missingRulesAreReported() {
+        final TzdataCompiler compiler = new TzdataCompiler();
+        compiler.parse(Arrays.asList("Z Test/Zone 1 Missing CE%sT"), "test");
+        assertThrows(IllegalArgumentException.class, compiler::compile);
+    }
+
+    @Test
+    void ambiguousNamesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TzdataCompiler().parse(Arrays.asList(
+                "R A 2000 ma - Ma lastSu 2 1 S"), "test"));
+    }
+}
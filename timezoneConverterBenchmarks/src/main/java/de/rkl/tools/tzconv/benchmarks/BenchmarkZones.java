@@ -0,0 +1,50 @@
+/**
+ * This file is part of timezoneConverterBenchmarks.
+ * <p>
+ * timezoneConverterBenchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterBenchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterBenchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.benchmarks;
+
+import de.rkl.tools.tzconv.model.ZoneOffsetIndex;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class BenchmarkZones {
+    public static final String ALL_ZONES = "all";
+
+    private BenchmarkZones() {
+    }
+
+    /**
+     * @param zoneCount number of zones or {@link #ALL_ZONES}
+     * @return zones spread evenly across the index, i.e. across all offsets
+     */
+    public static List<ZoneId> select(final String zoneCount) {
+        final List<ZoneId> allZoneIds = ZoneOffsetIndex.getZoneIds();
+        if (ALL_ZONES.equals(zoneCount)) {
+            return allZoneIds;
+        }
+        final int count = Integer.parseInt(zoneCount);
+        final List<ZoneId> selectedZoneIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            selectedZoneIds.add(allZoneIds.get(i * allZoneIds.size() / count));
+        }
+        return selectedZoneIds;
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ * This file is part of timezoneConverterBenchmarks.
+ * <p>
+ * timezoneConverterBenchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterBenchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterBenchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.cli;
+
+import com.sun.net.httpserver.HttpServer;
+import de.rkl.tools.tzconv.benchmarks.BenchmarkZones;
+import de.rkl.tools.tzconv.engine.EngineConfiguration;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Local load test for the {@link ConversionServer}: a fixed number of concurrent clients send conversion requests for
+ * varying instants and the latencies of all successful requests are reported as percentiles. Without {@code --url} a
+ * server is started in-process on an ephemeral loopback port.
+ * <p>
+ * Usage: {@code ConversionLoadTest [--url=http://localhost:8080/convert] [--concurrency=1000] [--requests=100000]
+ * [--zones=16]}
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+public final class ConversionLoadTest {
+    private static final String OPTION_URL = "--url=";
+    private static final String OPTION_CONCURRENCY = "--concurrency=";
+    private static final String OPTION_REQUESTS = "--requests=";
+    private static final String OPTION_ZONES = "--zones=";
+    private static final String PROPERTY_MAX_CONNECTIONS = "http.maxConnections";
+    private static final int DEFAULT_CONCURRENCY = 1000;
+    private static final int DEFAULT_REQUESTS = 100_000;
+    private static final String DEFAULT_ZONES = "16";
+    private static final int WARMUP_DIVISOR = 10;
+    private static final long FIRST_INSTANT = 1_500_000_000L;
+    private static final int INSTANT_STEP_SECONDS = 3_601;
+    private static final int BACKLOG = 4096;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final String baseUrl;
+    private final int concurrency;
+
+    private ConversionLoadTest(final String baseUrl, final int concurrency) {
+        this.baseUrl = baseUrl;
+        this.concurrency = concurrency;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        String url = null;
+        int concurrency = DEFAULT_CONCURRENCY;
+        int requests = DEFAULT_REQUESTS;
+        String zones = DEFAULT_ZONES;
+        for (final String argument : args) {
+            if (argument.startsWith(OPTION_URL)) {
+                url = argument.substring(OPTION_URL.length());
+            } else if (argument.startsWith(OPTION_CONCURRENCY)) {
+                concurrency = Integer.parseInt(argument.substring(OPTION_CONCURRENCY.length()));
+            } else if (argument.startsWith(OPTION_REQUESTS)) {
+                requests = Integer.parseInt(argument.substring(OPTION_REQUESTS.length()));
+            } else if (argument.startsWith(OPTION_ZONES)) {
+                zones = argument.substring(OPTION_ZONES.length());
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + argument);
+            }
+        }
+        // Lets every client keep its connection alive instead of the default five per destination
+        if (System.getProperty(PROPERTY_MAX_CONNECTIONS) == null) {
+            System.setProperty(PROPERTY_MAX_CONNECTIONS, String.valueOf(concurrency));
+        }
+        final String zonesParameter = URLEncoder.encode(BenchmarkZones.select(zones).stream().map(ZoneId::getId)
+                .collect(joining(",")), UTF_8.name());
+        if (url != null) {
+            new ConversionLoadTest(url + "?zones=" + zonesParameter, concurrency).run(requests);
+            return;
+        }
+        try (final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext
+                (EngineConfiguration.class)) {
+            final HttpServer httpServer = ConversionServer.create(context, null).start(new InetSocketAddress
+                    (InetAddress.getLoopbackAddress(), 0), BACKLOG);
+            try {
+                new ConversionLoadTest("http://" + httpServer.getAddress().getHostString() + ":" + httpServer
+                        .getAddress().getPort() + ConversionServer.CONTEXT_PATH + "?zones=" + zonesParameter,
+                        concurrency).run(requests);
+            } finally {
+                httpServer.stop(0);
+                ((ExecutorService) httpServer.getExecutor()).shutdownNow();
+            }
+        }
+    }
+
+    private void run(final int requests) throws Exception {
+        System.out.printf("Warming up with %d requests%n", requests / WARMUP_DIVISOR);
+        sendRequests(requests / WARMUP_DIVISOR);
+        System.out.printf("Sending %d requests from %d concurrent clients%n", requests, concurrency);
+        final long startNanos = System.nanoTime();
+        final Result result = sendRequests(requests);
+        report(result, System.nanoTime() - startNanos);
+    }
+
+    private Result sendRequests(final int requests) throws Exception {
+        final long[] latencyNanos = new long[requests];
+        final AtomicInteger nextRequest = new AtomicInteger();
+        final AtomicInteger failedRequests = new AtomicInteger();
+        final ExecutorService clientExecutor = ConversionServer.newRequestExecutor();
+        try {
+            final List<Future<?>> clients = new ArrayList<>(concurrency);
+            for (int client = 0; client < concurrency; client++) {
+                clients.add(clientExecutor.submit(() -> {
+                    for (int request = nextRequest.getAndIncrement(); request < requests; request = nextRequest
+                            .getAndIncrement()) {
+                        final long requestStartNanos = System.nanoTime();
+                        if (sendRequest(FIRST_INSTANT + (long) request * INSTANT_STEP_SECONDS)) {
+                            latencyNanos[request] = System.nanoTime() - requestStartNanos;
+                        } else {
+                            latencyNanos[request] = -1;
+                            failedRequests.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> client : clients) {
+                client.get();
+            }
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+        return new Result(Arrays.stream(latencyNanos).filter(latency -> latency >= 0).sorted().toArray(),
+                failedRequests.get());
+    }
+
+    private boolean sendRequest(final long epochSecond) {
+        try {
+            final HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "&instant=" + epochSecond)
+                    .openConnection();
+            final int status = connection.getResponseCode();
+            try (final InputStream responseBody = status < HttpURLConnection.HTTP_BAD_REQUEST ? connection
+                    .getInputStream() : connection.getErrorStream()) {
+                // Drain the body so the connection can be reused
+                final byte[] buffer = new byte[4096];
+                while (responseBody != null && responseBody.read(buffer) >= 0) {
+                    // discard
+                }
+            }
+            return status == HttpURLConnection.HTTP_OK;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void report(final Result result, final long elapsedNanos) {
+        final long[] latencyNanos = result.sortedLatencyNanos;
+        System.out.printf("%d succeeded, %d failed in %d ms (%d requests/s)%n", latencyNanos.length, result
+                .failedRequests, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), elapsedNanos == 0 ? 0 : latencyNanos
+                .length * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+        if (latencyNanos.length == 0) {
+            return;
+        }
+        for (final double percentile : PERCENTILES) {
+            final int index = (int) Math.min(latencyNanos.length - 1, Math.ceil(percentile / 100 * latencyNanos
+                    .length) - 1);
+            System.out.printf("p%-5s %8.2f ms%n", percentile == Math.rint(percentile) ? String.valueOf((int)
+                    percentile) : String.valueOf(percentile), latencyNanos[Math.max(0, index)] / 1e6);
+        }
+        System.out.printf("max    %8.2f ms%n", latencyNanos[latencyNanos.length - 1] / 1e6);
+    }
+
+    private static final class Result {
+        private final long[] sortedLatencyNanos;
+        private final int failedRequests;
+
+        private Result(final long[] sortedLatencyNanos, final int failedRequests) {
+            this.sortedLatencyNanos = sortedLatencyNanos;
+            this.failedRequests = failedRequests;
+        }
+    }
+}
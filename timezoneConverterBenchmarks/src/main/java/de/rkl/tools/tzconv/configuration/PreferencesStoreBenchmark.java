@@ -0,0 +1,77 @@
+/**
+ * This file is part of timezoneConverterBenchmarks.
+ * <p>
+ * timezoneConverterBenchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterBenchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterBenchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.configuration;
+
+import de.rkl.tools.tzconv.benchmarks.BenchmarkZones;
+import de.rkl.tools.tzconv.engine.ZoneSelection;
+import de.rkl.tools.tzconv.model.ApplicationState;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and reading the binary preferences store with the selected zones, as on every preferences flush and on
+ * startup.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreferencesStoreBenchmark {
+    @Param({"15", BenchmarkZones.ALL_ZONES})
+    public String zoneCount;
+    private Path storeDirectory;
+    private Path writtenStoreFile;
+    private Path readStoreFile;
+    private ApplicationState state;
+
+    @Setup
+    public void setUp() throws IOException {
+        storeDirectory = Files.createTempDirectory("preferences");
+        writtenStoreFile = storeDirectory.resolve("written.bin");
+        readStoreFile = storeDirectory.resolve("read.bin");
+        state = new ApplicationState(ZonedDateTime.of(2024, 3, 31, 12, 30, 0, 0, ZoneId.of("Europe/Berlin")),
+                BenchmarkZones.select(zoneCount), null, null);
+        PreferencesStore.write(readStoreFile, state);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(writtenStoreFile);
+        Files.deleteIfExists(readStoreFile);
+        Files.delete(storeDirectory);
+    }
+
+    @Benchmark
+    public void writePreferences() throws IOException {
+        PreferencesStore.write(writtenStoreFile, state);
+    }
+
+    @Benchmark
+    public ZoneSelection readPreferences() {
+        return PreferencesStore.read(readStoreFile).getSelectedZoneIds();
+    }
+}
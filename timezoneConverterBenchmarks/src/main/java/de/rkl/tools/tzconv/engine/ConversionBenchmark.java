@@ -0,0 +1,89 @@
+/**
+ * This file is part of timezoneConverterBenchmarks.
+ * <p>
+ * timezoneConverterBenchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterBenchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterBenchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import de.rkl.tools.tzconv.benchmarks.BenchmarkZones;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static de.rkl.tools.tzconv.configuration.Constants.BEAN_NAME_DATE_TIME_FORMATTER;
+
+/**
+ * Formatting a reference date into the selected zones, compared with the plain {@link ZonedDateTime} path.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+    @Param({"1", "50", BenchmarkZones.ALL_ZONES})
+    public String zoneCount;
+    private AnnotationConfigApplicationContext context;
+    private ConversionEngine conversionEngine;
+    private DateTimeFormatter dateTimeFormatter;
+    private List<ZoneId> zoneIds;
+    private ZonedDateTime dateTime;
+    private StringBuilder reusedBuilder;
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(EngineConfiguration.class);
+        conversionEngine = context.getBean(ConversionEngine.class);
+        dateTimeFormatter = context.getBean(BEAN_NAME_DATE_TIME_FORMATTER, DateTimeFormatter.class);
+        zoneIds = BenchmarkZones.select(zoneCount);
+        dateTime = ZonedDateTime.of(2024, 3, 31, 12, 30, 0, 0, ZoneId.of("Europe/Berlin"));
+        reusedBuilder = new StringBuilder();
+        conversionEngine.formatConvertedDateTimes(dateTime, zoneIds);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String formatConvertedDateTimes() {
+        return conversionEngine.formatConvertedDateTimes(dateTime, zoneIds);
+    }
+
+    @Benchmark
+    public int appendConvertedDateTimesToReusedBuilder() {
+        reusedBuilder.setLength(0);
+        conversionEngine.appendConvertedDateTimes(dateTime, zoneIds, reusedBuilder);
+        return reusedBuilder.length();
+    }
+
+    @Benchmark
+    public String formatWithZonedDateTime() {
+        final StringBuilder convertedDateTimeBuilder = new StringBuilder();
+        zoneIds.forEach(zoneId -> {
+            convertedDateTimeBuilder.append(dateTime.withZoneSameInstant(zoneId).format(dateTimeFormatter));
+            convertedDateTimeBuilder.append('\n');
+        });
+        return convertedDateTimeBuilder.toString();
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * This file is part of timezoneConverterBenchmarks.
+ * <p>
+ * timezoneConverterBenchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterBenchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterBenchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import de.rkl.tools.tzconv.benchmarks.BenchmarkZones;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting a week of hourly instants into the selected zones as one grid, compared with one {@link ZonedDateTime}
+ * per cell.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionGridBenchmark {
+    private static final int ROW_COUNT = 168;
+    private static final long SECONDS_PER_HOUR = 3_600;
+    private static final DateTimeFormatter CELL_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+
+    @Param({"10", "100"})
+    public String zoneCount;
+    private AnnotationConfigApplicationContext context;
+    private ConversionEngine conversionEngine;
+    private List<ZoneId> zoneIds;
+    private ZonedDateTime firstDateTime;
+    private WorkingHours workingHours;
+    private ConversionGrid grid;
+    private StringBuilder reusedBuilder;
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(EngineConfiguration.class);
+        conversionEngine = context.getBean(ConversionEngine.class);
+        zoneIds = BenchmarkZones.select(zoneCount);
+        firstDateTime = ZonedDateTime.of(2024, 3, 25, 0, 0, 0, 0, ZoneId.of("Europe/Berlin"));
+        workingHours = WorkingHours.onWeekdays(LocalTime.of(9, 0), LocalTime.of(17, 0));
+        grid = createGrid();
+        reusedBuilder = new StringBuilder();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ConversionGrid createGrid() {
+        return conversionEngine.createGrid(firstDateTime, SECONDS_PER_HOUR, ROW_COUNT, zoneIds, workingHours);
+    }
+
+    @Benchmark
+    public int appendGrid() {
+        reusedBuilder.setLength(0);
+        grid.appendTo(reusedBuilder);
+        return reusedBuilder.length();
+    }
+
+    @Benchmark
+    public int formatWithZonedDateTime() {
+        final StringBuilder gridBuilder = new StringBuilder();
+        int workingCells = 0;
+        for (int row = 0; row < ROW_COUNT; row++) {
+            final ZonedDateTime rowDateTime = firstDateTime.plusHours(row);
+            for (final ZoneId zoneId : zoneIds) {
+                final ZonedDateTime cellDateTime = rowDateTime.withZoneSameInstant(zoneId);
+                gridBuilder.append(cellDateTime.format(CELL_FORMATTER)).append('\t');
+                final LocalTime cellTime = cellDateTime.toLocalTime();
+                if (cellDateTime.getDayOfWeek().compareTo(DayOfWeek.FRIDAY) <= 0 && !cellTime.isBefore
+                        (workingHours.getStart()) && cellTime.isBefore(workingHours.getEnd())) {
+                    workingCells++;
+                }
+            }
+            gridBuilder.append('\n');
+        }
+        return gridBuilder.length() + workingCells;
+    }
+}
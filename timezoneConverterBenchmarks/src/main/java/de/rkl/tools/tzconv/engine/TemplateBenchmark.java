@@ -0,0 +1,92 @@
+/**
+ * This file is part of timezoneConverterBenchmarks.
+ * <p>
+ * timezoneConverterBenchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterBenchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterBenchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import com.google.common.io.Resources;
+import de.rkl.tools.tzconv.benchmarks.BenchmarkZones;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.runtime.RuntimeServices;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Filling {@code DemoTemplate.vm} from the template cache, compared with parsing the template on every render.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateBenchmark {
+    private static final String DEMO_TEMPLATE_NAME = "DemoTemplate.vm";
+    private AnnotationConfigApplicationContext context;
+    private ConversionEngine conversionEngine;
+    private RuntimeServices velocityRuntime;
+    private List<ZoneId> zoneIds;
+    private ZonedDateTime dateTime;
+    private String templateContent;
+    private File templateFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new AnnotationConfigApplicationContext(EngineConfiguration.class);
+        conversionEngine = context.getBean(ConversionEngine.class);
+        velocityRuntime = context.getBean(RuntimeServices.class);
+        zoneIds = BenchmarkZones.select("15");
+        dateTime = ZonedDateTime.of(2024, 3, 31, 12, 30, 0, 0, ZoneId.of("Europe/Berlin"));
+        templateContent = Resources.toString(Resources.getResource(DEMO_TEMPLATE_NAME), UTF_8);
+        templateFile = File.createTempFile("DemoTemplate", ".vm");
+        Files.write(templateFile.toPath(), templateContent.getBytes(UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        //noinspection ResultOfMethodCallIgnored
+        templateFile.delete();
+    }
+
+    @Benchmark
+    public String mergeCachedTemplate() throws IOException {
+        return conversionEngine.convert(dateTime, zoneIds, templateFile);
+    }
+
+    @Benchmark
+    public String evaluateTemplateSource() {
+        final VelocityContext velocityContext = new VelocityContext();
+        velocityContext.put(ConversionEngine.CONTEXT_KEY_ORIGINAL_DATE, conversionEngine.formatOriginalDate(dateTime));
+        velocityContext.put(ConversionEngine.CONTEXT_KEY_CONVERTED_TIMES, conversionEngine.formatConvertedDateTimes
+                (dateTime, zoneIds));
+        final StringWriter writer = new StringWriter();
+        velocityRuntime.evaluate(velocityContext, writer, DEMO_TEMPLATE_NAME, templateContent);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * This file is part of timezoneConverterBenchmarks.
+ * <p>
+ * timezoneConverterBenchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterBenchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterBenchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.engine;
+
+import com.google.common.collect.Ordering;
+import de.rkl.tools.tzconv.benchmarks.BenchmarkZones;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorting selected zones through the comparator {@link Ordering} and with the packed keys of {@link ZoneIdSortKeys},
+ * both with keys already computed and including their computation for a new reference instant.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ZoneIdSortingBenchmark {
+    @Param({"15", BenchmarkZones.ALL_ZONES})
+    public String zoneCount;
+    private Ordering<ZoneId> zoneIdOrdering;
+    private ZoneIdSortKeys zoneIdSortKeys;
+    private List<ZoneId> shuffledZoneIds;
+    private Instant referenceInstant;
+
+    @Setup
+    public void setUp() {
+        shuffledZoneIds = new ArrayList<>(BenchmarkZones.select(zoneCount));
+        Collections.shuffle(shuffledZoneIds, new Random(42));
+        referenceInstant = Instant.parse("2024-03-31T10:30:00Z");
+        zoneIdSortKeys = ZoneIdSortKeys.at(referenceInstant);
+        zoneIdSortKeys.sortedCopy(shuffledZoneIds);
+        zoneIdOrdering = zoneIdSortKeys.ordering();
+    }
+
+    @Benchmark
+    public List<ZoneId> sortWithOrdering() {
+        return zoneIdOrdering.sortedCopy(shuffledZoneIds);
+    }
+
+    @Benchmark
+    public List<ZoneId> sortWithCachedSortKeys() {
+        return zoneIdSortKeys.sortedCopy(shuffledZoneIds);
+    }
+
+    @Benchmark
+    public List<ZoneId> sortWithFreshSortKeys() {
+        return ZoneIdSortKeys.at(referenceInstant).sortedCopy(shuffledZoneIds);
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * This file is part of timezoneConverterBenchmarks.
+ * <p>
+ * timezoneConverterBenchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterBenchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterBenchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.model;
+
+import com.google.common.collect.SetMultimap;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the offset to zone grouping from the zone rules, compared with reading the generated index.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ZoneOffsetIndexBenchmark {
+    private Instant referenceInstant;
+    private String generatedIndex;
+
+    @Setup
+    public void setUp() throws IOException {
+        referenceInstant = Instant.parse("2024-03-31T10:30:00Z");
+        final StringWriter indexWriter = new StringWriter();
+        ZoneOffsetIndex.write(ZoneOffsetIndex.computeZoneOffsets2ZoneIds(referenceInstant), indexWriter);
+        generatedIndex = indexWriter.toString();
+    }
+
+    @Benchmark
+    public SetMultimap<ZoneOffset, ZoneId> computeFromZoneRules() {
+        return ZoneOffsetIndex.computeZoneOffsets2ZoneIds(referenceInstant);
+    }
+
+    @Benchmark
+    public SetMultimap<ZoneOffset, ZoneId> readGeneratedIndex() throws IOException {
+        return ZoneOffsetIndex.read(new BufferedReader(new StringReader(generatedIndex)));
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * This file is part of timezoneConverterBenchmarks.
+ * <p>
+ * timezoneConverterBenchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * timezoneConverterBenchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with timezoneConverterBenchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.rkl.tools.tzconv.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * One keystroke of the zone search: the precomputed index compared with scanning all zone IDs.
+ *
+ * @author Raimund Klein <raimund.klein@gmx.de>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ZoneSearchIndexBenchmark {
+    private static final int MAX_RESULTS = 50;
+
+    @Param({"n", "new y", "kolk", "+05:30", "est"})
+    private String query;
+    private Instant referenceInstant;
+    private List<ZoneId> zoneIds;
+    private ZoneSearchIndex zoneSearchIndex;
+
+    @Setup
+    public void setUp() {
+        referenceInstant = Instant.parse("2024-03-31T10:30:00Z");
+        zoneIds = ZoneOffsetIndex.getZoneIds();
+        zoneSearchIndex = ZoneSearchIndex.create(zoneIds, referenceInstant);
+    }
+
+    @Benchmark
+    public int[] searchIndex() {
+        return zoneSearchIndex.searchOrdinals(query, MAX_RESULTS);
+    }
+
+    @Benchmark
+    public List<ZoneId> scanZoneIds() {
+        final String normalizedQuery = query.toLowerCase(Locale.ROOT);
+        return zoneIds.stream().filter(zoneId -> zoneId.getId().toLowerCase(Locale.ROOT).replace('_', ' ').contains
+                (normalizedQuery)).limit(MAX_RESULTS).collect(toList());
+    }
+
+    @Benchmark
+    public ZoneSearchIndex buildIndex() {
+        return ZoneSearchIndex.create(zoneIds, referenceInstant);
+    }
+}